@@ -0,0 +1,117 @@
+package com.library.bench;
+
+import com.library.text.Analyzer;
+import com.library.text.NewsgroupHeaders;
+import com.library.text.Tokenizer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyzer throughput, one document per operation. The {@code tokens} and {@code bytes}
+ * counters report tokens/s and input chars/s; run with {@code -prof gc} and read
+ * {@code gc.alloc.rate.norm} for the bytes allocated per document. {@code legacyTokenize}
+ * and {@code legacySubject} reproduce the previous lower-case/split approach for comparison.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="AnalyzerBenchmark -prof gc"},
+ * corpus directory from {@code -Dbench.data}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnalyzerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean stemming;
+
+    private String[] documents;
+    private Tokenizer tokenizer;
+    private Set<String> stopwords;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long tokens;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        documents = BenchmarkCorpus.load(0).toArray(new String[0]);
+        tokenizer = new Analyzer(2, 40, stemming).tokenizer();
+
+        // Danh sách stopword dạng String cho phương án cũ
+        stopwords = new HashSet<>();
+        for (String line : Files.readAllLines(Path.of("src/main/resources/text/stopwords.txt"))) {
+            if (!line.isBlank()) stopwords.add(line.trim());
+        }
+    }
+
+    @Benchmark
+    public void tokenize(Counters counters, Blackhole blackhole) {
+        String document = nextDocument();
+        counters.tokens += tokenizer.tokenize(document, (buf, len) -> blackhole.consume(buf[len - 1]));
+        counters.bytes += document.length();
+    }
+
+    @Benchmark
+    public void legacyTokenize(Counters counters, Blackhole blackhole) {
+        String document = nextDocument();
+        int tokens = 0;
+        for (String token : document.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() < 2 || token.length() > 40 || stopwords.contains(token)) continue;
+            blackhole.consume(token);
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += document.length();
+    }
+
+    @Benchmark
+    public String parseHeaders() {
+        return NewsgroupHeaders.parse(nextDocument()).getSubject();
+    }
+
+    @Benchmark
+    public String legacySubject() {
+        for (String line : nextDocument().split("\n")) {
+            if (line.startsWith("Subject:")) {
+                return line.substring("Subject:".length()).trim();
+            }
+        }
+        return "";
+    }
+
+    private String nextDocument() {
+        next = next + 1 == documents.length ? 0 : next + 1;
+        return documents[next];
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark input: the texts of the corpus directory given by {@code -Dbench.data}, by
+ * default the bundled 20 newsgroups train set, in path order so every run sees the same data.
+ */
+final class BenchmarkCorpus {
+
+    static final String DEFAULT_PATH = "src/main/resources/data/20news-bydate-train";
+
+    private BenchmarkCorpus() {
+    }
+
+    static Path directory() {
+        return Path.of(System.getProperty("bench.data", DEFAULT_PATH));
+    }
+
+    /** The first {@code limit} documents, or all of them when {@code limit <= 0}. */
+    static List<String> load(int limit) throws IOException {
+        List<String> documents = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory())) {
+            for (Iterator<Path> it = files.filter(Files::isRegularFile).sorted().iterator(); it.hasNext(); ) {
+                if (limit > 0 && documents.size() == limit) break;
+                documents.add(Files.readString(it.next(), StandardCharsets.ISO_8859_1));
+            }
+        }
+        return documents;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) return;
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted((a, b) -> b.compareTo(a))::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
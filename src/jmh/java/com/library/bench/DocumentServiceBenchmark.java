@@ -0,0 +1,140 @@
+package com.library.bench;
+
+import com.library.DigitalLibraryApplication;
+import com.library.clustering.ClusteringService;
+import com.library.clustering.job.ClusteringJob;
+import com.library.clustering.job.ClusteringJobService;
+import com.library.clustering.job.ClusteringJobStatus;
+import com.library.repository.DocumentRepository;
+import com.library.repository.projection.ClusterCount;
+import com.library.repository.projection.DocumentSummary;
+import com.library.service.DocumentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service and repository hot paths against the full application context on an in-memory H2
+ * database, seeded by the regular importer from the corpus directory and clustered once
+ * before measuring. {@code clusterStatistics} reads the cached statistics,
+ * {@code clusterStatisticsQuery} the GROUP BY the cache is filled from.
+ * {@code similarDocuments} includes the summary lookup of the returned page; with
+ * {@code similarityCacheSize = 0} every call ranks from scratch.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="DocumentServiceBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DocumentServiceBenchmark {
+
+    private static final int NUM_CLUSTERS = 20;
+    private static final int QUERIES = 500;
+
+    @Param({"0", "10000"})
+    public int similarityCacheSize;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private DocumentService documentService;
+    private DocumentRepository documentRepository;
+    private long[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("service-bench");
+        SpringApplication application = new SpringApplication(DigitalLibraryApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // Tham số dòng lệnh được ưu tiên hơn application.properties
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.library=WARN",
+                "--dataset.path=" + BenchmarkCorpus.directory().toAbsolutePath(),
+                "--clustering.vector-store-path=" + workDir.resolve("term-vectors.bin"),
+                "--clustering.lsh-index-path=" + workDir.resolve("minhash.bin"),
+                "--clustering.model-path=" + workDir.resolve("cluster-model.bin"),
+                "--clustering.similarity-cache-size=" + similarityCacheSize,
+                "--search.index-path=" + workDir.resolve("search-index"),
+                "--content.path=" + workDir.resolve("content"),
+                "--upload.path=" + workDir.resolve("uploads"));
+
+        documentService = context.getBean(DocumentService.class);
+        documentRepository = context.getBean(DocumentRepository.class);
+
+        // Chờ job phân cụm lúc khởi động xong rồi phân cụm lại với số cụm cố định
+        ClusteringJobService jobService = context.getBean(ClusteringJobService.class);
+        while (jobService.getJobs().stream().map(ClusteringJob::getStatus).anyMatch(ClusteringJobStatus::isActive)) {
+            Thread.sleep(100);
+        }
+        context.getBean(ClusteringService.class).performClustering(NUM_CLUSTERS);
+
+        List<Long> ids = documentRepository.findAllIds();
+        Random random = new Random(42);
+        queries = new long[QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = ids.get(random.nextInt(ids.size()));
+        }
+        System.out.printf("%nseeded %d documents into H2%n", ids.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        BenchmarkCorpus.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> clusterStatistics() {
+        return documentService.getClusterStatistics();
+    }
+
+    @Benchmark
+    public List<ClusterCount> clusterStatisticsQuery() {
+        return documentRepository.countByCluster();
+    }
+
+    @Benchmark
+    public Page<DocumentSummary> similarDocuments() {
+        return documentService.getSimilarDocuments(nextQuery(), 10, 0, false);
+    }
+
+    @Benchmark
+    public Page<DocumentSummary> similarDocumentsSameCluster() {
+        return documentService.getSimilarDocuments(nextQuery(), 10, 0, true);
+    }
+
+    private long nextQuery() {
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return queries[next];
+    }
+}
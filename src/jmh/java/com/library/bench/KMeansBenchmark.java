@@ -0,0 +1,124 @@
+package com.library.bench;
+
+import com.library.clustering.SparseMatrix;
+import com.library.clustering.TermVectorStore;
+import com.library.clustering.engine.ClusteringEngine;
+import com.library.clustering.engine.ClusteringResult;
+import com.library.clustering.engine.HamerlyKMeans;
+import com.library.clustering.engine.IterationListener;
+import com.library.clustering.engine.MiniBatchKMeans;
+import com.library.clustering.reduction.RandomProjection;
+import com.library.clustering.reduction.RandomizedSvd;
+import com.library.config.ClusteringProperties;
+import com.library.config.ContentProperties;
+import com.library.content.ContentStore;
+import com.library.text.Analyzer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a k-means run over the corpus TF-IDF matrix for different corpus sizes ({@code n}),
+ * cluster counts ({@code k}) and vocabulary sizes. Runs are capped at {@link #MAX_ITERATIONS}
+ * with tolerance 0; the {@code iterations} counter divides the time by the iterations actually
+ * performed, giving the cost of one iteration including its share of seeding. With
+ * {@code reduction} other than {@code NONE} the engines run on {@link #DIMENSIONS} dense
+ * dimensions, projected once per trial.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="KMeansBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class KMeansBenchmark {
+
+    private static final int MAX_ITERATIONS = 20;
+    private static final int DIMENSIONS = 128;
+
+    // 0 = toàn bộ corpus
+    @Param({"2000", "0"})
+    public int documents;
+
+    @Param({"5", "20", "50"})
+    public int numClusters;
+
+    @Param({"1000", "10000"})
+    public int maxFeatures;
+
+    @Param({"HAMERLY", "MINI_BATCH"})
+    public ClusteringProperties.Engine engine;
+
+    @Param({"NONE", "RANDOM_PROJECTION", "SVD"})
+    public ClusteringProperties.Reduction reduction;
+
+    private SparseMatrix matrix;
+    private ForkJoinPool pool;
+    private ClusteringEngine clusteringEngine;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long iterations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            iterations = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ClusteringProperties properties = new ClusteringProperties();
+        TermVectorStore store = new TermVectorStore(null, properties, Analyzer.standard(),
+                new ContentStore(new ContentProperties()));
+        long id = 0;
+        for (String text : BenchmarkCorpus.load(documents)) {
+            store.update(++id, text);
+        }
+        matrix = store.buildMatrix(maxFeatures, properties.getMinDocumentFrequency(),
+                properties.getMaxDocumentFrequencyRatio());
+
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        if (reduction == ClusteringProperties.Reduction.RANDOM_PROJECTION) {
+            matrix = new RandomProjection(DIMENSIONS, properties.getSeed()).fit(matrix).project(matrix, pool);
+        } else if (reduction == ClusteringProperties.Reduction.SVD) {
+            matrix = new RandomizedSvd(pool, DIMENSIONS, properties.getSvdOversampling(),
+                    properties.getSvdPowerIterations(), properties.getSeed()).fit(matrix).project(matrix, pool);
+        }
+        clusteringEngine = engine == ClusteringProperties.Engine.MINI_BATCH
+                ? new MiniBatchKMeans(pool, MAX_ITERATIONS, 0.0, properties.getSeed(), properties.getMiniBatchSize())
+                : new HamerlyKMeans(pool, MAX_ITERATIONS, 0.0, properties.getSeed());
+        System.out.printf("%nmatrix: %d rows x %d columns, %d non-zeros%n",
+                matrix.numRows(), matrix.numCols(), matrix.nonZeros());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ClusteringResult cluster(Counters counters) {
+        ClusteringResult result = clusteringEngine.cluster(matrix, numClusters, IterationListener.NONE);
+        counters.iterations += result.getIterations();
+        return result;
+    }
+}
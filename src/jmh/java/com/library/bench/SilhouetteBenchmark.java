@@ -0,0 +1,89 @@
+package com.library.bench;
+
+import com.library.clustering.ClusterQuality;
+import com.library.clustering.ClusterQualityEvaluator;
+import com.library.clustering.SparseMatrix;
+import com.library.clustering.TermVectorStore;
+import com.library.clustering.engine.HamerlyKMeans;
+import com.library.config.ClusteringProperties;
+import com.library.config.ContentProperties;
+import com.library.content.ContentStore;
+import com.library.text.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster quality scoring (silhouette, Davies-Bouldin, inertia) on labels from a fixed k-means
+ * run. {@code sampleSize = 0} computes the exact silhouette, other values the stratified
+ * estimate used above {@code clustering.silhouette-sample-size} documents.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="SilhouetteBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SilhouetteBenchmark {
+
+    // 0 = toàn bộ corpus
+    @Param({"2000", "0"})
+    public int documents;
+
+    @Param({"5", "20", "50"})
+    public int numClusters;
+
+    @Param({"0", "5000"})
+    public int sampleSize;
+
+    private SparseMatrix matrix;
+    private int[] labels;
+    private ForkJoinPool pool;
+    private ClusterQualityEvaluator evaluator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ClusteringProperties properties = new ClusteringProperties();
+        properties.setSilhouetteSampleSize(sampleSize);
+        TermVectorStore store = new TermVectorStore(null, properties, Analyzer.standard(),
+                new ContentStore(new ContentProperties()));
+        long id = 0;
+        for (String text : BenchmarkCorpus.load(documents)) {
+            store.update(++id, text);
+        }
+        matrix = store.buildMatrix(properties.getMaxFeatures(), properties.getMinDocumentFrequency(),
+                properties.getMaxDocumentFrequencyRatio());
+
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        labels = new HamerlyKMeans(pool, properties.getMaxIterations(), properties.getTolerance(), properties.getSeed())
+                .cluster(matrix, numClusters)
+                .getLabels();
+        evaluator = new ClusterQualityEvaluator(properties, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ClusterQuality evaluate() {
+        return evaluator.evaluate(matrix, labels, numClusters);
+    }
+}
@@ -0,0 +1,150 @@
+package com.library.bench;
+
+import com.library.clustering.MinHashIndex;
+import com.library.clustering.SimilarDocument;
+import com.library.clustering.SimilarityIndex;
+import com.library.clustering.SparseMatrix;
+import com.library.clustering.TermVectorStore;
+import com.library.config.ClusteringProperties;
+import com.library.config.ContentProperties;
+import com.library.content.ContentStore;
+import com.library.text.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact inverted-index search against MinHash LSH candidates re-ranked by cosine. Latency is
+ * sampled per query (JMH reports p50/p99); recall@10 of the LSH path against the exact top-10
+ * is printed once per trial.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="SimilaritySearchBenchmark"},
+ * corpus directory from {@code -Dbench.data} (default: the bundled 20 newsgroups train set).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimilaritySearchBenchmark {
+
+    private static final int RECALL_QUERIES = 500;
+
+    @Param({"32", "64", "128"})
+    public int lshBands;
+
+    @Param({"2", "3"})
+    public int lshRowsPerBand;
+
+    private Path workDir;
+    private MinHashIndex exactMinHash;
+    private MinHashIndex lshMinHash;
+    private SimilarityIndex exact;
+    private SimilarityIndex lsh;
+    private long[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("similarity-bench");
+        ClusteringProperties properties = properties(ClusteringProperties.SimilaritySearch.EXACT);
+        TermVectorStore store = new TermVectorStore(null, properties, Analyzer.standard(),
+                new ContentStore(new ContentProperties()));
+        long id = 0;
+        for (String document : BenchmarkCorpus.load(0)) {
+            store.update(++id, document);
+        }
+        SparseMatrix matrix = store.buildMatrix(properties.getMaxFeatures(), properties.getMinDocumentFrequency(),
+                properties.getMaxDocumentFrequencyRatio());
+        int[] labels = new int[matrix.numRows()];
+
+        exactMinHash = minHashIndex(properties, "exact.bin");
+        exact = new SimilarityIndex(store, properties, exactMinHash);
+        exact.rebuild(matrix, labels);
+        ClusteringProperties lshProperties = properties(ClusteringProperties.SimilaritySearch.LSH);
+        lshMinHash = minHashIndex(lshProperties, "lsh.bin");
+        lsh = new SimilarityIndex(store, lshProperties, lshMinHash);
+        lsh.rebuild(matrix, labels);
+
+        Random random = new Random(42);
+        queries = new long[RECALL_QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = matrix.id(random.nextInt(matrix.numRows()));
+        }
+
+        // recall@10 của LSH so với kết quả chính xác
+        long hits = 0;
+        long expected = 0;
+        for (long query : queries) {
+            Set<Long> truth = new HashSet<>();
+            for (SimilarDocument doc : exact.findSimilar(query, null)) {
+                truth.add(doc.getDocumentId());
+            }
+            expected += truth.size();
+            for (SimilarDocument doc : lsh.findSimilar(query, null)) {
+                if (truth.contains(doc.getDocumentId())) hits++;
+            }
+        }
+        System.out.printf("%nbands=%d rows=%d documents=%d recall@10=%.4f%n",
+                lshBands, lshRowsPerBand, matrix.numRows(), expected == 0 ? 1.0 : (double) hits / expected);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        // Đóng các file đã map trước khi xóa thư mục, như Spring đóng bean MinHashIndex khi tắt
+        if (exactMinHash != null) exactMinHash.close();
+        if (lshMinHash != null) lshMinHash.close();
+        BenchmarkCorpus.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public List<SimilarDocument> exact() {
+        return exact.findSimilar(nextQuery(), null);
+    }
+
+    @Benchmark
+    public List<SimilarDocument> lsh() {
+        return lsh.findSimilar(nextQuery(), null);
+    }
+
+    private long nextQuery() {
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return queries[next];
+    }
+
+    private ClusteringProperties properties(ClusteringProperties.SimilaritySearch search) {
+        ClusteringProperties properties = new ClusteringProperties();
+        properties.setSimilaritySearch(search);
+        properties.setSimilarDocuments(10);
+        // Không cache để đo đúng thời gian tìm kiếm
+        properties.setSimilarityCacheSize(0);
+        properties.setLshBands(lshBands);
+        properties.setLshRowsPerBand(lshRowsPerBand);
+        return properties;
+    }
+
+    private MinHashIndex minHashIndex(ClusteringProperties properties, String file) throws IOException {
+        return new MinHashIndex(workDir.resolve(file), properties.getLshBands(),
+                properties.getLshRowsPerBand(), properties.getSeed());
+    }
+}
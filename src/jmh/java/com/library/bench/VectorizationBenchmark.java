@@ -0,0 +1,92 @@
+package com.library.bench;
+
+import com.library.clustering.SparseMatrix;
+import com.library.clustering.TermVectorStore;
+import com.library.config.ClusteringProperties;
+import com.library.config.ContentProperties;
+import com.library.content.ContentStore;
+import com.library.text.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text-to-vector cost: {@code vectorize} tokenizes every document into the term vector store
+ * and builds the TF-IDF matrix, {@code buildMatrix} only rebuilds the matrix from counts
+ * already in the store, as a clustering run does once the store is synchronized.
+ * <p>
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="VectorizationBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class VectorizationBenchmark {
+
+    // 0 = toàn bộ corpus
+    @Param({"2000", "0"})
+    public int documents;
+
+    @Param({"1000", "10000"})
+    public int maxFeatures;
+
+    @Param({"false", "true"})
+    public boolean stemming;
+
+    private List<String> texts;
+    private ClusteringProperties properties;
+    private Analyzer analyzer;
+    private TermVectorStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        texts = BenchmarkCorpus.load(documents);
+        properties = new ClusteringProperties();
+        properties.setMaxFeatures(maxFeatures);
+        analyzer = new Analyzer(2, 40, stemming);
+        store = fill(newStore());
+    }
+
+    @Benchmark
+    public SparseMatrix vectorize() {
+        return buildMatrix(fill(newStore()));
+    }
+
+    @Benchmark
+    public SparseMatrix buildMatrix() {
+        return buildMatrix(store);
+    }
+
+    // Content store mặc định (DATABASE) không mở file nào, văn bản được đưa thẳng vào update
+    private TermVectorStore newStore() {
+        return new TermVectorStore(null, properties, analyzer, new ContentStore(new ContentProperties()));
+    }
+
+    private TermVectorStore fill(TermVectorStore target) {
+        long id = 0;
+        for (String text : texts) {
+            target.update(++id, text);
+        }
+        return target;
+    }
+
+    private SparseMatrix buildMatrix(TermVectorStore source) {
+        return source.buildMatrix(properties.getMaxFeatures(), properties.getMinDocumentFrequency(),
+                properties.getMaxDocumentFrequencyRatio());
+    }
+}
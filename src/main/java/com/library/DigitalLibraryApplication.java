@@ -2,11 +2,12 @@ package com.library;
 
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
-import com.library.clustering.ClusteringService;
+import com.library.clustering.job.ClusteringJobService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.annotation.Order;
 
 @SpringBootApplication
 public class DigitalLibraryApplication {
@@ -15,7 +16,8 @@ public class DigitalLibraryApplication {
         SpringApplication.run(DigitalLibraryApplication.class, args);
     }
     @Bean
-    public CommandLineRunner init(ClusteringService clusteringService) {
-        return args -> clusteringService.performClustering(3); // Số cụm mặc định là 3, bạn có thể thay đổi
+    @Order(2) // Chạy sau DataInitializer
+    public CommandLineRunner init(ClusteringJobService clusteringJobService) {
+        return args -> clusteringJobService.submit(3); // Số cụm mặc định là 3, bạn có thể thay đổi
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.library.clustering;
+
+import com.library.config.ClusteringProperties;
+import com.library.text.Analyzer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Assigns saved documents to a cluster with the model of the last clustering run, so new and
+ * edited documents get a label without re-running k-means. The model is loaded from
+ * {@code clustering.model-path} at startup and replaced after every run.
+ * <p>
+ * Online assignments are tracked against the training documents: when the mean cosine of the
+ * assigned documents to their centroid drops by more than {@code clustering.drift-threshold},
+ * or more than {@code clustering.retrain-ratio} of the corpus was assigned online, a full
+ * retrain is recommended. The counters start again at zero after a restart.
+ * <ul>
+ *     <li>{@code library.clustering.assignments} counter by outcome (assigned, unassigned)</li>
+ *     <li>{@code library.clustering.assignment.similarity} cosine of each assignment</li>
+ *     <li>{@code library.clustering.drift} gauge of the current drift</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterAssigner {
+
+    private final ClusteringProperties properties;
+    private final Analyzer analyzer;
+    private final MeterRegistry registry;
+
+    private volatile ClusteringModel model;
+    private long assigned;
+    private long unassigned;
+    private double similaritySum;
+
+    private Counter assignedCounter;
+    private Counter unassignedCounter;
+    private DistributionSummary similaritySummary;
+
+    @PostConstruct
+    public void load() throws IOException {
+        model = ClusteringModel.read(Path.of(properties.getModelPath()), analyzer);
+        if (model != null) {
+            log.info("Loaded clustering model: {} clusters, {} features", model.numClusters(), model.numFeatures());
+        }
+
+        assignedCounter = assignmentCounter("assigned");
+        unassignedCounter = assignmentCounter("unassigned");
+        similaritySummary = DistributionSummary.builder("library.clustering.assignment.similarity")
+                .description("Cosine of an online assignment to its centroid")
+                .register(registry);
+        Gauge.builder("library.clustering.drift", this, assigner -> assigner.getDrift().getDrift())
+                .description("Relative drop of the assignment cosine since the model was trained")
+                .register(registry);
+    }
+
+    /** Writes {@code newModel} and uses it for every following assignment. */
+    public void update(ClusteringModel newModel) throws IOException {
+        newModel.write(Path.of(properties.getModelPath()));
+        synchronized (this) {
+            model = newModel;
+            assigned = 0;
+            unassigned = 0;
+            similaritySum = 0;
+        }
+    }
+
+    /**
+     * Nearest cluster of {@code text} under the current model, {@code null} when no model has
+     * been trained yet.
+     */
+    public ClusterAssignment assign(CharSequence text) {
+        ClusteringModel current = model;
+        if (current == null) return null;
+
+        ClusterAssignment assignment = text == null
+                ? ClusterAssignment.NONE
+                : current.assign(text, analyzer.tokenizer());
+        synchronized (this) {
+            // Mô hình đã được thay trong lúc gán thì không tính vào drift của mô hình mới
+            if (current != model) return assignment;
+            if (assignment.getCluster() < 0) {
+                unassigned++;
+            } else {
+                assigned++;
+                similaritySum += assignment.getSimilarity();
+            }
+        }
+        if (assignment.getCluster() < 0) {
+            unassignedCounter.increment();
+        } else {
+            assignedCounter.increment();
+            similaritySummary.record(assignment.getSimilarity());
+        }
+        return assignment;
+    }
+
+    public synchronized ModelDrift getDrift() {
+        if (model == null) {
+            return new ModelDrift(null, 0, 0, 0, 0, 0, 0, 0, false);
+        }
+        double trainingSimilarity = model.getMeanSimilarity();
+        double meanSimilarity = assigned == 0 ? 0 : similaritySum / assigned;
+        double drift = assigned == 0 || trainingSimilarity <= 0
+                ? 0
+                : Math.max(0, 1 - meanSimilarity / trainingSimilarity);
+        long online = assigned + unassigned;
+        boolean retrain = (assigned >= properties.getDriftMinAssignments() && drift > properties.getDriftThreshold())
+                || online > properties.getRetrainRatio() * model.getNumDocuments();
+        return new ModelDrift(Instant.ofEpochMilli(model.getTrainedAt()), model.getNumDocuments(),
+                model.numClusters(), trainingSimilarity, assigned, unassigned, meanSimilarity, drift, retrain);
+    }
+
+    private Counter assignmentCounter(String outcome) {
+        return Counter.builder("library.clustering.assignments")
+                .description("Documents assigned to a cluster when saved")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
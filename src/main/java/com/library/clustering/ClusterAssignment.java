@@ -0,0 +1,17 @@
+package com.library.clustering;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ClusterAssignment {
+
+    public static final ClusterAssignment NONE = new ClusterAssignment(-1, 0);
+
+    // -1 = tài liệu không chứa term nào của mô hình
+    private final int cluster;
+
+    // Cosine tới tâm cụm được chọn
+    private final double similarity;
+}
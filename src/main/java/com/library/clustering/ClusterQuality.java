@@ -0,0 +1,32 @@
+package com.library.clustering;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ClusterQuality {
+
+    private final double silhouette;
+
+    // Khoảng tin cậy 95% khi silhouette được ước lượng từ mẫu, bằng silhouette nếu tính chính xác
+    private final double silhouetteLower;
+
+    private final double silhouetteUpper;
+
+    // Số điểm dùng để tính silhouette
+    private final int sampleSize;
+
+    private final boolean sampled;
+
+    private final double daviesBouldin;
+
+    // Tổng bình phương khoảng cách tới tâm (trung bình) của cụm
+    private final double inertia;
+
+    @Override
+    public String toString() {
+        return String.format("silhouette=%.4f [%.4f, %.4f] (n=%d), daviesBouldin=%.4f, inertia=%.4f",
+                silhouette, silhouetteLower, silhouetteUpper, sampleSize, daviesBouldin, inertia);
+    }
+}
@@ -0,0 +1,118 @@
+package com.library.clustering;
+
+import com.library.clustering.job.ClusteringJobStatus;
+import com.library.entity.ClusteringRun;
+import com.library.repository.ClusteringRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for clustering runs and the persisted history of run summaries. Each run
+ * is observed through a {@link ClusteringRunRecorder} obtained from {@link #start}.
+ * <ul>
+ *     <li>{@code library.clustering.phase} timer per phase, {@code library.clustering.iteration}
+ *     timer per k-means iteration and engine, {@code library.clustering.run} per outcome</li>
+ *     <li>{@code library.clustering.documents} counter by outcome (vectorized, clustered, skipped)</li>
+ *     <li>{@code library.clustering.allocated} bytes allocated by the JVM during a run</li>
+ *     <li>{@code library.clustering.silhouette} gauge of the last completed run</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusteringMetrics {
+
+    private final MeterRegistry registry;
+    private final ClusteringRunRepository clusteringRunRepository;
+
+    private final Map<ClusteringPhase, Timer> phaseTimers = new EnumMap<>(ClusteringPhase.class);
+    private Counter vectorizedCounter;
+    private Counter clusteredCounter;
+    private Counter skippedCounter;
+    private DistributionSummary allocated;
+    private volatile double lastSilhouette = Double.NaN;
+
+    @PostConstruct
+    public void register() {
+        for (ClusteringPhase phase : ClusteringPhase.values()) {
+            phaseTimers.put(phase, Timer.builder("library.clustering.phase")
+                    .description("Duration of a clustering phase")
+                    .tag("phase", phase.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        vectorizedCounter = documentCounter("vectorized");
+        clusteredCounter = documentCounter("clustered");
+        skippedCounter = documentCounter("skipped");
+        allocated = DistributionSummary.builder("library.clustering.allocated")
+                .description("Bytes allocated by the JVM during a clustering run")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("library.clustering.silhouette", this, metrics -> metrics.lastSilhouette)
+                .description("Silhouette score of the last completed clustering run")
+                .register(registry);
+    }
+
+    public ClusteringRunRecorder start(int numClusters, ClusteringProgress progress) {
+        return new ClusteringRunRecorder(this, numClusters, progress);
+    }
+
+    public List<ClusteringRun> getRecentRuns() {
+        return clusteringRunRepository.findTop20ByOrderByStartedAtDesc();
+    }
+
+    void recordPhase(ClusteringPhase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordIteration(String engine, long nanos) {
+        Timer.builder("library.clustering.iteration")
+                .description("Duration of one k-means iteration")
+                .tag("engine", engine)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordRun(ClusteringRun run) {
+        Timer.builder("library.clustering.run")
+                .description("Duration of a clustering run")
+                .tag("status", run.getStatus().name().toLowerCase())
+                .register(registry)
+                .record(run.getTotalMillis(), TimeUnit.MILLISECONDS);
+        vectorizedCounter.increment(run.getVectorizedDocuments());
+        clusteredCounter.increment(run.getClusteredDocuments());
+        skippedCounter.increment(run.getSkippedDocuments());
+        if (run.getAllocatedBytes() >= 0) {
+            allocated.record(run.getAllocatedBytes());
+        }
+        if (run.getStatus() == ClusteringJobStatus.COMPLETED && run.getSilhouette() != null) {
+            lastSilhouette = run.getSilhouette();
+        }
+        try {
+            clusteringRunRepository.save(run);
+        } catch (Exception e) {
+            // Không để lỗi ghi lịch sử làm hỏng lần phân cụm
+            log.warn("Could not save clustering run summary", e);
+        }
+    }
+
+    private Counter documentCounter(String outcome) {
+        return Counter.builder("library.clustering.documents")
+                .description("Documents processed by clustering runs")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
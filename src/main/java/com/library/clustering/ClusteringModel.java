@@ -0,0 +1,271 @@
+package com.library.clustering;
+
+import com.library.clustering.engine.ClusteringResult;
+import com.library.clustering.reduction.Projection;
+import com.library.text.Analyzer;
+import com.library.text.Tokenizer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Snapshot of a trained clustering model: the feature terms and their IDF weights, the
+ * L2-normalised centroids and the mean cosine of the training documents to their own
+ * centroid. A document is assigned by weighting its term counts exactly as
+ * {@link TfIdfVectorizer} does and picking the centroid with the highest cosine, without
+ * touching the rest of the corpus. When the run clustered reduced vectors, the model keeps the
+ * {@link Projection} and the centroids live in the reduced space.
+ * <p>
+ * Immutable once built, so {@link #assign} may be called from any thread. The binary format
+ * stores terms as UTF strings and weights as raw floats, under 100 KB for 1000 features
+ * and 20 clusters plus 4 bytes per feature and dimension of a projection.
+ */
+@Slf4j
+public class ClusteringModel {
+
+    private static final int MAGIC = 0x434C4D31; // "CLM1"
+    private static final int VERSION = 2;
+
+    private final long analyzerFingerprint;
+    private final long trainedAt;
+    private final int numDocuments;
+    private final double meanSimilarity;
+    private final String[] terms;
+    private final float[] idf;
+    private final float[][] centroids;
+    // null nếu phân cụm trực tiếp trên TF-IDF
+    private final Projection projection;
+
+    // Tra cứu cột theo bộ đệm của tokenizer, id trong vocabulary trùng với chỉ số cột
+    private final Vocabulary features = new Vocabulary();
+
+    private ClusteringModel(long analyzerFingerprint, long trainedAt, int numDocuments, double meanSimilarity,
+                            String[] terms, float[] idf, float[][] centroids, Projection projection) {
+        this.analyzerFingerprint = analyzerFingerprint;
+        this.trainedAt = trainedAt;
+        this.numDocuments = numDocuments;
+        this.meanSimilarity = meanSimilarity;
+        this.terms = terms;
+        this.idf = idf;
+        this.centroids = centroids;
+        this.projection = projection;
+        for (String term : terms) {
+            features.intern(term);
+        }
+    }
+
+    /**
+     * Builds the model of a finished run. {@code clustered} is the matrix the engine ran on,
+     * either {@code matrix} itself or its image under {@code projection}.
+     */
+    public static ClusteringModel train(SparseMatrix matrix, SparseMatrix clustered, Projection projection,
+                                        ClusteringResult result, Analyzer analyzer) {
+        int numCols = matrix.numCols();
+        String[] terms = new String[numCols];
+        float[] idf = new float[numCols];
+        for (int col = 0; col < numCols; col++) {
+            terms[col] = matrix.term(col);
+            idf[col] = matrix.idf(col);
+        }
+
+        // Cosine trung bình của tài liệu huấn luyện tới tâm cụm của nó, làm mốc đo drift
+        int[] labels = result.getLabels();
+        float[][] centroids = result.getCentroids();
+        double sum = 0;
+        int labelled = 0;
+        for (int row = 0; row < labels.length; row++) {
+            if (labels[row] < 0) continue;
+            sum += clustered.dot(row, centroids[labels[row]]);
+            labelled++;
+        }
+        double meanSimilarity = labelled == 0 ? 0 : sum / labelled;
+
+        float[][] copy = new float[centroids.length][];
+        for (int c = 0; c < centroids.length; c++) {
+            copy[c] = Arrays.copyOf(centroids[c], centroids[c].length);
+        }
+        return new ClusteringModel(analyzer.fingerprint(), System.currentTimeMillis(), labelled,
+                meanSimilarity, terms, idf, copy, projection);
+    }
+
+    /**
+     * Reads a model written by {@link #write}. Returns {@code null} when the file is missing,
+     * has another format version or was trained with different analyzer settings.
+     */
+    public static ClusteringModel read(Path path, Analyzer analyzer) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring incompatible clustering model: {}", path);
+                return null;
+            }
+            long fingerprint = in.readLong();
+            if (fingerprint != analyzer.fingerprint()) {
+                log.warn("Analyzer settings changed, clustering model ignored until the next run: {}", path);
+                return null;
+            }
+            long trainedAt = in.readLong();
+            int numDocuments = in.readInt();
+            double meanSimilarity = in.readDouble();
+            int numCols = in.readInt();
+            String[] terms = new String[numCols];
+            float[] idf = new float[numCols];
+            for (int col = 0; col < numCols; col++) {
+                terms[col] = in.readUTF();
+                idf[col] = in.readFloat();
+            }
+            Projection projection = in.readBoolean() ? Projection.read(in) : null;
+            int dimensions = projection != null ? projection.getDimensions() : numCols;
+            int numClusters = in.readInt();
+            float[][] centroids = new float[numClusters][dimensions];
+            for (float[] centroid : centroids) {
+                for (int d = 0; d < dimensions; d++) {
+                    centroid[d] = in.readFloat();
+                }
+            }
+            return new ClusteringModel(fingerprint, trainedAt, numDocuments, meanSimilarity, terms, idf,
+                    centroids, projection);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(analyzerFingerprint);
+            out.writeLong(trainedAt);
+            out.writeInt(numDocuments);
+            out.writeDouble(meanSimilarity);
+            out.writeInt(terms.length);
+            for (int col = 0; col < terms.length; col++) {
+                out.writeUTF(terms[col]);
+                out.writeFloat(idf[col]);
+            }
+            out.writeBoolean(projection != null);
+            if (projection != null) {
+                projection.write(out);
+            }
+            out.writeInt(centroids.length);
+            for (float[] centroid : centroids) {
+                for (float value : centroid) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Assigns {@code text} to the nearest centroid. The cluster is -1 when the text contains
+     * none of the model's features.
+     */
+    public ClusterAssignment assign(CharSequence text, Tokenizer tokenizer) {
+        // B1: Đếm số lần xuất hiện của các term thuộc tập đặc trưng
+        FeatureCounter counter = new FeatureCounter(terms.length);
+        tokenizer.tokenize(text, counter);
+        int length = counter.size;
+        if (length == 0) return ClusterAssignment.NONE;
+
+        // B2: Trọng số log(1 + tf) * idf, chuẩn hóa L2
+        int[] columns = counter.columns;
+        float[] weights = new float[length];
+        double norm = 0;
+        for (int i = 0; i < length; i++) {
+            int col = columns[i];
+            weights[i] = (float) (Math.log1p(counter.counts[col]) * idf[col]);
+            norm += (double) weights[i] * weights[i];
+        }
+        if (norm == 0) return ClusterAssignment.NONE;
+        norm = Math.sqrt(norm);
+
+        // B3: Chiếu sang không gian đã giảm chiều nếu mô hình được huấn luyện trên đó
+        float[] reduced = null;
+        if (projection != null) {
+            reduced = new float[projection.getDimensions()];
+            if (!projection.project(columns, weights, 0, length, reduced, 0)) return ClusterAssignment.NONE;
+        }
+
+        // B4: Chọn tâm cụm có cosine lớn nhất
+        int best = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < centroids.length; c++) {
+            float[] centroid = centroids[c];
+            double dot = 0;
+            if (reduced != null) {
+                for (int d = 0; d < reduced.length; d++) {
+                    dot += reduced[d] * centroid[d];
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    dot += weights[i] * centroid[columns[i]];
+                }
+                dot /= norm;
+            }
+            if (dot > bestSimilarity) {
+                bestSimilarity = dot;
+                best = c;
+            }
+        }
+        return new ClusterAssignment(best, bestSimilarity);
+    }
+
+    public long getTrainedAt() {
+        return trainedAt;
+    }
+
+    public int getNumDocuments() {
+        return numDocuments;
+    }
+
+    public double getMeanSimilarity() {
+        return meanSimilarity;
+    }
+
+    public int numFeatures() {
+        return terms.length;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public int numClusters() {
+        return centroids.length;
+    }
+
+    private final class FeatureCounter implements Tokenizer.TokenSink {
+
+        // cột -> số lần xuất hiện, columns giữ các cột đã gặp theo thứ tự
+        private final int[] counts;
+        private int[] columns = new int[64];
+        private int size;
+
+        private FeatureCounter(int numFeatures) {
+            this.counts = new int[numFeatures];
+        }
+
+        @Override
+        public void token(char[] buf, int len) {
+            int col = features.find(buf, 0, len);
+            if (col < 0) return;
+            if (counts[col]++ == 0) {
+                if (size == columns.length) {
+                    columns = Arrays.copyOf(columns, size * 2);
+                }
+                columns[size++] = col;
+            }
+        }
+    }
+}
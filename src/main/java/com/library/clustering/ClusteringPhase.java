@@ -0,0 +1,5 @@
+package com.library.clustering;
+
+public enum ClusteringPhase {
+    LOAD, VECTORIZE, REDUCE, ITERATE, EVALUATE, HIERARCHY, PERSIST
+}
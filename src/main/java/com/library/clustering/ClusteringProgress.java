@@ -0,0 +1,41 @@
+package com.library.clustering;
+
+import com.library.clustering.engine.IterationListener;
+import com.library.entity.ClusteringSweepResult;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Receives phase and iteration updates from a clustering run and tells it when to stop.
+ */
+public interface ClusteringProgress extends IterationListener {
+
+    ClusteringProgress NONE = new ClusteringProgress() {
+        @Override
+        public void phase(ClusteringPhase phase) {
+        }
+
+        @Override
+        public void iteration(int iteration, double inertia) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void phase(ClusteringPhase phase);
+
+    boolean isCancelled();
+
+    /** Called once for every k scored by a sweep, in increasing k. */
+    default void sweepPoint(ClusteringSweepResult point) {
+    }
+
+    default void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Clustering cancelled");
+        }
+    }
+}
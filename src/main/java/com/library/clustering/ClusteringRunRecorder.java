@@ -0,0 +1,166 @@
+package com.library.clustering;
+
+import com.library.clustering.engine.ClusteringResult;
+import com.library.clustering.job.ClusteringJobStatus;
+import com.library.clustering.reduction.Projection;
+import com.library.entity.ClusteringRun;
+import com.library.entity.ClusteringSweepResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Observes one clustering run: wraps the caller's {@link ClusteringProgress} to time phases
+ * and iterations, collects the run's figures and hands the summary to
+ * {@link ClusteringMetrics} when the run ends. Used by the clustering thread only.
+ * <p>
+ * Allocation is measured over all threads alive at both ends of the run (the caller and the
+ * clustering pool), so it is an estimate that ignores threads started or stopped in between.
+ */
+@Slf4j
+public class ClusteringRunRecorder implements ClusteringProgress {
+
+    private final ClusteringMetrics metrics;
+    private final ClusteringProgress delegate;
+    private final ClusteringRun run = new ClusteringRun();
+    private final long startNanos = System.nanoTime();
+    private final Map<Long, Long> allocatedAtStart;
+
+    private ClusteringPhase phase;
+    private long phaseStartNanos;
+    private long iterationStartNanos;
+
+    ClusteringRunRecorder(ClusteringMetrics metrics, int numClusters, ClusteringProgress delegate) {
+        this.metrics = metrics;
+        this.delegate = delegate;
+        this.allocatedAtStart = allocatedBytesByThread();
+        run.setStartedAt(Instant.now());
+        run.setNumClusters(numClusters);
+        run.setAllocatedBytes(-1);
+    }
+
+    @Override
+    public void phase(ClusteringPhase next) {
+        delegate.phase(next);
+        long now = System.nanoTime();
+        endPhase(now);
+        phase = next;
+        phaseStartNanos = now;
+        iterationStartNanos = now;
+    }
+
+    @Override
+    public void iteration(int iteration, double inertia) {
+        long now = System.nanoTime();
+        if (run.getEngine() != null) {
+            metrics.recordIteration(run.getEngine(), now - iterationStartNanos);
+        }
+        iterationStartNanos = now;
+        delegate.iteration(iteration, inertia);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return delegate.isCancelled();
+    }
+
+    @Override
+    public void sweepPoint(ClusteringSweepResult point) {
+        delegate.sweepPoint(point);
+    }
+
+    void numClusters(int numClusters) {
+        run.setNumClusters(numClusters);
+    }
+
+    void vectorized(int documents) {
+        run.setVectorizedDocuments(documents);
+    }
+
+    void matrix(SparseMatrix matrix, long skipped) {
+        run.setClusteredDocuments(matrix.numRows());
+        run.setFeatures(matrix.numCols());
+        run.setSkippedDocuments(skipped);
+    }
+
+    void reduction(Projection projection) {
+        run.setReduction(projection.getMethod());
+        run.setDimensions(projection.getDimensions());
+    }
+
+    void engine(String engine) {
+        run.setEngine(engine);
+    }
+
+    void result(ClusteringResult result) {
+        run.setIterations(result.getIterations());
+        run.setConverged(result.isConverged());
+        run.setInertia(result.getInertia());
+    }
+
+    void quality(ClusterQuality quality) {
+        run.setSilhouette(quality.getSilhouette());
+        run.setDaviesBouldin(quality.getDaviesBouldin());
+    }
+
+    /** Ends the run, records its meters and saves the summary. */
+    void finish(ClusteringJobStatus status, String error) {
+        long now = System.nanoTime();
+        endPhase(now);
+        phase = null;
+        run.setStatus(status);
+        run.setError(error);
+        run.setFinishedAt(Instant.now());
+        run.setTotalMillis((now - startNanos) / 1_000_000);
+        if (allocatedAtStart != null) {
+            long total = 0;
+            for (Map.Entry<Long, Long> entry : allocatedBytesByThread().entrySet()) {
+                Long before = allocatedAtStart.get(entry.getKey());
+                if (before != null) total += entry.getValue() - before;
+            }
+            run.setAllocatedBytes(total);
+        }
+        metrics.recordRun(run);
+        log.info("Clustering run {} in {} ms (load={}, vectorize={}, reduce={}, iterate={}, evaluate={}, hierarchy={}, "
+                        + "persist={}), {} documents, {} iterations, allocated {} MB",
+                status.name().toLowerCase(), run.getTotalMillis(), run.getLoadMillis(), run.getVectorizeMillis(),
+                run.getReduceMillis(), run.getIterateMillis(), run.getEvaluateMillis(), run.getHierarchyMillis(),
+                run.getPersistMillis(),
+                run.getClusteredDocuments(), run.getIterations(), run.getAllocatedBytes() >> 20);
+    }
+
+    private void endPhase(long now) {
+        if (phase == null) return;
+        long nanos = now - phaseStartNanos;
+        metrics.recordPhase(phase, nanos);
+        long millis = nanos / 1_000_000;
+        switch (phase) {
+            case LOAD -> run.setLoadMillis(millis);
+            case VECTORIZE -> run.setVectorizeMillis(millis);
+            case REDUCE -> run.setReduceMillis(millis);
+            case ITERATE -> run.setIterateMillis(millis);
+            case EVALUATE -> run.setEvaluateMillis(millis);
+            case HIERARCHY -> run.setHierarchyMillis(millis);
+            case PERSIST -> run.setPersistMillis(millis);
+        }
+    }
+
+    // null nếu JVM không hỗ trợ đo bộ nhớ cấp phát theo luồng
+    private static Map<Long, Long> allocatedBytesByThread() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean threads) || !threads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> result = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) result.put(ids[i], bytes[i]);
+        }
+        return result;
+    }
+}
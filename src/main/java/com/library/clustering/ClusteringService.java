@@ -1,163 +1,412 @@
 package com.library.clustering;
 
-import com.library.entity.Document;
-import com.library.repository.DocumentRepository;
+import com.library.clustering.engine.ClusteringEngine;
+import com.library.clustering.engine.ClusteringResult;
+import com.library.clustering.engine.HamerlyKMeans;
+import com.library.clustering.engine.MiniBatchKMeans;
+import com.library.clustering.hierarchy.BisectingKMeans;
+import com.library.clustering.hierarchy.TopicNode;
+import com.library.clustering.hierarchy.TopicTree;
+import com.library.clustering.job.ClusteringJobStatus;
+import com.library.clustering.reduction.DimensionReducer;
+import com.library.clustering.reduction.Projection;
+import com.library.clustering.reduction.RandomProjection;
+import com.library.clustering.reduction.RandomizedSvd;
+import com.library.config.ClusteringProperties;
+import com.library.entity.ClusterNode;
+import com.library.entity.ClusteringSweepResult;
+import com.library.event.ClusteringCompletedEvent;
+import com.library.repository.ClusterLabelWriter;
+import com.library.repository.ClusterNodeRepository;
+import com.library.repository.ClusteringSweepResultRepository;
+import com.library.text.Analyzer;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import weka.clusterers.SimpleKMeans;
-import weka.core.*;
-import weka.core.stopwords.Rainbow;
-import weka.filters.Filter;
-import weka.filters.unsupervised.attribute.StringToWordVector;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class ClusteringService {
 
-    private final DocumentRepository documentRepository;
+    private final ClusterLabelWriter clusterLabelWriter;
+    private final ClusteringProperties properties;
+    private final TermVectorStore termVectorStore;
+    private final ForkJoinPool clusteringPool;
+    private final ClusterQualityEvaluator qualityEvaluator;
+    private final SimilarityIndex similarityIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClusteringMetrics clusteringMetrics;
+    private final ClusterAssigner clusterAssigner;
+    private final Analyzer analyzer;
+    private final ClusteringSweepResultRepository sweepResultRepository;
+    private final ClusterNodeRepository clusterNodeRepository;
 
+    @Transactional
     public void performClustering(int numClusters) throws Exception {
-        // B1: Lấy toàn bộ tài liệu
-        List<Document> allDocuments = documentRepository.findAll();
-
-        // B2: Lọc tài liệu hợp lệ để xử lý (tối đa 1000)
-        List<Document> documents = allDocuments.stream()
-                .filter(doc -> doc != null && doc.getContent() != null && !doc.getContent().trim().isEmpty())
-                .limit(1000)
-                .collect(Collectors.toList());
-
-        // B3: Gán cluster = -1 cho các tài liệu không được xử lý
-        List<Document> unprocessedDocuments = allDocuments.stream()
-                .filter(doc -> !documents.contains(doc))
-                .collect(Collectors.toList());
-
-        for (Document doc : unprocessedDocuments) {
-            doc.setCluster(-1);
-        }
-
-        if (documents.isEmpty()) return;
-
-        // B4: Chuyển dữ liệu sang Weka Instances
-        Instances data = convertToWekaInstances(documents);
-        if (data == null || data.numInstances() == 0) return;
-
-        // B5: Vector hóa văn bản
-        StringToWordVector filter = new StringToWordVector();
-        filter.setLowerCaseTokens(true);
-        filter.setStopwordsHandler(new Rainbow());
-        filter.setTFTransform(true);
-        filter.setIDFTransform(true);
-        filter.setWordsToKeep(1000);
-        filter.setOutputWordCounts(true);
-        filter.setInputFormat(data);
-
-        Instances filteredData = Filter.useFilter(data, filter);
-
-        // B6: Phân cụm bằng KMeans
-        SimpleKMeans kmeans = new SimpleKMeans();
-        kmeans.setNumClusters(numClusters);
-        kmeans.buildClusterer(filteredData);
-
-        // B7: Gán nhãn cluster
-        int[] labels = new int[filteredData.numInstances()];
-        for (int i = 0; i < filteredData.numInstances(); i++) {
-            try {
-                labels[i] = kmeans.clusterInstance(filteredData.instance(i));
-            } catch (Exception e) {
-                labels[i] = -1;
-            }
+        performClustering(numClusters, ClusteringProgress.NONE);
+    }
+
+    /**
+     * Runs a full clustering pass, reporting phases and iterations to {@code progress}.
+     * Cancellation surfaces as a {@link CancellationException}, which rolls back the label
+     * updates. Every run, whatever its outcome, is timed and summarised by {@link ClusteringMetrics}.
+     */
+    @Transactional
+    public void performClustering(int numClusters, ClusteringProgress progress) throws Exception {
+        ClusteringRunRecorder run = clusteringMetrics.start(numClusters, progress);
+        record(run, () -> {
+            cluster(numClusters, run);
+            return numClusters;
+        });
+    }
+
+    /**
+     * Clusters with every k in {@code [minClusters, maxClusters]} on one shared matrix and keeps
+     * the k with the highest silhouette, sampled above {@code clustering.silhouette-sample-size}.
+     * Up to {@code clustering.sweep-parallelism} values of k run at the same time; the sweep
+     * stops once {@code clustering.sweep-patience} further k have not raised the best
+     * silhouette by {@code clustering.sweep-min-improvement}. Each k is reported to
+     * {@code progress} and saved as a {@link ClusteringSweepResult}, the elbow of the inertia
+     * curve is marked for reference. Returns the selected k.
+     *
+     * @throws IllegalArgumentException unless {@code 2 <= minClusters <= maxClusters}
+     */
+    @Transactional
+    public int performSweep(int minClusters, int maxClusters, ClusteringProgress progress) throws Exception {
+        checkSweepRange(minClusters, maxClusters);
+        ClusteringRunRecorder run = clusteringMetrics.start(minClusters, progress);
+        return record(run, () -> sweep(minClusters, maxClusters, run));
+    }
+
+    // Khoảng rỗng thì không có k nào được đánh giá và không chọn được kết quả
+    public static void checkSweepRange(int minClusters, int maxClusters) {
+        if (minClusters < 2 || minClusters > maxClusters) {
+            throw new IllegalArgumentException("Cluster range must satisfy 2 <= min <= max, got ["
+                    + minClusters + ", " + maxClusters + "]");
         }
+    }
 
-        for (int i = 0; i < documents.size(); i++) {
-            documents.get(i).setCluster(labels[i]);
+    private int record(ClusteringRunRecorder run, Callable<Integer> body) throws Exception {
+        try {
+            int numClusters = body.call();
+            run.finish(ClusteringJobStatus.COMPLETED, null);
+            return numClusters;
+        } catch (CancellationException e) {
+            run.finish(ClusteringJobStatus.CANCELLED, null);
+            throw e;
+        } catch (Exception e) {
+            run.finish(ClusteringJobStatus.FAILED, e.getMessage());
+            throw e;
         }
+    }
 
-        // B8: Lưu kết quả vào database
-        documentRepository.saveAll(documents);
-        documentRepository.saveAll(unprocessedDocuments);
+    private void cluster(int numClusters, ClusteringRunRecorder progress) throws Exception {
+        Vectors vectors = prepare(numClusters, progress);
+        if (vectors == null) return;
 
-        // B9: Log số lượng mỗi cluster
-        for (int c = 0; c < numClusters; c++) {
-            int clusterIndex = c;
-            long count = documents.stream().filter(doc -> doc.getCluster() == clusterIndex).count();
-            System.out.println("Cluster " + c + ": " + count + " documents");
+        // B4 - B7: Phân cụm KMeans (cosine) và gán nhãn cluster
+        progress.phase(ClusteringPhase.ITERATE);
+        ClusteringEngine engine = createEngine(vectors.matrix.numRows());
+        progress.engine(engine.getClass().getSimpleName());
+        long startTime = System.nanoTime();
+        ClusteringResult result = engine.cluster(vectors.data, numClusters, progress);
+        progress.result(result);
+        log.info("{}: {} iterations (converged={}), inertia={}, {} ms", engine.getClass().getSimpleName(),
+                result.getIterations(), result.isConverged(), String.format("%.4f", result.getInertia()),
+                (System.nanoTime() - startTime) / 1_000_000);
+
+        // B8: Đánh giá chất lượng phân cụm (silhouette, Davies-Bouldin, inertia)
+        progress.phase(ClusteringPhase.EVALUATE);
+        ClusterQuality quality = qualityEvaluator.evaluate(vectors.data, result.getLabels(), numClusters);
+        progress.quality(quality);
+        log.info("Cluster quality: {}", quality);
+
+        persist(numClusters, vectors, result, progress);
+    }
+
+    private int sweep(int minClusters, int maxClusters, ClusteringRunRecorder progress) throws Exception {
+        Vectors vectors = prepare(minClusters, progress);
+        if (vectors == null) return minClusters;
+
+        // B4 - B8: Phân cụm và đánh giá từng k trên cùng một ma trận, nhiều k chạy song song
+        progress.phase(ClusteringPhase.ITERATE);
+        progress.engine(createEngine(vectors.matrix.numRows()).getClass().getSimpleName());
+        String sweepId = UUID.randomUUID().toString();
+        int parallelism = Math.max(1, properties.getSweepParallelism());
+        // Luôn chạy ít nhất một đợt để có k được chọn, kể cả khi sweep-patience <= 0
+        int patience = Math.max(1, properties.getSweepPatience());
+        List<ClusteringSweepResult> report = new ArrayList<>();
+        Candidate best = null;
+        double plateau = Double.NEGATIVE_INFINITY;
+        int stale = 0;
+        for (int from = minClusters; from <= maxClusters && stale < patience; from += parallelism) {
+            List<ForkJoinTask<Candidate>> wave = new ArrayList<>();
+            for (int k = from; k <= Math.min(maxClusters, from + parallelism - 1); k++) {
+                int numClusters = k;
+                wave.add(clusteringPool.submit(() -> evaluate(vectors.data, numClusters, progress)));
+            }
+            for (ForkJoinTask<Candidate> task : wave) {
+                Candidate candidate = task.join();
+                ClusteringSweepResult point = candidate.toResult(sweepId);
+                report.add(sweepResultRepository.save(point));
+                progress.sweepPoint(point);
+                log.info("k={}: {}, {} ms", candidate.numClusters, candidate.quality, candidate.millis);
+
+                double silhouette = candidate.quality.getSilhouette();
+                if (best == null || silhouette > best.quality.getSilhouette()) {
+                    best = candidate;
+                }
+                // Chỉ tính là cải thiện khi vượt mức cũ đủ xa, nếu không coi như đã chững lại
+                if (silhouette > plateau + properties.getSweepMinImprovement()) {
+                    plateau = silhouette;
+                    stale = 0;
+                } else {
+                    stale++;
+                }
+            }
         }
 
-        long unclustered = documents.stream().filter(doc -> doc.getCluster() == -1).count()
-                + unprocessedDocuments.size();
-        System.out.println("Unclustered: " + unclustered + " documents");
+        // Đánh dấu k được chọn và điểm khuỷu của inertia trong báo cáo
+        int elbow = elbow(report);
+        for (ClusteringSweepResult point : report) {
+            point.setSelected(point.getNumClusters() == best.numClusters);
+            point.setElbow(point.getNumClusters() == elbow);
+            if (point.isSelected() || point.isElbow()) {
+                sweepResultRepository.save(point);
+            }
+        }
+        log.info("Sweep {}: selected k={} (silhouette {}), inertia elbow at k={}, {} of {} values tried",
+                sweepId, best.numClusters, String.format("%.4f", best.quality.getSilhouette()), elbow, report.size(),
+                maxClusters - minClusters + 1);
+
+        progress.numClusters(best.numClusters);
+        progress.result(best.result);
+        progress.quality(best.quality);
+        persist(best.numClusters, vectors, best.result, progress);
+        return best.numClusters;
+    }
 
-        // B10: Tính Silhouette Score
-        double silhouetteScore = calculateSilhouetteScore(filteredData, labels, kmeans, numClusters);
-        System.out.println("Silhouette Score: " + silhouetteScore);
+    private Candidate evaluate(SparseMatrix data, int numClusters, ClusteringProgress progress) {
+        long startTime = System.nanoTime();
+        ClusteringEngine engine = createEngine(data.numRows());
+        ClusteringResult result = engine.cluster(data, numClusters, (iteration, inertia) -> progress.checkCancelled());
+        ClusterQuality quality = qualityEvaluator.evaluate(data, result.getLabels(), numClusters);
+        return new Candidate(numClusters, result, quality, (System.nanoTime() - startTime) / 1_000_000);
     }
 
-    private Instances convertToWekaInstances(List<Document> documents) {
-        ArrayList<Attribute> attributes = new ArrayList<>();
-        attributes.add(new Attribute("content", (List<String>) null)); // text attribute
-        Instances data = new Instances("Documents", attributes, documents.size());
+    // B1 - B3: dùng chung cho một lần phân cụm và cho sweep; null nếu không còn tài liệu nào để phân cụm
+    private Vectors prepare(int numClusters, ClusteringRunRecorder progress) throws Exception {
+        // B1: Đồng bộ kho vector, chỉ tokenize các tài liệu chưa có trong kho
+        progress.phase(ClusteringPhase.LOAD);
+        int vectorized = termVectorStore.synchronize();
+        progress.vectorized(vectorized);
 
-        for (Document doc : documents) {
-            DenseInstance instance = new DenseInstance(1);
-            instance.setValue(attributes.get(0), doc.getContent());
-            data.add(instance);
+        // B2: Tính TF-IDF từ số đếm đã lưu
+        progress.phase(ClusteringPhase.VECTORIZE);
+        SparseMatrix matrix = termVectorStore.buildMatrix(
+                properties.getMaxFeatures(),
+                properties.getMinDocumentFrequency(),
+                properties.getMaxDocumentFrequencyRatio());
+        long skipped = termVectorStore.size() - matrix.numRows();
+        termVectorStore.flush();
+        progress.matrix(matrix, skipped);
+
+        if (matrix.numRows() == 0 || matrix.numCols() == 0) {
+            clusterLabelWriter.writeLabels(new long[0], new int[0]);
+            clusterLabelWriter.writePaths(new long[0], new String[0]);
+            clusterLabelWriter.copyToDuplicates(0);
+            clusterNodeRepository.deleteAllInBatch();
+            similarityIndex.rebuild(matrix, new int[0]);
+            eventPublisher.publishEvent(new ClusteringCompletedEvent(numClusters, 0));
+            return null;
         }
 
-        return data;
+        // B3: Giảm chiều (tùy chọn), KMeans và đánh giá chạy trên vector dense ngắn
+        SparseMatrix data = matrix;
+        Projection projection = null;
+        DimensionReducer reducer = createReducer(matrix.numCols());
+        if (reducer != null) {
+            progress.phase(ClusteringPhase.REDUCE);
+            projection = reducer.fit(matrix);
+            data = projection.project(matrix, clusteringPool);
+            progress.reduction(projection);
+        }
+        return new Vectors(matrix, data, projection, skipped);
     }
 
-    private double calculateSilhouetteScore(Instances data, int[] labels, SimpleKMeans kmeans, int numClusters) {
-        int n = data.numInstances();
-        double[] a = new double[n];
-        double[] b = new double[n];
-        int validCount = 0;
-        double totalSilhouette = 0.0;
+    private void persist(int numClusters, Vectors vectors, ClusteringResult result, ClusteringRunRecorder progress)
+            throws Exception {
+        SparseMatrix matrix = vectors.matrix;
+        int[] labels = result.getLabels();
+
+        // B9: Dựng cây chủ đề dưới mỗi cụm bằng bisecting KMeans (tùy chọn)
+        String[] paths = new String[labels.length];
+        List<TopicNode> topics = List.of();
+        if (properties.getHierarchyDepth() > 0) {
+            progress.phase(ClusteringPhase.HIERARCHY);
+            BisectingKMeans bisecting = new BisectingKMeans(clusteringPool, properties.getHierarchyDepth(),
+                    properties.getHierarchyMinNodeSize(), properties.getHierarchyTrials(),
+                    properties.getMaxIterations(), properties.getHierarchyTopTerms(), properties.getSeed());
+            TopicTree tree = bisecting.build(vectors.data, matrix, labels, numClusters, progress);
+            paths = tree.getPaths();
+            topics = tree.getNodes();
+        }
 
-        for (int i = 0; i < n; i++) {
-            if (labels[i] == -1) continue; // Bỏ qua bản ghi lỗi
+        // B10: Lưu kết quả vào database, chỉ cập nhật cột cluster và cluster_path theo lô JDBC
+        progress.phase(ClusteringPhase.PERSIST);
+        int labelled = clusterLabelWriter.writeLabels(matrix.ids(), labels);
+        clusterLabelWriter.writePaths(matrix.ids(), paths);
+        // Bản gần trùng lặp không nằm trong ma trận, nhận cụm của bản gốc
+        clusterLabelWriter.copyToDuplicates(0);
+        saveTopics(topics);
+        similarityIndex.rebuild(matrix, labels);
+        // Lưu mô hình để gán cụm cho tài liệu được lưu sau lần chạy này
+        clusterAssigner.update(ClusteringModel.train(matrix, vectors.data, vectors.projection, result, analyzer));
+        eventPublisher.publishEvent(new ClusteringCompletedEvent(numClusters, labelled));
 
-            int clusterI = labels[i];
-            double sumA = 0.0;
-            int countA = 0;
+        // B11: Log số lượng mỗi cluster (DEBUG, số liệu của lần chạy đã có trong metrics)
+        int[] counts = new int[numClusters];
+        for (int label : labels) {
+            if (label >= 0) counts[label]++;
+        }
+        long unclustered = vectors.skipped;
+        for (int c = 0; c < numClusters; c++) {
+            log.debug("Cluster {}: {} documents", c, counts[c]);
+            unclustered -= counts[c];
+        }
+        unclustered += labels.length;
+        log.debug("Unclustered: {} documents", unclustered);
+    }
 
-            for (int j = 0; j < n; j++) {
-                if (i != j && labels[j] == clusterI) {
-                    double dist = kmeans.getDistanceFunction().distance(data.instance(i), data.instance(j));
-                    sumA += dist;
-                    countA++;
-                }
-            }
-            a[i] = countA > 0 ? sumA / countA : 0.0;
-
-            double minB = Double.MAX_VALUE;
-            for (int c = 0; c < numClusters; c++) {
-                if (c != clusterI) {
-                    double sumB = 0.0;
-                    int countB = 0;
-                    for (int j = 0; j < n; j++) {
-                        if (labels[j] == c) {
-                            double dist = kmeans.getDistanceFunction().distance(data.instance(i), data.instance(j));
-                            sumB += dist;
-                            countB++;
-                        }
-                    }
-                    if (countB > 0) {
-                        double avgB = sumB / countB;
-                        minB = Math.min(minB, avgB);
-                    }
-                }
+    private void saveTopics(List<TopicNode> topics) {
+        clusterNodeRepository.deleteAllInBatch();
+        List<ClusterNode> nodes = new ArrayList<>(topics.size());
+        for (TopicNode topic : topics) {
+            ClusterNode node = new ClusterNode();
+            node.setPath(topic.getPath());
+            node.setCluster(topic.getCluster());
+            node.setDepth(topic.getDepth());
+            node.setSize(topic.getSize());
+            node.setCohesion(topic.getCohesion());
+            node.setLeaf(topic.isLeaf());
+            node.setTopTerms(String.join(",", topic.getTopTerms()));
+            nodes.add(node);
+        }
+        clusterNodeRepository.saveAll(nodes);
+    }
+
+    /**
+     * k of the point of the inertia curve farthest below the chord from its first to its last
+     * point, both axes scaled to [0, 1].
+     */
+    private static int elbow(List<ClusteringSweepResult> report) {
+        List<ClusteringSweepResult> points = new ArrayList<>(report);
+        points.sort(Comparator.comparingInt(ClusteringSweepResult::getNumClusters));
+        ClusteringSweepResult first = points.get(0);
+        ClusteringSweepResult last = points.get(points.size() - 1);
+        double kRange = Math.max(1, last.getNumClusters() - first.getNumClusters());
+        double inertiaRange = first.getInertia() - last.getInertia();
+        if (points.size() < 3 || inertiaRange <= 0) {
+            return first.getNumClusters();
+        }
+        int elbow = first.getNumClusters();
+        double farthest = 0;
+        for (ClusteringSweepResult point : points) {
+            double x = (point.getNumClusters() - first.getNumClusters()) / kRange;
+            double y = (first.getInertia() - point.getInertia()) / inertiaRange;
+            // Khoảng cách tới đường chéo y = x
+            if (y - x > farthest) {
+                farthest = y - x;
+                elbow = point.getNumClusters();
             }
-            b[i] = minB != Double.MAX_VALUE ? minB : 0.0;
+        }
+        return elbow;
+    }
 
-            double s = (b[i] - a[i]) / Math.max(a[i], b[i]);
-            totalSilhouette += s;
-            validCount++;
+    private DimensionReducer createReducer(int numFeatures) {
+        int dimensions = properties.getReductionDimensions();
+        // Không giảm chiều nếu số đặc trưng đã nhỏ hơn số chiều yêu cầu
+        if (dimensions <= 0 || dimensions >= numFeatures) {
+            return null;
         }
+        return switch (properties.getReduction()) {
+            case RANDOM_PROJECTION -> new RandomProjection(dimensions, properties.getSeed());
+            case SVD -> new RandomizedSvd(clusteringPool, dimensions, properties.getSvdOversampling(),
+                    properties.getSvdPowerIterations(), properties.getSeed());
+            case NONE -> null;
+        };
+    }
 
-        return validCount > 0 ? totalSilhouette / validCount : 0.0;
+    private ClusteringEngine createEngine(int numDocuments) {
+        ClusteringProperties.Engine type = properties.getEngine();
+        if (type == ClusteringProperties.Engine.AUTO) {
+            type = numDocuments > properties.getMiniBatchThreshold()
+                    ? ClusteringProperties.Engine.MINI_BATCH
+                    : ClusteringProperties.Engine.HAMERLY;
+        }
+        if (type == ClusteringProperties.Engine.MINI_BATCH) {
+            return new MiniBatchKMeans(clusteringPool, properties.getMaxIterations(),
+                    properties.getTolerance(), properties.getSeed(), properties.getMiniBatchSize());
+        }
+        return new HamerlyKMeans(clusteringPool, properties.getMaxIterations(),
+                properties.getTolerance(), properties.getSeed());
+    }
+
+    private static final class Vectors {
+        private final SparseMatrix matrix;
+        // Ma trận đưa vào KMeans: chính matrix hoặc ảnh của nó qua projection
+        private final SparseMatrix data;
+        private final Projection projection;
+        private final long skipped;
+
+        private Vectors(SparseMatrix matrix, SparseMatrix data, Projection projection, long skipped) {
+            this.matrix = matrix;
+            this.data = data;
+            this.projection = projection;
+            this.skipped = skipped;
+        }
+    }
+
+    private static final class Candidate {
+        private final int numClusters;
+        private final ClusteringResult result;
+        private final ClusterQuality quality;
+        private final long millis;
+
+        private Candidate(int numClusters, ClusteringResult result, ClusterQuality quality, long millis) {
+            this.numClusters = numClusters;
+            this.result = result;
+            this.quality = quality;
+            this.millis = millis;
+        }
+
+        private ClusteringSweepResult toResult(String sweepId) {
+            ClusteringSweepResult point = new ClusteringSweepResult();
+            point.setSweepId(sweepId);
+            point.setCreatedAt(Instant.now());
+            point.setNumClusters(numClusters);
+            point.setSilhouette(quality.getSilhouette());
+            point.setSilhouetteLower(quality.getSilhouetteLower());
+            point.setSilhouetteUpper(quality.getSilhouetteUpper());
+            point.setDaviesBouldin(quality.getDaviesBouldin());
+            point.setInertia(quality.getInertia());
+            point.setIterations(result.getIterations());
+            point.setConverged(result.isConverged());
+            point.setMillis(millis);
+            return point;
+        }
     }
 }
@@ -0,0 +1,342 @@
+package com.library.clustering;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * MinHash locality-sensitive hashing over the term sets of documents, restricted to a feature
+ * set chosen by the caller and identified by {@link #featureKey()}. Each document gets a
+ * signature of {@code bands * rowsPerBand} min-hashes; two documents become candidates of each
+ * other when all rows of at least one band agree, which happens with probability
+ * {@code 1 - (1 - J^r)^b} for Jaccard similarity {@code J}. More bands raise recall at the
+ * cost of more candidates; more rows per band make buckets more selective.
+ * <p>
+ * Signatures are kept in a memory-mapped file of fixed-size records ({@code id, hashes}), so
+ * a restart only re-reads the file and rebuilds the band tables. The file is mapped in chunks of
+ * {@code CHUNK_BYTES} holding whole records and offsets are computed as {@code long}, so it is
+ * not limited to the 2 GB of a single mapping. Updates and deletes take the old record out of
+ * its buckets, mark it deleted and append a new one; deleted records are dropped when the file
+ * is compacted on open. Not thread-safe on its own, callers synchronize on the instance.
+ */
+public class MinHashIndex implements Closeable {
+
+    private static final int MAGIC = 0x4D484931; // "MHI1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final long DELETED = Long.MIN_VALUE;
+    // Mỗi chunk được map riêng và chứa trọn một số bản ghi; file thưa nên chunk chưa dùng không chiếm đĩa
+    private static final int CHUNK_BYTES = 32 << 20;
+
+    private final Path path;
+    private final int bands;
+    private final int rowsPerBand;
+    private final int numHashes;
+    private final long seed;
+    private final long[] hashSeeds;
+    private final int recordSize;
+    private final int recordsPerChunk;
+
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private int capacity;
+    private int count;
+    private long featureKey;
+
+    // Đánh dấu slot đã gặp trong một truy vấn, tránh dùng HashSet
+    private int[] seenStamps = new int[0];
+    private int stamp;
+
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Map<Long, int[]> buckets = new HashMap<>();
+
+    public MinHashIndex(Path path, int bands, int rowsPerBand, long seed) throws IOException {
+        this.path = path;
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.numHashes = bands * rowsPerBand;
+        this.seed = seed;
+        this.recordSize = Long.BYTES + numHashes * Integer.BYTES;
+        this.recordsPerChunk = Math.max(1, CHUNK_BYTES / recordSize);
+
+        Random random = new Random(seed);
+        hashSeeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+        open();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean contains(long id) {
+        return slots.containsKey(id);
+    }
+
+    public Set<Long> ids() {
+        return slots.keySet();
+    }
+
+    /** Fingerprint of the term set the stored signatures were computed over. */
+    public long featureKey() {
+        return featureKey;
+    }
+
+    /** Drops every signature, e.g. because the feature set changed. */
+    public void clear(long newFeatureKey) {
+        slots.clear();
+        buckets.clear();
+        count = 0;
+        featureKey = newFeatureKey;
+        header.putInt(24, 0);
+        header.putLong(32, newFeatureKey);
+    }
+
+    /** Computes the signature of {@code terms} and stores it for {@code id}, replacing any previous one. */
+    public void put(long id, Collection<String> terms) throws IOException {
+        remove(id);
+        if (terms.isEmpty()) return;
+        int[] signature = signature(terms);
+        if (count == capacity) {
+            map(count + 1);
+        }
+        int slot = count++;
+        MappedByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        chunk.putLong(offset, id);
+        for (int i = 0; i < numHashes; i++) {
+            chunk.putInt(offset + Long.BYTES + i * Integer.BYTES, signature[i]);
+        }
+        header.putInt(24, count);
+        index(id, slot, signature);
+    }
+
+    public void remove(long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) return;
+        int[] signature = read(slot);
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            int[] bucket = buckets.get(key);
+            if (bucket == null) continue;
+            // Bỏ slot khỏi bucket bằng cách đưa phần tử cuối vào chỗ của nó
+            for (int i = 1; i <= bucket[0]; i++) {
+                if (bucket[i] == slot) {
+                    bucket[i] = bucket[bucket[0]--];
+                    break;
+                }
+            }
+            if (bucket[0] == 0) buckets.remove(key);
+        }
+        chunk(slot).putLong(offset(slot), DELETED);
+    }
+
+    /**
+     * Ids sharing at least one band bucket with {@code id}, best estimated Jaccard first, at
+     * most {@code limit} of them. Empty if {@code id} is not indexed.
+     */
+    public long[] candidates(long id, int limit) {
+        Integer self = slots.get(id);
+        if (self == null) return new long[0];
+        int[] signature = read(self);
+
+        if (seenStamps.length < count) {
+            seenStamps = new int[capacity];
+            stamp = 0;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamps, 0);
+            stamp = 1;
+        }
+        seenStamps[self] = stamp;
+
+        int[] candidateSlots = new int[16];
+        int found = 0;
+        for (int band = 0; band < bands; band++) {
+            int[] bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) continue;
+            for (int i = 1; i <= bucket[0]; i++) {
+                int slot = bucket[i];
+                if (seenStamps[slot] == stamp) continue;
+                seenStamps[slot] = stamp;
+                if (found == candidateSlots.length) {
+                    candidateSlots = Arrays.copyOf(candidateSlots, found * 2);
+                }
+                candidateSlots[found++] = slot;
+            }
+        }
+
+        // Sắp xếp theo số min-hash trùng nhau (ước lượng Jaccard)
+        long[] ranked = new long[found];
+        for (int i = 0; i < found; i++) {
+            int slot = candidateSlots[i];
+            MappedByteBuffer chunk = chunk(slot);
+            int offset = offset(slot) + Long.BYTES;
+            int matches = 0;
+            for (int h = 0; h < numHashes; h++) {
+                if (chunk.getInt(offset + h * Integer.BYTES) == signature[h]) matches++;
+            }
+            // Điểm ở 32 bit cao, slot ở 32 bit thấp để sắp xếp trên mảng long
+            ranked[i] = ((long) (numHashes - matches) << 32) | slot;
+        }
+        Arrays.sort(ranked);
+        long[] ids = new long[Math.min(limit, found)];
+        for (int i = 0; i < ids.length; i++) {
+            int slot = (int) ranked[i];
+            ids[i] = chunk(slot).getLong(offset(slot));
+        }
+        return ids;
+    }
+
+    public void force() {
+        header.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        force();
+        channel.close();
+        channel = null;
+    }
+
+    int[] signature(Collection<String> terms) {
+        int[] signature = new int[numHashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String term : terms) {
+            long x = term.hashCode();
+            for (int i = 0; i < numHashes; i++) {
+                int h = (int) (mix(x ^ hashSeeds[i]) >>> 33);
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    private void open() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean compatible = false;
+        if (channel.size() >= HEADER_SIZE) {
+            MappedByteBuffer existing = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            compatible = existing.getInt(0) == MAGIC && existing.getInt(4) == VERSION
+                    && existing.getInt(8) == numHashes && existing.getInt(12) == rowsPerBand
+                    && existing.getLong(16) == seed;
+            count = compatible ? existing.getInt(24) : 0;
+            featureKey = compatible ? existing.getLong(32) : 0L;
+        }
+        if (!compatible) {
+            // File mới hoặc tham số đã đổi: bắt đầu lại từ đầu
+            channel.truncate(0);
+            count = 0;
+            featureKey = 0L;
+        }
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        map(Math.max(1, count));
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, numHashes);
+        header.putInt(12, rowsPerBand);
+        header.putLong(16, seed);
+        header.putInt(24, count);
+        header.putLong(32, featureKey);
+
+        // Nén lại các bản ghi còn sống và dựng lại bảng band
+        int live = 0;
+        for (int slot = 0; slot < count; slot++) {
+            long id = chunk(slot).getLong(offset(slot));
+            if (id == DELETED) continue;
+            if (live != slot) {
+                MappedByteBuffer from = chunk(slot);
+                MappedByteBuffer to = chunk(live);
+                int fromOffset = offset(slot);
+                int toOffset = offset(live);
+                for (int b = 0; b < recordSize; b++) {
+                    to.put(toOffset + b, from.get(fromOffset + b));
+                }
+            }
+            index(id, live, read(live));
+            live++;
+        }
+        count = live;
+        header.putInt(24, count);
+    }
+
+    // Map thêm chunk cho đến khi chứa được minCapacity bản ghi
+    private void map(int minCapacity) throws IOException {
+        while (capacity < minCapacity) {
+            long position = HEADER_SIZE + (long) chunks.size() * recordsPerChunk * recordSize;
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) recordsPerChunk * recordSize));
+            capacity = (int) Math.min(Integer.MAX_VALUE, (long) chunks.size() * recordsPerChunk);
+        }
+    }
+
+    private MappedByteBuffer chunk(int slot) {
+        return chunks.get(slot / recordsPerChunk);
+    }
+
+    // Vị trí của bản ghi trong chunk, luôn nhỏ hơn CHUNK_BYTES
+    private int offset(int slot) {
+        return (slot % recordsPerChunk) * recordSize;
+    }
+
+    private int[] read(int slot) {
+        MappedByteBuffer chunk = chunk(slot);
+        int offset = offset(slot) + Long.BYTES;
+        int[] signature = new int[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            signature[i] = chunk.getInt(offset + i * Integer.BYTES);
+        }
+        return signature;
+    }
+
+    private void index(long id, int slot, int[] signature) {
+        slots.put(id, slot);
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            int[] bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new int[4];
+            } else if (bucket[0] + 1 == bucket.length) {
+                bucket = Arrays.copyOf(bucket, bucket.length * 2);
+            }
+            bucket[++bucket[0]] = slot;
+            buckets.put(key, bucket);
+        }
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int r = 0, i = band * rowsPerBand; r < rowsPerBand; r++, i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return mix(key);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.clustering;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * How well the current clustering model still fits the documents assigned to it since it
+ * was trained. {@code drift} is the relative drop of the mean cosine of those documents to
+ * their centroid compared to the training documents, 0 while no document has been assigned.
+ */
+@Getter
+@AllArgsConstructor
+public class ModelDrift {
+
+    private final Instant trainedAt;
+
+    private final int trainedDocuments;
+
+    private final int numClusters;
+
+    private final double trainingSimilarity;
+
+    private final long assignedDocuments;
+
+    // Tài liệu không chứa term nào của mô hình, cluster = -1
+    private final long unassignedDocuments;
+
+    private final double meanSimilarity;
+
+    private final double drift;
+
+    private final boolean retrainRecommended;
+}
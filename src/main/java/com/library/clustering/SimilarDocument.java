@@ -0,0 +1,14 @@
+package com.library.clustering;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SimilarDocument {
+
+    private final long documentId;
+
+    // Cosine giữa hai vector TF-IDF đã chuẩn hóa
+    private final float score;
+}
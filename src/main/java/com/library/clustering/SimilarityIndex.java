@@ -0,0 +1,410 @@
+package com.library.clustering;
+
+import com.library.config.ClusteringProperties;
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentSavedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact cosine top-k search over the TF-IDF matrix of the last clustering run. The matrix is
+ * transposed into an inverted index (column → rows, weights), so a query only touches the
+ * postings of its own terms; scores are accumulated into a dense array and the best
+ * {@code clustering.similar-documents} rows are kept in a bounded min-heap. Ranked lists are
+ * cached per document and cluster filter.
+ * <p>
+ * Above {@code clustering.lsh-threshold} documents (or always with
+ * {@code clustering.similarity-search=lsh}) the postings scan is replaced by the candidates of
+ * a {@link MinHashIndex}, re-ranked by exact cosine.
+ * <p>
+ * Documents saved since the last run are queried with their current vector from the
+ * {@link TermVectorStore}; they only become candidates after the next run. Deleted documents
+ * are filtered out immediately.
+ */
+@Component
+@RequiredArgsConstructor
+public class SimilarityIndex {
+
+    private final TermVectorStore termVectorStore;
+    private final ClusteringProperties properties;
+    private final MinHashIndex minHashIndex;
+
+    private volatile Snapshot snapshot;
+    private volatile Set<String> minHashFeatures;
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+    private final Map<CacheKey, List<SimilarDocument>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, List<SimilarDocument>> eldest) {
+            return size() > properties.getSimilarityCacheSize();
+        }
+    };
+
+    /** Replaces the index with the rows and labels of a new clustering run. */
+    public void rebuild(SparseMatrix matrix, int[] labels) throws IOException {
+        if (properties.getSimilaritySearch() != ClusteringProperties.SimilaritySearch.EXACT) {
+            synchronizeMinHash(matrix);
+        }
+        Snapshot next = new Snapshot(matrix, labels);
+        synchronized (cache) {
+            snapshot = next;
+            stale.clear();
+            removed.clear();
+            cache.clear();
+        }
+    }
+
+    /**
+     * Documents most similar to {@code documentId} in descending score order, restricted to
+     * {@code cluster} when it is not {@code null}. Returns an empty list when neither the index
+     * nor the vector store knows the document.
+     */
+    public List<SimilarDocument> findSimilar(long documentId, Integer cluster) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        CacheKey key = new CacheKey(documentId, cluster);
+        synchronized (cache) {
+            List<SimilarDocument> cached = cache.get(key);
+            if (cached != null) return cached;
+        }
+
+        List<SimilarDocument> result = search(current, documentId, cluster);
+        synchronized (cache) {
+            // Không ghi đè nếu index đã được xây lại trong lúc tìm kiếm
+            if (snapshot == current) {
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onDocumentSaved(DocumentSavedEvent event) throws IOException {
+        if (properties.getSimilaritySearch() != ClusteringProperties.SimilaritySearch.EXACT) {
+            synchronized (minHashIndex) {
+                putMinHash(event.getDocumentId());
+            }
+        }
+        synchronized (cache) {
+            stale.add(event.getDocumentId());
+            cache.clear();
+        }
+    }
+
+    @EventListener
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        synchronized (minHashIndex) {
+            minHashIndex.remove(event.getDocumentId());
+        }
+        synchronized (cache) {
+            removed.add(event.getDocumentId());
+            cache.clear();
+        }
+    }
+
+    private List<SimilarDocument> search(Snapshot index, long documentId, Integer cluster) {
+        int self = Arrays.binarySearch(index.matrix.ids(), documentId);
+        int[] queryColumns;
+        float[] queryWeights;
+        if (self >= 0 && !stale.contains(documentId)) {
+            int start = index.matrix.rowStart(self);
+            int end = index.matrix.rowEnd(self);
+            queryColumns = Arrays.copyOfRange(index.matrix.indices(), start, end);
+            queryWeights = Arrays.copyOfRange(index.matrix.values(), start, end);
+        } else {
+            QueryVector query = new QueryVector(index);
+            if (!termVectorStore.visit(documentId, query::add)) {
+                return Collections.emptyList();
+            }
+            queryColumns = Arrays.copyOf(query.columns, query.size);
+            queryWeights = Arrays.copyOf(query.weights, query.size);
+            normalize(queryWeights);
+        }
+        if (queryColumns.length == 0) {
+            return Collections.emptyList();
+        }
+
+        TopK top = new TopK(properties.getSimilarDocuments());
+        boolean filtered = cluster != null;
+        int wanted = filtered ? cluster : 0;
+        if (useMinHash(index)) {
+            // B1': Ứng viên từ MinHash LSH, xếp hạng lại bằng cosine chính xác
+            long[] candidates;
+            synchronized (minHashIndex) {
+                candidates = minHashIndex.candidates(documentId, properties.getLshCandidates());
+            }
+            float[] dense = new float[index.matrix.numCols()];
+            for (int q = 0; q < queryColumns.length; q++) {
+                dense[queryColumns[q]] = queryWeights[q];
+            }
+            for (long candidate : candidates) {
+                int row = Arrays.binarySearch(index.matrix.ids(), candidate);
+                if (row < 0 || row == self) continue;
+                if (filtered && index.labels[row] != wanted) continue;
+                if (!removed.isEmpty() && removed.contains(candidate)) continue;
+                float score = (float) index.matrix.dot(row, dense);
+                if (score > 0f) top.offer(row, score);
+            }
+        } else {
+            // B1: Cộng dồn tích vô hướng qua danh sách posting của từng từ trong truy vấn
+            float[] scores = new float[index.matrix.numRows()];
+            for (int q = 0; q < queryColumns.length; q++) {
+                int col = queryColumns[q];
+                float weight = queryWeights[q];
+                for (int p = index.columnStart[col], end = index.columnStart[col + 1]; p < end; p++) {
+                    scores[index.postingRows[p]] += weight * index.postingWeights[p];
+                }
+            }
+
+            // B2: Giữ top-k bằng min-heap có kích thước cố định
+            for (int row = 0; row < scores.length; row++) {
+                float score = scores[row];
+                if (score <= 0f || row == self) continue;
+                if (filtered && index.labels[row] != wanted) continue;
+                if (!top.accepts(score)) continue;
+                if (!removed.isEmpty() && removed.contains(index.matrix.id(row))) continue;
+                top.offer(row, score);
+            }
+        }
+
+        // B3: Lấy lần lượt phần tử nhỏ nhất ra khỏi heap để có thứ tự giảm dần
+        SimilarDocument[] ranked = new SimilarDocument[top.size];
+        for (int i = top.size - 1; i >= 0; i--) {
+            ranked[i] = new SimilarDocument(index.matrix.id(top.rows[0]), top.scores[0]);
+            top.pollMin();
+        }
+        return Collections.unmodifiableList(Arrays.asList(ranked));
+    }
+
+    private boolean useMinHash(Snapshot index) {
+        ClusteringProperties.SimilaritySearch mode = properties.getSimilaritySearch();
+        return mode == ClusteringProperties.SimilaritySearch.LSH
+                || mode == ClusteringProperties.SimilaritySearch.AUTO && index.matrix.numRows() > properties.getLshThreshold();
+    }
+
+    /**
+     * Brings the MinHash index in line with {@code matrix}: signatures are restricted to the
+     * matrix's feature terms, so a changed feature set re-signs every row; otherwise only new
+     * rows are added and ids that left the matrix dropped.
+     */
+    private void synchronizeMinHash(SparseMatrix matrix) throws IOException {
+        Set<String> features = new HashSet<>(matrix.numCols() * 2);
+        long featureKey = 0L;
+        for (int col = 0; col < matrix.numCols(); col++) {
+            features.add(matrix.term(col));
+            // Không phụ thuộc thứ tự cột
+            featureKey += matrix.term(col).hashCode() * 0x9E3779B97F4A7C15L;
+        }
+        synchronized (minHashIndex) {
+            minHashFeatures = features;
+            if (minHashIndex.featureKey() != featureKey) {
+                minHashIndex.clear(featureKey);
+            }
+            Set<Long> live = new HashSet<>(matrix.numRows() * 2);
+            for (long id : matrix.ids()) {
+                live.add(id);
+                if (!minHashIndex.contains(id)) {
+                    putMinHash(id);
+                }
+            }
+            for (Long id : new ArrayList<>(minHashIndex.ids())) {
+                if (!live.contains(id)) {
+                    minHashIndex.remove(id);
+                }
+            }
+            minHashIndex.force();
+        }
+    }
+
+    private void putMinHash(long id) throws IOException {
+        Set<String> features = minHashFeatures;
+        List<String> terms = new ArrayList<>();
+        if (features != null && termVectorStore.visit(id, (term, count) -> {
+            if (features.contains(term)) terms.add(term);
+        })) {
+            minHashIndex.put(id, terms);
+        } else {
+            // Chưa có tập đặc trưng: bỏ chữ ký cũ, lần đồng bộ tiếp theo sẽ thêm lại
+            minHashIndex.remove(id);
+        }
+    }
+
+    private static void normalize(float[] weights) {
+        double norm = 0.0;
+        for (float w : weights) {
+            norm += w * w;
+        }
+        if (norm == 0.0) return;
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] *= scale;
+        }
+    }
+
+    /** Bounded min-heap of (row, score) kept in primitive arrays; the root is the weakest entry. */
+    private static final class TopK {
+        private final int[] rows;
+        private final float[] scores;
+        private int size;
+
+        private TopK(int limit) {
+            rows = new int[limit];
+            scores = new float[limit];
+        }
+
+        boolean accepts(float score) {
+            return size < rows.length || score > scores[0];
+        }
+
+        void offer(int row, float score) {
+            if (rows.length == 0 || !accepts(score)) return;
+            if (size < rows.length) {
+                int i = size++;
+                rows[i] = row;
+                scores[i] = score;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (scores[parent] <= scores[i]) break;
+                    swap(i, parent);
+                    i = parent;
+                }
+            } else {
+                rows[0] = row;
+                scores[0] = score;
+                siftDown();
+            }
+        }
+
+        void pollMin() {
+            size--;
+            rows[0] = rows[size];
+            scores[0] = scores[size];
+            siftDown();
+        }
+
+        private void siftDown() {
+            int i = 0;
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && scores[left] < scores[smallest]) smallest = left;
+                if (right < size && scores[right] < scores[smallest]) smallest = right;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    /** Index over one clustering run: the matrix, its labels and its transpose. */
+    private static final class Snapshot {
+        private final SparseMatrix matrix;
+        private final int[] labels;
+        private final int[] columnStart;
+        private final int[] postingRows;
+        private final float[] postingWeights;
+        private final Map<String, Integer> columns;
+
+        private Snapshot(SparseMatrix matrix, int[] labels) {
+            this.matrix = matrix;
+            this.labels = labels;
+            int numCols = matrix.numCols();
+            int[] indices = matrix.indices();
+            float[] values = matrix.values();
+
+            columnStart = new int[numCols + 1];
+            for (int p = 0, nnz = (int) matrix.nonZeros(); p < nnz; p++) {
+                columnStart[indices[p] + 1]++;
+            }
+            for (int col = 0; col < numCols; col++) {
+                columnStart[col + 1] += columnStart[col];
+            }
+            postingRows = new int[(int) matrix.nonZeros()];
+            postingWeights = new float[postingRows.length];
+            int[] fill = Arrays.copyOf(columnStart, numCols);
+            for (int row = 0; row < matrix.numRows(); row++) {
+                for (int p = matrix.rowStart(row), end = matrix.rowEnd(row); p < end; p++) {
+                    int at = fill[indices[p]]++;
+                    postingRows[at] = row;
+                    postingWeights[at] = values[p];
+                }
+            }
+
+            columns = new HashMap<>(numCols * 2);
+            for (int col = 0; col < numCols; col++) {
+                columns.put(matrix.term(col), col);
+            }
+        }
+    }
+
+    /** TF-IDF weights of a stored vector over the columns of the current snapshot. */
+    private static final class QueryVector {
+        private final Snapshot index;
+        private int[] columns = new int[16];
+        private float[] weights = new float[16];
+        private int size;
+
+        private QueryVector(Snapshot index) {
+            this.index = index;
+        }
+
+        void add(String term, int count) {
+            Integer col = index.columns.get(term);
+            if (col == null) return;
+            if (size == columns.length) {
+                columns = Arrays.copyOf(columns, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            columns[size] = col;
+            weights[size++] = (float) (Math.log1p(count) * index.matrix.idf(col));
+        }
+    }
+
+    private static final class CacheKey {
+        private final long documentId;
+        private final Integer cluster;
+
+        private CacheKey(long documentId, Integer cluster) {
+            this.documentId = documentId;
+            this.cluster = cluster;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return documentId == other.documentId && Objects.equals(cluster, other.cluster);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(documentId) * 31 + Objects.hashCode(cluster);
+        }
+    }
+}
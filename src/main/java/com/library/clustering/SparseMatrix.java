@@ -0,0 +1,193 @@
+package com.library.clustering;
+
+import java.util.BitSet;
+
+/**
+ * Compressed sparse row matrix of L2-normalised TF-IDF weights. Row {@code r} belongs to the
+ * document {@code ids[r]} and spans {@code indices/values[indptr[r], indptr[r + 1])}, with
+ * column indices sorted ascending.
+ * <p>
+ * A matrix built by {@link #dense} instead stores every row as {@code numCols} contiguous
+ * values, e.g. after dimensionality reduction. Such a matrix has no terms and no
+ * {@link #indices()}; code that must work on both kinds goes through {@link #dot},
+ * {@link #addRow} and {@link #copyRow}.
+ */
+public class SparseMatrix {
+
+    private final long[] ids;
+    private final int[] indptr;
+    private final int[] indices;
+    private final float[] values;
+    private final String[] terms;
+    private final float[] idf;
+    private final int numCols;
+    // Chỉ dùng cho ma trận dense: các dòng không có đặc trưng nào
+    private final BitSet emptyRows;
+
+    public SparseMatrix(long[] ids, int[] indptr, int[] indices, float[] values, String[] terms, float[] idf) {
+        this.ids = ids;
+        this.indptr = indptr;
+        this.indices = indices;
+        this.values = values;
+        this.terms = terms;
+        this.idf = idf;
+        this.numCols = terms.length;
+        this.emptyRows = null;
+    }
+
+    private SparseMatrix(long[] ids, float[] values, int numCols, BitSet emptyRows) {
+        this.ids = ids;
+        this.indptr = null;
+        this.indices = null;
+        this.values = values;
+        this.terms = null;
+        this.idf = null;
+        this.numCols = numCols;
+        this.emptyRows = emptyRows;
+    }
+
+    /** Row-major dense matrix, {@code values[row * numCols + col]}. */
+    public static SparseMatrix dense(long[] ids, float[] values, int numCols, BitSet emptyRows) {
+        return new SparseMatrix(ids, values, numCols, emptyRows);
+    }
+
+    public boolean isDense() {
+        return indptr == null;
+    }
+
+    public int numRows() {
+        return ids.length;
+    }
+
+    public int numCols() {
+        return numCols;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public long[] ids() {
+        return ids;
+    }
+
+    public int rowStart(int row) {
+        return indptr != null ? indptr[row] : row * numCols;
+    }
+
+    public int rowEnd(int row) {
+        return indptr != null ? indptr[row + 1] : (row + 1) * numCols;
+    }
+
+    /** Column of every stored value, {@code null} for a dense matrix. */
+    public int[] indices() {
+        return indices;
+    }
+
+    public float[] values() {
+        return values;
+    }
+
+    public String term(int col) {
+        return terms[col];
+    }
+
+    public float idf(int col) {
+        return idf[col];
+    }
+
+    public boolean isEmptyRow(int row) {
+        return indptr != null ? indptr[row] == indptr[row + 1] : emptyRows.get(row);
+    }
+
+    public long nonZeros() {
+        return indptr != null ? indptr[ids.length] : (long) ids.length * numCols;
+    }
+
+    /** Dot product of a row with a dense vector of {@link #numCols()} entries. */
+    public double dot(int row, float[] dense) {
+        if (indptr == null) {
+            return denseDot(values, row * numCols, dense, 0, numCols);
+        }
+        double sum = 0.0;
+        for (int p = indptr[row], end = indptr[row + 1]; p < end; p++) {
+            sum += values[p] * dense[indices[p]];
+        }
+        return sum;
+    }
+
+    /** Dot product of two rows, merging their sorted column indices. */
+    public double dot(int rowA, int rowB) {
+        if (indptr == null) {
+            return denseDot(values, rowA * numCols, values, rowB * numCols, numCols);
+        }
+        double sum = 0.0;
+        int p = indptr[rowA], endA = indptr[rowA + 1];
+        int q = indptr[rowB], endB = indptr[rowB + 1];
+        while (p < endA && q < endB) {
+            int a = indices[p];
+            int b = indices[q];
+            if (a == b) {
+                sum += values[p++] * values[q++];
+            } else if (a < b) {
+                p++;
+            } else {
+                q++;
+            }
+        }
+        return sum;
+    }
+
+    // Bốn tổng float độc lập để các phép cộng không phải chờ nhau; với vài trăm chiều
+    // của vector đơn vị, sai số float không ảnh hưởng đến việc chọn tâm cụm
+    private static double denseDot(float[] a, int offA, float[] b, int offB, int length) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[offA + i] * b[offB + i];
+            s1 += a[offA + i + 1] * b[offB + i + 1];
+            s2 += a[offA + i + 2] * b[offB + i + 2];
+            s3 += a[offA + i + 3] * b[offB + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[offA + i] * b[offB + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Adds a row to a dense accumulator of {@link #numCols()} entries. */
+    public void addRow(int row, double[] target) {
+        if (indptr == null) {
+            for (int i = 0, p = row * numCols; i < numCols; i++, p++) {
+                target[i] += values[p];
+            }
+            return;
+        }
+        for (int p = indptr[row], end = indptr[row + 1]; p < end; p++) {
+            target[indices[p]] += values[p];
+        }
+    }
+
+    public void addRow(int row, float[] target) {
+        if (indptr == null) {
+            for (int i = 0, p = row * numCols; i < numCols; i++, p++) {
+                target[i] += values[p];
+            }
+            return;
+        }
+        for (int p = indptr[row], end = indptr[row + 1]; p < end; p++) {
+            target[indices[p]] += values[p];
+        }
+    }
+
+    /** Writes a row into {@code target}, which must be zero wherever the row is. */
+    public void copyRow(int row, float[] target) {
+        if (indptr == null) {
+            System.arraycopy(values, row * numCols, target, 0, numCols);
+            return;
+        }
+        for (int p = indptr[row], end = indptr[row + 1]; p < end; p++) {
+            target[indices[p]] = values[p];
+        }
+    }
+}
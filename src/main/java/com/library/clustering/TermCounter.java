@@ -0,0 +1,74 @@
+package com.library.clustering;
+
+import com.library.text.Analyzer;
+import com.library.text.Tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Tokenizes a document into raw term counts over a {@link Vocabulary}. The result of
+ * {@link #count(CharSequence)} stays in reusable scratch arrays until the next call, so the
+ * hot path does not allocate; {@link #toVector()} copies it out when it must be kept.
+ * Instances are not thread-safe.
+ */
+public class TermCounter {
+
+    private final Vocabulary vocabulary;
+    private final Tokenizer tokenizer;
+    private final Tokenizer.TokenSink sink = this::accept;
+
+    // term id -> count for the current document
+    private int[] termCounts = new int[1024];
+    private int[] terms = new int[256];
+    private int[] counts = new int[256];
+    private int size;
+
+    public TermCounter(Vocabulary vocabulary, Analyzer analyzer) {
+        this.vocabulary = vocabulary;
+        this.tokenizer = analyzer.tokenizer();
+    }
+
+    /** Counts the terms of {@code text} and returns the number of distinct terms. */
+    public int count(CharSequence text) {
+        size = 0;
+        tokenizer.tokenize(text, sink);
+        Arrays.sort(terms, 0, size);
+        if (counts.length < terms.length) {
+            counts = new int[terms.length];
+        }
+        for (int i = 0; i < size; i++) {
+            counts[i] = termCounts[terms[i]];
+            termCounts[terms[i]] = 0;
+        }
+        return size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int term(int i) {
+        return terms[i];
+    }
+
+    public int count(int i) {
+        return counts[i];
+    }
+
+    public TermVector toVector() {
+        return size == 0 ? TermVector.EMPTY : new TermVector(Arrays.copyOf(terms, size), Arrays.copyOf(counts, size));
+    }
+
+    private void accept(char[] buf, int len) {
+        int term = vocabulary.intern(buf, 0, len);
+        if (term >= termCounts.length) {
+            termCounts = Arrays.copyOf(termCounts, Math.max(termCounts.length * 2, term + 1));
+        }
+        if (termCounts[term]++ == 0) {
+            if (size == terms.length) {
+                terms = Arrays.copyOf(terms, size * 2);
+            }
+            terms[size++] = term;
+        }
+    }
+}
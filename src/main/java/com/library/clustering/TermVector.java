@@ -0,0 +1,37 @@
+package com.library.clustering;
+
+/**
+ * Raw term counts of one document, sorted by term id.
+ */
+public class TermVector {
+
+    public static final TermVector EMPTY = new TermVector(new int[0], new int[0]);
+
+    private final int[] terms;
+    private final int[] counts;
+
+    public TermVector(int[] terms, int[] counts) {
+        this.terms = terms;
+        this.counts = counts;
+    }
+
+    public int length() {
+        return terms.length;
+    }
+
+    public int term(int i) {
+        return terms[i];
+    }
+
+    public int count(int i) {
+        return counts[i];
+    }
+
+    public int[] terms() {
+        return terms;
+    }
+
+    public int[] counts() {
+        return counts;
+    }
+}
@@ -0,0 +1,285 @@
+package com.library.clustering;
+
+import com.library.config.ClusteringProperties;
+import com.library.content.ContentStore;
+import com.library.repository.DocumentRepository;
+import com.library.repository.projection.DocumentText;
+import com.library.text.Analyzer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Persistent store of raw term counts per {@code Document.id}, together with the vocabulary
+ * and the document frequency of every term. Vectors are maintained incrementally as documents
+ * are saved or deleted, so a clustering run only tokenizes rows the store has not seen and
+ * derives IDF from the maintained counts.
+ * <p>
+ * The store is kept in memory and written to {@code clustering.vector-store-path} as a
+ * delta/varint encoded binary file after each clustering run and on shutdown.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TermVectorStore {
+
+    private static final int MAGIC = 0x54565331; // "TVS1"
+    private static final int VERSION = 2;
+    private static final int SYNC_CHUNK_SIZE = 1000;
+
+    private final DocumentRepository documentRepository;
+    private final ClusteringProperties properties;
+    private final Analyzer analyzer;
+    private final ContentStore contentStore;
+
+    private Vocabulary vocabulary = new Vocabulary();
+    // Tạo khi cần vì analyzer chỉ có sau constructor
+    private TermCounter counter;
+    private int[] documentFrequencies = new int[1024];
+    private final Map<Long, TermVector> vectors = new HashMap<>();
+    private boolean dirty;
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        Path path = Path.of(properties.getVectorStorePath());
+        if (!Files.exists(path)) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring incompatible term vector store: {}", path);
+                return;
+            }
+            if (in.readLong() != analyzer.fingerprint()) {
+                log.info("Analyzer settings changed, term vectors will be rebuilt: {}", path);
+                return;
+            }
+            Vocabulary loadedVocabulary = new Vocabulary();
+            int termCount = readVarInt(in);
+            int[] loadedFrequencies = new int[Math.max(termCount, 1024)];
+            for (int term = 0; term < termCount; term++) {
+                loadedVocabulary.intern(in.readUTF());
+                loadedFrequencies[term] = readVarInt(in);
+            }
+            int documentCount = readVarInt(in);
+            Map<Long, TermVector> loadedVectors = new HashMap<>(documentCount * 2);
+            for (int d = 0; d < documentCount; d++) {
+                long id = in.readLong();
+                int length = readVarInt(in);
+                int[] terms = new int[length];
+                int[] counts = new int[length];
+                int previous = 0;
+                for (int i = 0; i < length; i++) {
+                    previous += readVarInt(in);
+                    terms[i] = previous;
+                    counts[i] = readVarInt(in);
+                }
+                loadedVectors.put(id, length == 0 ? TermVector.EMPTY : new TermVector(terms, counts));
+            }
+
+            vocabulary = loadedVocabulary;
+            counter = null;
+            documentFrequencies = loadedFrequencies;
+            vectors.clear();
+            vectors.putAll(loadedVectors);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Writes the store if it changed since the last flush. Terms no longer used by any
+     * document are dropped and the remaining ids compacted.
+     */
+    @PreDestroy
+    public synchronized void flush() throws IOException {
+        if (!dirty) return;
+
+        int vocabularySize = vocabulary.size();
+        int[] remap = new int[vocabularySize];
+        int kept = 0;
+        for (int term = 0; term < vocabularySize; term++) {
+            remap[term] = documentFrequencies[term] > 0 ? kept++ : -1;
+        }
+
+        Path path = Path.of(properties.getVectorStorePath());
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(analyzer.fingerprint());
+            writeVarInt(out, kept);
+            for (int term = 0; term < vocabularySize; term++) {
+                if (remap[term] < 0) continue;
+                out.writeUTF(vocabulary.term(term));
+                writeVarInt(out, documentFrequencies[term]);
+            }
+            writeVarInt(out, vectors.size());
+            for (Map.Entry<Long, TermVector> entry : vectors.entrySet()) {
+                TermVector vector = entry.getValue();
+                out.writeLong(entry.getKey());
+                writeVarInt(out, vector.length());
+                int previous = 0;
+                for (int i = 0; i < vector.length(); i++) {
+                    int term = remap[vector.term(i)];
+                    writeVarInt(out, term - previous);
+                    writeVarInt(out, vector.count(i));
+                    previous = term;
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    public synchronized int size() {
+        return vectors.size();
+    }
+
+    public synchronized void update(long id, CharSequence content) {
+        removeVector(id);
+        TermVector vector = TermVector.EMPTY;
+        if (counter == null) {
+            counter = new TermCounter(vocabulary, analyzer);
+        }
+        if (content != null && counter.count(content) > 0) {
+            vector = counter.toVector();
+            if (vocabulary.size() > documentFrequencies.length) {
+                documentFrequencies = Arrays.copyOf(documentFrequencies,
+                        Math.max(documentFrequencies.length * 2, vocabulary.size()));
+            }
+            for (int term : vector.terms()) {
+                documentFrequencies[term]++;
+            }
+        }
+        vectors.put(id, vector);
+        dirty = true;
+    }
+
+    public synchronized void remove(long id) {
+        removeVector(id);
+    }
+
+    /**
+     * Passes each term of the stored vector of {@code id} with its count to {@code visitor}.
+     * Returns {@code false} if the store has no vector for the document.
+     */
+    public synchronized boolean visit(long id, ObjIntConsumer<String> visitor) {
+        TermVector vector = vectors.get(id);
+        if (vector == null) return false;
+        for (int i = 0; i < vector.length(); i++) {
+            visitor.accept(vocabulary.term(vector.term(i)), vector.count(i));
+        }
+        return true;
+    }
+
+    /**
+     * Reconciles the store with the documents table: vectors of deleted rows and near-duplicates
+     * are dropped and originals the store has never seen are tokenized. Returns the number of documents vectorized.
+     */
+    @Transactional(readOnly = true)
+    public synchronized int synchronize() {
+        List<Long> ids = documentRepository.findOriginalIds();
+        Set<Long> live = new HashSet<>(ids);
+        for (Iterator<Long> it = vectors.keySet().iterator(); it.hasNext(); ) {
+            long id = it.next();
+            if (!live.contains(id)) {
+                decrementFrequencies(vectors.get(id));
+                it.remove();
+                dirty = true;
+            }
+        }
+
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (!vectors.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) return 0;
+
+        if (missing.size() == ids.size()) {
+            try (Stream<DocumentText> texts = documentRepository.streamOriginalTexts()) {
+                texts.forEach(text -> update(text.getId(), contentStore.read(text)));
+            }
+        } else {
+            for (int from = 0; from < missing.size(); from += SYNC_CHUNK_SIZE) {
+                List<Long> chunk = missing.subList(from, Math.min(from + SYNC_CHUNK_SIZE, missing.size()));
+                for (DocumentText text : documentRepository.findTextsByIdIn(chunk)) {
+                    update(text.getId(), contentStore.read(text));
+                }
+            }
+        }
+        return missing.size();
+    }
+
+    /**
+     * Builds the TF-IDF matrix of every non-empty stored vector, using the maintained
+     * document frequencies for IDF.
+     */
+    public synchronized SparseMatrix buildMatrix(int maxFeatures, int minDocumentFrequency,
+                                                 double maxDocumentFrequencyRatio) {
+        TfIdfVectorizer vectorizer = new TfIdfVectorizer(vocabulary, documentFrequencies,
+                maxFeatures, minDocumentFrequency, maxDocumentFrequencyRatio);
+        vectors.entrySet().stream()
+                .filter(entry -> entry.getValue().length() > 0)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> vectorizer.add(entry.getKey(), entry.getValue()));
+        return vectorizer.build();
+    }
+
+    private void removeVector(long id) {
+        TermVector previous = vectors.remove(id);
+        if (previous != null) {
+            decrementFrequencies(previous);
+            dirty = true;
+        }
+    }
+
+    private void decrementFrequencies(TermVector vector) {
+        for (int term : vector.terms()) {
+            documentFrequencies[term]--;
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
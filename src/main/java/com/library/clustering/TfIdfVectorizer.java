@@ -0,0 +1,204 @@
+package com.library.clustering;
+
+import com.library.text.Analyzer;
+
+import java.util.Arrays;
+
+/**
+ * Streaming TF-IDF vectorizer. Documents are tokenized one at a time as they are added,
+ * their term counts appended to a growing CSR buffer and document frequencies updated in the
+ * same pass; {@link #build()} then selects the vocabulary and rewrites the buffer in place
+ * into L2-normalised {@code log(1 + tf) * log(N / df)} weights.
+ * <p>
+ * When built over a {@link TermVectorStore} the vocabulary and document frequencies are the
+ * store's maintained ones and rows are appended as pre-counted {@link TermVector}s.
+ * Instances are single-use and not thread-safe.
+ */
+public class TfIdfVectorizer {
+
+    private final int maxFeatures;
+    private final int minDocumentFrequency;
+    private final double maxDocumentFrequencyRatio;
+
+    private final Vocabulary vocabulary;
+    private final TermCounter counter;
+    private final boolean countFrequencies;
+    private int[] documentFrequencies;
+
+    private long[] ids = new long[1024];
+    private int[] indptr = new int[1025];
+    private int rows;
+    private int[] indices = new int[1 << 16];
+    private float[] weights = new float[1 << 16];
+    private int nonZeros;
+
+    public TfIdfVectorizer(Analyzer analyzer, int maxFeatures, int minDocumentFrequency, double maxDocumentFrequencyRatio) {
+        this(new Vocabulary(), new int[1024], analyzer, maxFeatures, minDocumentFrequency, maxDocumentFrequencyRatio);
+    }
+
+    /**
+     * Vectorizer over an existing vocabulary whose document frequencies are maintained by the
+     * caller; {@code documentFrequencies} must cover the whole vocabulary. Only pre-counted
+     * {@link TermVector}s can be added.
+     */
+    public TfIdfVectorizer(Vocabulary vocabulary, int[] documentFrequencies,
+                           int maxFeatures, int minDocumentFrequency, double maxDocumentFrequencyRatio) {
+        this(vocabulary, documentFrequencies, null, maxFeatures, minDocumentFrequency, maxDocumentFrequencyRatio);
+    }
+
+    private TfIdfVectorizer(Vocabulary vocabulary, int[] documentFrequencies, Analyzer analyzer,
+                            int maxFeatures, int minDocumentFrequency, double maxDocumentFrequencyRatio) {
+        this.vocabulary = vocabulary;
+        this.counter = analyzer != null ? new TermCounter(vocabulary, analyzer) : null;
+        this.documentFrequencies = documentFrequencies;
+        this.countFrequencies = analyzer != null;
+        this.maxFeatures = maxFeatures;
+        this.minDocumentFrequency = minDocumentFrequency;
+        this.maxDocumentFrequencyRatio = maxDocumentFrequencyRatio;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Tokenizes and appends one document. Blank texts are skipped and reported as {@code false}.
+     */
+    public boolean add(long id, CharSequence text) {
+        if (counter == null) {
+            throw new IllegalStateException("Vectorizer over a maintained vocabulary only accepts term vectors");
+        }
+        if (text == null || isBlank(text)) {
+            return false;
+        }
+        int size = counter.count(text);
+        ensureEntryCapacity(nonZeros + size);
+        for (int i = 0; i < size; i++) {
+            append(counter.term(i), counter.count(i));
+        }
+        endRow(id);
+        return true;
+    }
+
+    /** Appends a document that was already counted against this vectorizer's vocabulary. */
+    public void add(long id, TermVector vector) {
+        ensureEntryCapacity(nonZeros + vector.length());
+        for (int i = 0; i < vector.length(); i++) {
+            append(vector.term(i), vector.count(i));
+        }
+        endRow(id);
+    }
+
+    public SparseMatrix build() {
+        int n = rows;
+        int vocabularySize = vocabulary.size();
+        if (documentFrequencies.length < vocabularySize) {
+            documentFrequencies = Arrays.copyOf(documentFrequencies, vocabularySize);
+        }
+        int maxDocumentFrequency = Math.max(minDocumentFrequency, (int) (maxDocumentFrequencyRatio * n));
+
+        // Keep the maxFeatures most frequent terms within the df bounds; ties go to the lower id
+        long[] candidates = new long[vocabularySize];
+        int candidateCount = 0;
+        for (int term = 0; term < vocabularySize; term++) {
+            int df = documentFrequencies[term];
+            if (df >= minDocumentFrequency && df <= maxDocumentFrequency) {
+                candidates[candidateCount++] = ((long) df << 32) | (Integer.MAX_VALUE - term);
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+        boolean[] selected = new boolean[vocabularySize];
+        for (int i = Math.max(0, candidateCount - maxFeatures); i < candidateCount; i++) {
+            selected[Integer.MAX_VALUE - (int) candidates[i]] = true;
+        }
+
+        // Columns follow term id order so remapped rows stay sorted
+        int[] columnOf = new int[vocabularySize];
+        int numCols = 0;
+        for (int term = 0; term < vocabularySize; term++) {
+            columnOf[term] = selected[term] ? numCols++ : -1;
+        }
+        String[] terms = new String[numCols];
+        float[] idf = new float[numCols];
+        for (int term = 0; term < vocabularySize; term++) {
+            int col = columnOf[term];
+            if (col >= 0) {
+                terms[col] = vocabulary.term(term);
+                idf[col] = (float) Math.log((double) n / documentFrequencies[term]);
+            }
+        }
+
+        int write = 0;
+        int oldStart = 0;
+        for (int r = 0; r < n; r++) {
+            int oldEnd = indptr[r + 1];
+            int newStart = write;
+            double norm = 0.0;
+            for (int p = oldStart; p < oldEnd; p++) {
+                int col = columnOf[indices[p]];
+                if (col < 0) continue;
+                float weight = (float) (Math.log1p(weights[p]) * idf[col]);
+                if (weight == 0f) continue;
+                indices[write] = col;
+                weights[write] = weight;
+                norm += (double) weight * weight;
+                write++;
+            }
+            if (norm > 0) {
+                float scale = (float) (1.0 / Math.sqrt(norm));
+                for (int p = newStart; p < write; p++) {
+                    weights[p] *= scale;
+                }
+            }
+            indptr[r] = newStart;
+            oldStart = oldEnd;
+        }
+        indptr[n] = write;
+
+        return new SparseMatrix(
+                Arrays.copyOf(ids, n),
+                Arrays.copyOf(indptr, n + 1),
+                Arrays.copyOf(indices, write),
+                Arrays.copyOf(weights, write),
+                terms,
+                idf);
+    }
+
+    private void append(int term, int count) {
+        indices[nonZeros] = term;
+        weights[nonZeros] = count;
+        nonZeros++;
+        if (countFrequencies) {
+            if (term >= documentFrequencies.length) {
+                documentFrequencies = Arrays.copyOf(documentFrequencies, Math.max(documentFrequencies.length * 2, term + 1));
+            }
+            documentFrequencies[term]++;
+        }
+    }
+
+    private void endRow(long id) {
+        if (rows == ids.length) {
+            ids = Arrays.copyOf(ids, rows * 2);
+            indptr = Arrays.copyOf(indptr, rows * 2 + 1);
+        }
+        ids[rows++] = id;
+        indptr[rows] = nonZeros;
+    }
+
+    private void ensureEntryCapacity(int required) {
+        if (required > indices.length) {
+            int capacity = Math.max(required, indices.length + (indices.length >> 1));
+            indices = Arrays.copyOf(indices, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,134 @@
+package com.library.clustering;
+
+import java.util.Arrays;
+
+/**
+ * Interns terms into dense int ids. Term characters are packed into one shared char array
+ * and looked up by open addressing directly on the tokenizer buffer, so no String is
+ * created per token.
+ */
+public class Vocabulary {
+
+    private char[] chars = new char[1 << 16];
+    private int charsUsed;
+
+    // term i lives in chars[offsets[i], offsets[i + 1])
+    private int[] offsets = new int[1025];
+    private int[] hashes = new int[1024];
+    private int size;
+
+    // id + 1 per slot, 0 marks an empty slot
+    private int[] table = new int[2048];
+    private int mask = table.length - 1;
+
+    public int size() {
+        return size;
+    }
+
+    public int find(char[] buf, int off, int len) {
+        int hash = hash(buf, off, len);
+        int slot = hash & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(id, buf, off, len)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int find(CharSequence term) {
+        char[] buf = new char[term.length()];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = term.charAt(i);
+        }
+        return find(buf, 0, buf.length);
+    }
+
+    public int intern(char[] buf, int off, int len) {
+        int hash = hash(buf, off, len);
+        int slot = hash & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(id, buf, off, len)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            offsets = Arrays.copyOf(offsets, id * 2 + 1);
+        }
+        if (charsUsed + len > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charsUsed + len));
+        }
+        System.arraycopy(buf, off, chars, charsUsed, len);
+        offsets[id] = charsUsed;
+        charsUsed += len;
+        offsets[id + 1] = charsUsed;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    public int intern(CharSequence term) {
+        char[] buf = new char[term.length()];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = term.charAt(i);
+        }
+        return intern(buf, 0, buf.length);
+    }
+
+    public String term(int id) {
+        return new String(chars, offsets[id], offsets[id + 1] - offsets[id]);
+    }
+
+    private boolean matches(int id, char[] buf, int off, int len) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (chars[start + i] != buf[off + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        int newMask = newTable.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & newMask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newTable[slot] = id + 1;
+        }
+        table = newTable;
+        mask = newMask;
+    }
+
+    private static int hash(char[] buf, int off, int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,212 @@
+package com.library.clustering.engine;
+
+import com.library.clustering.SparseMatrix;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Shared machinery of the spherical k-means engines. Rows and centroids are unit vectors, so
+ * the Euclidean distance {@code sqrt(2 - 2 cos)} is a monotone function of cosine distance and
+ * still satisfies the triangle inequality used for pruning.
+ */
+public abstract class AbstractKMeans implements ClusteringEngine {
+
+    private static final int GRAIN = 256;
+
+    protected final ForkJoinPool pool;
+    protected final int maxIterations;
+    protected final double tolerance;
+    protected final long seed;
+
+    protected AbstractKMeans(ForkJoinPool pool, int maxIterations, double tolerance, long seed) {
+        this.pool = pool;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.seed = seed;
+    }
+
+    protected interface RangeBody {
+        void run(int from, int to);
+    }
+
+    /** Runs {@code body} over {@code [0, n)} split into fork-join subtasks. */
+    protected void parallelFor(int n, RangeBody body) {
+        if (n <= GRAIN) {
+            body.run(0, n);
+        } else {
+            pool.invoke(new RangeTask(body, 0, n));
+        }
+    }
+
+    protected static int[] activeRows(SparseMatrix data) {
+        int[] rows = new int[data.numRows()];
+        int count = 0;
+        for (int row = 0; row < data.numRows(); row++) {
+            if (!data.isEmptyRow(row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    protected static double distance(double similarity) {
+        return Math.sqrt(Math.max(0.0, 2.0 - 2.0 * similarity));
+    }
+
+    protected static double dot(float[] a, float[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    protected static int nearest(SparseMatrix data, int row, float[][] centroids) {
+        int best = 0;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < centroids.length; c++) {
+            double similarity = data.dot(row, centroids[c]);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** k-means++ seeding over the given candidate rows. */
+    protected float[][] seedCentroids(SparseMatrix data, int[] candidates, int k, Random random) {
+        float[][] centroids = new float[k][];
+        centroids[0] = densify(data, candidates[random.nextInt(candidates.length)]);
+
+        double[] minDistance = new double[candidates.length];
+        Arrays.fill(minDistance, Double.MAX_VALUE);
+        for (int c = 1; c < k; c++) {
+            float[] previous = centroids[c - 1];
+            parallelFor(candidates.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    double d = 2.0 - 2.0 * data.dot(candidates[i], previous);
+                    if (d < minDistance[i]) {
+                        minDistance[i] = Math.max(0.0, d);
+                    }
+                }
+            });
+
+            double total = 0.0;
+            for (double d : minDistance) {
+                total += d;
+            }
+            int chosen = candidates.length - 1;
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                for (int i = 0; i < candidates.length; i++) {
+                    target -= minDistance[i];
+                    if (target <= 0) {
+                        chosen = i;
+                        break;
+                    }
+                }
+            } else {
+                chosen = random.nextInt(candidates.length);
+            }
+            centroids[c] = densify(data, candidates[chosen]);
+        }
+        return centroids;
+    }
+
+    /**
+     * Replaces every non-empty cluster's centroid with its normalised member sum and returns the
+     * inertia of the assignment against the new centroids. For unit rows and a centroid
+     * {@code S / |S|} the squared distances of a cluster sum to {@code 2 n - 2 |S|}, so no
+     * extra pass over the data is needed.
+     */
+    protected double updateCentroids(SparseMatrix data, int[] rows, int[] labels, float[][] centroids, int[] sizes) {
+        int k = centroids.length;
+        int[] start = new int[k + 1];
+        for (int row : rows) {
+            start[labels[row] + 1]++;
+        }
+        for (int c = 0; c < k; c++) {
+            start[c + 1] += start[c];
+            sizes[c] = start[c + 1] - start[c];
+        }
+        int[] members = new int[rows.length];
+        int[] next = Arrays.copyOf(start, k);
+        for (int row : rows) {
+            members[next[labels[row]]++] = row;
+        }
+
+        double[] clusterInertia = new double[k];
+        pool.invoke(new RangeTask((from, to) -> {
+            for (int c = from; c < to; c++) {
+                if (sizes[c] == 0) continue;
+                double[] sum = new double[data.numCols()];
+                for (int m = start[c]; m < start[c + 1]; m++) {
+                    data.addRow(members[m], sum);
+                }
+                double norm = 0.0;
+                for (double v : sum) {
+                    norm += v * v;
+                }
+                norm = Math.sqrt(norm);
+                float[] centroid = new float[sum.length];
+                if (norm > 0) {
+                    for (int i = 0; i < sum.length; i++) {
+                        centroid[i] = (float) (sum[i] / norm);
+                    }
+                }
+                centroids[c] = centroid;
+                clusterInertia[c] = Math.max(0.0, 2.0 * sizes[c] - 2.0 * norm);
+            }
+        }, 0, k, 1));
+
+        double inertia = 0.0;
+        for (double v : clusterInertia) {
+            inertia += v;
+        }
+        return inertia;
+    }
+
+    protected static float[] densify(SparseMatrix data, int row) {
+        float[] dense = new float[data.numCols()];
+        data.copyRow(row, dense);
+        return dense;
+    }
+
+    protected static ClusteringResult emptyResult(SparseMatrix data) {
+        int[] labels = new int[data.numRows()];
+        Arrays.fill(labels, -1);
+        return new ClusteringResult(labels, new float[0][], 0.0, 0, true);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final RangeBody body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(RangeBody body, int from, int to) {
+            this(body, from, to, GRAIN);
+        }
+
+        RangeTask(RangeBody body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(body, from, mid, grain), new RangeTask(body, mid, to, grain));
+        }
+    }
+}
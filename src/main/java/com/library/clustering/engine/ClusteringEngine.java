@@ -0,0 +1,16 @@
+package com.library.clustering.engine;
+
+import com.library.clustering.SparseMatrix;
+
+/**
+ * Partitions the rows of an L2-normalised matrix, TF-IDF or reduced, into clusters. Empty rows
+ * are left unassigned with label {@code -1}.
+ */
+public interface ClusteringEngine {
+
+    ClusteringResult cluster(SparseMatrix data, int numClusters, IterationListener listener);
+
+    default ClusteringResult cluster(SparseMatrix data, int numClusters) {
+        return cluster(data, numClusters, IterationListener.NONE);
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.clustering.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ClusteringResult {
+
+    // Nhãn theo thứ tự dòng của ma trận, -1 = không được phân cụm
+    private final int[] labels;
+
+    // Tâm cụm đã chuẩn hóa L2, mỗi tâm có numCols phần tử
+    private final float[][] centroids;
+
+    private final double inertia;
+
+    private final int iterations;
+
+    private final boolean converged;
+
+    public int numClusters() {
+        return centroids.length;
+    }
+}
@@ -0,0 +1,134 @@
+package com.library.clustering.engine;
+
+import com.library.clustering.SparseMatrix;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spherical k-means with Hamerly's bounds. Each point keeps an upper bound on the distance
+ * to its own centroid and a lower bound on the distance to any other; the full scan over all
+ * centroids only happens when the bounds can no longer rule out a change of assignment.
+ * The assignment step runs on the fork-join pool, the centroid update in parallel per cluster.
+ */
+public class HamerlyKMeans extends AbstractKMeans {
+
+    public HamerlyKMeans(ForkJoinPool pool, int maxIterations, double tolerance, long seed) {
+        super(pool, maxIterations, tolerance, seed);
+    }
+
+    @Override
+    public ClusteringResult cluster(SparseMatrix data, int numClusters, IterationListener listener) {
+        int[] rows = activeRows(data);
+        if (rows.length == 0 || numClusters <= 0) {
+            return emptyResult(data);
+        }
+        int k = Math.min(numClusters, rows.length);
+        int[] labels = new int[data.numRows()];
+        Arrays.fill(labels, -1);
+
+        float[][] centroids = seedCentroids(data, rows, k, new Random(seed));
+        double[] upper = new double[rows.length];
+        double[] lower = new double[rows.length];
+
+        parallelFor(rows.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                assignFully(data, rows[i], i, centroids, labels, upper, lower);
+            }
+        });
+
+        int[] sizes = new int[k];
+        double[] moved = new double[k];
+        double[] halfGap = new double[k];
+        double inertia = 0.0;
+        int iteration = 0;
+        boolean converged = false;
+        while (iteration < maxIterations) {
+            iteration++;
+            float[][] previous = centroids.clone();
+            inertia = updateCentroids(data, rows, labels, centroids, sizes);
+            listener.iteration(iteration, inertia);
+
+            double maxMoved = 0.0;
+            double secondMoved = 0.0;
+            int farthest = -1;
+            for (int c = 0; c < k; c++) {
+                moved[c] = previous[c] == centroids[c] ? 0.0 : distance(dot(previous[c], centroids[c]));
+                if (moved[c] > maxMoved) {
+                    secondMoved = maxMoved;
+                    maxMoved = moved[c];
+                    farthest = c;
+                } else if (moved[c] > secondMoved) {
+                    secondMoved = moved[c];
+                }
+            }
+            if (maxMoved < tolerance) {
+                converged = true;
+                break;
+            }
+
+            for (int c = 0; c < k; c++) {
+                double closest = Double.MAX_VALUE;
+                for (int other = 0; other < k; other++) {
+                    if (other != c) {
+                        closest = Math.min(closest, distance(dot(centroids[c], centroids[other])));
+                    }
+                }
+                halfGap[c] = closest == Double.MAX_VALUE ? 0.0 : closest / 2;
+            }
+
+            int farthestCluster = farthest;
+            double maxShift = maxMoved;
+            double secondShift = secondMoved;
+            LongAdder changed = new LongAdder();
+            parallelFor(rows.length, (from, to) -> {
+                int localChanges = 0;
+                for (int i = from; i < to; i++) {
+                    int row = rows[i];
+                    int assigned = labels[row];
+                    upper[i] += moved[assigned];
+                    lower[i] -= assigned == farthestCluster ? secondShift : maxShift;
+
+                    double bound = Math.max(halfGap[assigned], lower[i]);
+                    if (upper[i] <= bound) continue;
+                    upper[i] = distance(data.dot(row, centroids[assigned]));
+                    if (upper[i] <= bound) continue;
+
+                    assignFully(data, row, i, centroids, labels, upper, lower);
+                    if (labels[row] != assigned) {
+                        localChanges++;
+                    }
+                }
+                changed.add(localChanges);
+            });
+            if (changed.sum() == 0) {
+                converged = true;
+                break;
+            }
+        }
+
+        return new ClusteringResult(labels, centroids, inertia, iteration, converged);
+    }
+
+    private static void assignFully(SparseMatrix data, int row, int i, float[][] centroids,
+                                    int[] labels, double[] upper, double[] lower) {
+        int best = 0;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        double secondSimilarity = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < centroids.length; c++) {
+            double similarity = data.dot(row, centroids[c]);
+            if (similarity > bestSimilarity) {
+                secondSimilarity = bestSimilarity;
+                bestSimilarity = similarity;
+                best = c;
+            } else if (similarity > secondSimilarity) {
+                secondSimilarity = similarity;
+            }
+        }
+        labels[row] = best;
+        upper[i] = distance(bestSimilarity);
+        lower[i] = centroids.length > 1 ? distance(secondSimilarity) : Double.MAX_VALUE;
+    }
+}
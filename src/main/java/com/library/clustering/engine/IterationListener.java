@@ -0,0 +1,13 @@
+package com.library.clustering.engine;
+
+/**
+ * Called by an engine after every iteration. Implementations may throw
+ * {@link java.util.concurrent.CancellationException} to abort the run.
+ */
+public interface IterationListener {
+
+    IterationListener NONE = (iteration, inertia) -> {
+    };
+
+    void iteration(int iteration, double inertia);
+}
@@ -0,0 +1,128 @@
+package com.library.clustering.engine;
+
+import com.library.clustering.SparseMatrix;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mini-batch spherical k-means (Sculley 2010) for corpora too large for full Lloyd passes.
+ * Each iteration assigns a random batch in parallel and moves every centroid towards the mean
+ * of its batch members with a per-centroid learning rate of {@code 1 / count}. A final full
+ * assignment and centroid update produce the labels and inertia.
+ */
+public class MiniBatchKMeans extends AbstractKMeans {
+
+    private final int batchSize;
+
+    public MiniBatchKMeans(ForkJoinPool pool, int maxIterations, double tolerance, long seed, int batchSize) {
+        super(pool, maxIterations, tolerance, seed);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ClusteringResult cluster(SparseMatrix data, int numClusters, IterationListener listener) {
+        int[] rows = activeRows(data);
+        if (rows.length == 0 || numClusters <= 0) {
+            return emptyResult(data);
+        }
+        int k = Math.min(numClusters, rows.length);
+        Random random = new Random(seed);
+        int batch = Math.min(batchSize, rows.length);
+
+        float[][] centroids = seedCentroids(data, sample(rows, Math.min(rows.length, batch * 4), random), k, random);
+        double[] counts = new double[k];
+        int[] batchRows = new int[batch];
+        int[] batchLabels = new int[batch];
+        double[] batchDistances = new double[batch];
+
+        int iteration = 0;
+        boolean converged = false;
+        while (iteration < maxIterations) {
+            iteration++;
+            for (int b = 0; b < batch; b++) {
+                batchRows[b] = rows[random.nextInt(rows.length)];
+            }
+            float[][] assignTo = centroids;
+            parallelFor(batch, (from, to) -> {
+                for (int b = from; b < to; b++) {
+                    int c = nearest(data, batchRows[b], assignTo);
+                    batchLabels[b] = c;
+                    batchDistances[b] = Math.max(0.0, 2.0 - 2.0 * data.dot(batchRows[b], assignTo[c]));
+                }
+            });
+
+            double[][] sums = new double[k][];
+            int[] batchCounts = new int[k];
+            for (int b = 0; b < batch; b++) {
+                int c = batchLabels[b];
+                if (sums[c] == null) {
+                    sums[c] = new double[data.numCols()];
+                }
+                batchCounts[c]++;
+                data.addRow(batchRows[b], sums[c]);
+            }
+
+            // Inertia ước lượng từ batch, quy đổi theo tổng số điểm
+            double batchInertia = 0.0;
+            for (double d : batchDistances) {
+                batchInertia += d;
+            }
+            listener.iteration(iteration, batchInertia * rows.length / batch);
+
+            double maxMoved = 0.0;
+            for (int c = 0; c < k; c++) {
+                if (batchCounts[c] == 0) continue;
+                float[] previous = centroids[c];
+                double total = counts[c] + batchCounts[c];
+                double[] next = new double[previous.length];
+                double norm = 0.0;
+                for (int i = 0; i < next.length; i++) {
+                    next[i] = (counts[c] * previous[i] + sums[c][i]) / total;
+                    norm += next[i] * next[i];
+                }
+                norm = Math.sqrt(norm);
+                float[] centroid = new float[next.length];
+                if (norm > 0) {
+                    for (int i = 0; i < next.length; i++) {
+                        centroid[i] = (float) (next[i] / norm);
+                    }
+                }
+                counts[c] = total;
+                centroids[c] = centroid;
+                maxMoved = Math.max(maxMoved, distance(dot(previous, centroid)));
+            }
+            if (maxMoved < tolerance) {
+                converged = true;
+                break;
+            }
+        }
+
+        int[] labels = new int[data.numRows()];
+        Arrays.fill(labels, -1);
+        float[][] finalCentroids = centroids;
+        parallelFor(rows.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                labels[rows[i]] = nearest(data, rows[i], finalCentroids);
+            }
+        });
+        double inertia = updateCentroids(data, rows, labels, centroids, new int[k]);
+
+        return new ClusteringResult(labels, centroids, inertia, iteration, converged);
+    }
+
+    private static int[] sample(int[] rows, int size, Random random) {
+        if (size >= rows.length) {
+            return rows;
+        }
+        int[] copy = rows.clone();
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(copy.length - i);
+            int tmp = copy[i];
+            copy[i] = copy[j];
+            copy[j] = tmp;
+        }
+        return Arrays.copyOf(copy, size);
+    }
+}
@@ -0,0 +1,266 @@
+package com.library.clustering.hierarchy;
+
+import com.library.clustering.ClusteringProgress;
+import com.library.clustering.SparseMatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Topic drill-down under a flat clustering. Every cluster is split in two by spherical
+ * 2-means, and each half again, until a node has fewer than {@code minNodeSize} documents or
+ * lies {@code maxDepth} splits below its cluster. A split keeps the best of {@code trials}
+ * seeded runs by total cosine to the two centroids.
+ * <p>
+ * The halves of a split share no rows, so each node is a fork-join task that forks its two
+ * children and all clusters' trees grow concurrently on the pool. Splits run on the matrix the
+ * flat clustering used; top terms come from the unreduced TF-IDF matrix, whose rows are the same
+ * documents.
+ */
+public class BisectingKMeans {
+
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+    private final int minNodeSize;
+    private final int trials;
+    private final int maxIterations;
+    private final int topTerms;
+    private final long seed;
+
+    public BisectingKMeans(ForkJoinPool pool, int maxDepth, int minNodeSize, int trials, int maxIterations,
+                           int topTerms, long seed) {
+        this.pool = pool;
+        this.maxDepth = maxDepth;
+        this.minNodeSize = Math.max(2, minNodeSize);
+        this.trials = Math.max(1, trials);
+        this.maxIterations = maxIterations;
+        this.topTerms = topTerms;
+        this.seed = seed;
+    }
+
+    /**
+     * Builds the tree of each of the {@code numClusters} clusters in {@code labels}.
+     * {@code data} is the matrix that was clustered and {@code matrix} the TF-IDF matrix.
+     */
+    public TopicTree build(SparseMatrix data, SparseMatrix matrix, int[] labels, int numClusters,
+                           ClusteringProgress progress) {
+        // B1: Gom các dòng theo cụm phẳng, mỗi cụm là gốc của một cây
+        int[] sizes = new int[numClusters];
+        for (int label : labels) {
+            if (label >= 0) sizes[label]++;
+        }
+        int[][] members = new int[numClusters][];
+        for (int c = 0; c < numClusters; c++) {
+            members[c] = new int[sizes[c]];
+        }
+        int[] next = new int[numClusters];
+        for (int row = 0; row < labels.length; row++) {
+            if (labels[row] >= 0) members[labels[row]][next[labels[row]]++] = row;
+        }
+
+        // B2: Dựng các cây song song, mỗi dòng nhận đường dẫn của lá chứa nó
+        String[] paths = new String[labels.length];
+        List<NodeTask> roots = new ArrayList<>();
+        for (int c = 0; c < numClusters; c++) {
+            if (sizes[c] > 0) {
+                roots.add(new NodeTask(data, matrix, paths, progress, c + ".", c, 0, members[c]));
+            }
+        }
+        List<TopicNode> nodes = pool.invoke(new RecursiveTask<List<TopicNode>>() {
+            @Override
+            protected List<TopicNode> compute() {
+                invokeAll(roots);
+                List<TopicNode> result = new ArrayList<>();
+                for (NodeTask root : roots) {
+                    result.addAll(root.join());
+                }
+                return result;
+            }
+        });
+        return new TopicTree(nodes, paths);
+    }
+
+    private final class NodeTask extends RecursiveTask<List<TopicNode>> {
+        private final SparseMatrix data;
+        private final SparseMatrix matrix;
+        private final String[] paths;
+        private final ClusteringProgress progress;
+        private final String path;
+        private final int cluster;
+        private final int depth;
+        private final int[] rows;
+
+        private NodeTask(SparseMatrix data, SparseMatrix matrix, String[] paths, ClusteringProgress progress,
+                         String path, int cluster, int depth, int[] rows) {
+            this.data = data;
+            this.matrix = matrix;
+            this.paths = paths;
+            this.progress = progress;
+            this.path = path;
+            this.cluster = cluster;
+            this.depth = depth;
+            this.rows = rows;
+        }
+
+        @Override
+        protected List<TopicNode> compute() {
+            progress.checkCancelled();
+            double cohesion = norm(sum(data, rows)) / rows.length;
+            List<String> terms = topTerms();
+
+            int[][] halves = depth < maxDepth && rows.length >= minNodeSize ? bisect() : null;
+            if (halves == null) {
+                for (int row : rows) {
+                    paths[row] = path;
+                }
+                return List.of(new TopicNode(path, cluster, depth, rows.length, cohesion, true, terms));
+            }
+
+            NodeTask larger = new NodeTask(data, matrix, paths, progress, path + '0', cluster, depth + 1, halves[0]);
+            NodeTask smaller = new NodeTask(data, matrix, paths, progress, path + '1', cluster, depth + 1, halves[1]);
+            invokeAll(larger, smaller);
+            List<TopicNode> nodes = new ArrayList<>();
+            nodes.add(new TopicNode(path, cluster, depth, rows.length, cohesion, false, terms));
+            nodes.addAll(larger.join());
+            nodes.addAll(smaller.join());
+            return nodes;
+        }
+
+        // Hai nửa, nửa lớn hơn trước; null nếu không lần thử nào chia được thành hai nửa khác rỗng
+        private int[][] bisect() {
+            Random random = new Random(seed ^ path.hashCode());
+            byte[] best = null;
+            double bestObjective = Double.NEGATIVE_INFINITY;
+            byte[] side = new byte[rows.length];
+            for (int trial = 0; trial < trials; trial++) {
+                double objective = twoMeans(random, side);
+                if (objective > bestObjective) {
+                    bestObjective = objective;
+                    best = side.clone();
+                }
+            }
+            if (best == null) return null;
+
+            int ones = 0;
+            for (byte s : best) {
+                ones += s;
+            }
+            int[] zero = new int[rows.length - ones];
+            int[] one = new int[ones];
+            for (int i = 0, z = 0, o = 0; i < rows.length; i++) {
+                if (best[i] == 0) zero[z++] = rows[i];
+                else one[o++] = rows[i];
+            }
+            return zero.length >= one.length ? new int[][]{zero, one} : new int[][]{one, zero};
+        }
+
+        // Spherical 2-means, trả về tổng cosine tới tâm gần nhất, -inf nếu một nửa rỗng
+        private double twoMeans(Random random, byte[] side) {
+            int n = rows.length;
+            float[][] centroids = new float[2][];
+            centroids[0] = new float[data.numCols()];
+            data.copyRow(rows[random.nextInt(n)], centroids[0]);
+
+            // Tâm thứ hai theo k-means++: xác suất tỉ lệ với khoảng cách cosine tới tâm thứ nhất
+            double[] distance = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                distance[i] = Math.max(0.0, 1.0 - data.dot(rows[i], centroids[0]));
+                total += distance[i];
+            }
+            if (total <= 0) return Double.NEGATIVE_INFINITY;
+            int chosen = n - 1;
+            double target = random.nextDouble() * total;
+            for (int i = 0; i < n; i++) {
+                target -= distance[i];
+                if (target <= 0) {
+                    chosen = i;
+                    break;
+                }
+            }
+            centroids[1] = new float[data.numCols()];
+            data.copyRow(rows[chosen], centroids[1]);
+
+            Arrays.fill(side, (byte) -1);
+            double objective = 0;
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                int changed = 0;
+                int ones = 0;
+                objective = 0;
+                for (int i = 0; i < n; i++) {
+                    double s0 = data.dot(rows[i], centroids[0]);
+                    double s1 = data.dot(rows[i], centroids[1]);
+                    byte s = s1 > s0 ? (byte) 1 : (byte) 0;
+                    objective += Math.max(s0, s1);
+                    ones += s;
+                    if (side[i] != s) {
+                        side[i] = s;
+                        changed++;
+                    }
+                }
+                if (ones == 0 || ones == n) return Double.NEGATIVE_INFINITY;
+                if (changed == 0) break;
+
+                double[][] sums = new double[2][data.numCols()];
+                for (int i = 0; i < n; i++) {
+                    data.addRow(rows[i], sums[side[i]]);
+                }
+                for (int c = 0; c < 2; c++) {
+                    double norm = norm(sums[c]);
+                    if (norm == 0) continue;
+                    for (int d = 0; d < sums[c].length; d++) {
+                        centroids[c][d] = (float) (sums[c][d] / norm);
+                    }
+                }
+            }
+            return objective;
+        }
+
+        // Các term có tổng trọng số TF-IDF lớn nhất trong nút
+        private List<String> topTerms() {
+            double[] weights = sum(matrix, rows);
+            int count = Math.min(topTerms, weights.length);
+            int[] best = new int[count];
+            int size = 0;
+            for (int col = 0; col < weights.length; col++) {
+                if (weights[col] <= 0) continue;
+                if (size < count) {
+                    size++;
+                } else if (weights[col] <= weights[best[count - 1]]) {
+                    continue;
+                }
+                int i = size - 1;
+                while (i > 0 && weights[best[i - 1]] < weights[col]) {
+                    best[i] = best[i - 1];
+                    i--;
+                }
+                best[i] = col;
+            }
+            List<String> terms = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                terms.add(matrix.term(best[i]));
+            }
+            return terms;
+        }
+    }
+
+    private static double[] sum(SparseMatrix matrix, int[] rows) {
+        double[] sum = new double[matrix.numCols()];
+        for (int row : rows) {
+            matrix.addRow(row, sum);
+        }
+        return sum;
+    }
+
+    private static double norm(double[] vector) {
+        double norm = 0;
+        for (double v : vector) {
+            norm += v * v;
+        }
+        return Math.sqrt(norm);
+    }
+}
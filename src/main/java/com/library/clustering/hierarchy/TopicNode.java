@@ -0,0 +1,25 @@
+package com.library.clustering.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One node of a topic tree. The path of the root of flat cluster {@code c} is {@code "c."};
+ * each split appends {@code 0} for the larger half and {@code 1} for the other, so the
+ * documents of a subtree are exactly those whose path starts with the node's path.
+ */
+@Getter
+@AllArgsConstructor
+public class TopicNode {
+
+    private final String path;
+    private final int cluster;
+    private final int depth;
+    private final int size;
+    // Cosine trung bình của tài liệu tới tâm của nút
+    private final double cohesion;
+    private final boolean leaf;
+    private final List<String> topTerms;
+}
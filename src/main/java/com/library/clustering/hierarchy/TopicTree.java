@@ -0,0 +1,18 @@
+package com.library.clustering.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Result of {@link BisectingKMeans}: the nodes of every cluster's tree in pre-order and the
+ * leaf path of each matrix row, {@code null} for unclustered rows.
+ */
+@Getter
+@AllArgsConstructor
+public class TopicTree {
+
+    private final List<TopicNode> nodes;
+    private final String[] paths;
+}
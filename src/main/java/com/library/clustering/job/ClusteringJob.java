@@ -0,0 +1,125 @@
+package com.library.clustering.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.library.clustering.ClusteringPhase;
+import com.library.clustering.ClusteringProgress;
+import com.library.entity.ClusteringSweepResult;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * State of one asynchronous clustering run, updated by the worker thread and read by the
+ * polling endpoint.
+ */
+@Getter
+public class ClusteringJob implements ClusteringProgress {
+
+    private final String id = UUID.randomUUID().toString();
+    // Với sweep: k nhỏ nhất cho tới khi chọn xong, sau đó là k được chọn
+    private volatile int numClusters;
+    // Khoảng k của sweep, null với lần phân cụm thường
+    private final Integer minClusters;
+    private final Integer maxClusters;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile ClusteringJobStatus status = ClusteringJobStatus.QUEUED;
+    private volatile ClusteringPhase phase;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    // Inertia sau mỗi vòng lặp KMeans
+    private final List<Double> inertia = new ArrayList<>();
+
+    // Điểm của từng k đã thử trong sweep
+    private final List<ClusteringSweepResult> sweepResults = new ArrayList<>();
+
+    @JsonIgnore
+    private volatile Future<?> future;
+
+    public ClusteringJob(int numClusters) {
+        this.numClusters = numClusters;
+        this.minClusters = null;
+        this.maxClusters = null;
+    }
+
+    public ClusteringJob(int minClusters, int maxClusters) {
+        this.numClusters = minClusters;
+        this.minClusters = minClusters;
+        this.maxClusters = maxClusters;
+    }
+
+    public boolean isSweep() {
+        return minClusters != null;
+    }
+
+    public synchronized List<ClusteringSweepResult> getSweepResults() {
+        return new ArrayList<>(sweepResults);
+    }
+
+    public synchronized List<Double> getInertia() {
+        return new ArrayList<>(inertia);
+    }
+
+    public int getIterations() {
+        synchronized (this) {
+            return inertia.size();
+        }
+    }
+
+    @Override
+    public void phase(ClusteringPhase phase) {
+        checkCancelled();
+        this.phase = phase;
+    }
+
+    @Override
+    public void iteration(int iteration, double value) {
+        synchronized (this) {
+            inertia.add(value);
+        }
+        checkCancelled();
+    }
+
+    @Override
+    public void sweepPoint(ClusteringSweepResult point) {
+        synchronized (this) {
+            sweepResults.add(point);
+        }
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void setNumClusters(int numClusters) {
+        this.numClusters = numClusters;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = ClusteringJobStatus.RUNNING;
+    }
+
+    void markFinished(ClusteringJobStatus status, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.clustering.job;
+
+import lombok.Getter;
+
+@Getter
+public class ClusteringJobRejectedException extends RuntimeException {
+
+    // Job đang chạy khiến yêu cầu mới bị từ chối, null nếu hàng đợi đầy
+    private final String activeJobId;
+
+    public ClusteringJobRejectedException(String message, String activeJobId) {
+        super(message);
+        this.activeJobId = activeJobId;
+    }
+}
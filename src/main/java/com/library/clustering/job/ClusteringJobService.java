@@ -0,0 +1,126 @@
+package com.library.clustering.job;
+
+import com.library.clustering.ClusteringService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs clustering on a bounded background executor. Only one run may be queued or running at
+ * a time since every run rewrites all cluster labels; further submissions are rejected until
+ * it finishes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusteringJobService {
+
+    // Số job đã kết thúc được giữ lại để tra cứu
+    private static final int MAX_FINISHED_JOBS = 20;
+
+    private final ClusteringService clusteringService;
+    private final ExecutorService clusteringJobExecutor;
+
+    private final Map<String, ClusteringJob> jobs = new LinkedHashMap<>();
+
+    public synchronized ClusteringJob submit(int numClusters) {
+        return submit(new ClusteringJob(numClusters));
+    }
+
+    /**
+     * Submits a sweep over {@code [minClusters, maxClusters]} that keeps the best k.
+     *
+     * @throws IllegalArgumentException unless {@code 2 <= minClusters <= maxClusters}
+     */
+    public synchronized ClusteringJob submitSweep(int minClusters, int maxClusters) {
+        ClusteringService.checkSweepRange(minClusters, maxClusters);
+        return submit(new ClusteringJob(minClusters, maxClusters));
+    }
+
+    private ClusteringJob submit(ClusteringJob job) {
+        for (ClusteringJob active : jobs.values()) {
+            if (active.getStatus().isActive()) {
+                throw new ClusteringJobRejectedException("Clustering job " + active.getId() + " is already "
+                        + active.getStatus().name().toLowerCase(), active.getId());
+            }
+        }
+
+        try {
+            job.setFuture(clusteringJobExecutor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            throw new ClusteringJobRejectedException("Clustering queue is full", null);
+        }
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        return job;
+    }
+
+    public synchronized ClusteringJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public synchronized List<ClusteringJob> getJobs() {
+        List<ClusteringJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(ClusteringJob::getSubmittedAt));
+        Collections.reverse(result);
+        return result;
+    }
+
+    public synchronized ClusteringJob cancel(String id) {
+        ClusteringJob job = jobs.get(id);
+        if (job == null || !job.getStatus().isActive()) {
+            return job;
+        }
+        job.requestCancel();
+        // Job chưa bắt đầu thì hủy luôn, job đang chạy sẽ dừng ở lần kiểm tra tiếp theo
+        if (job.getStatus() == ClusteringJobStatus.QUEUED && job.getFuture().cancel(false)) {
+            job.markFinished(ClusteringJobStatus.CANCELLED, null);
+        }
+        return job;
+    }
+
+    private void run(ClusteringJob job) {
+        if (job.isCancelled()) {
+            job.markFinished(ClusteringJobStatus.CANCELLED, null);
+            return;
+        }
+        job.markRunning();
+        try {
+            if (job.isSweep()) {
+                job.setNumClusters(clusteringService.performSweep(job.getMinClusters(), job.getMaxClusters(), job));
+            } else {
+                clusteringService.performClustering(job.getNumClusters(), job);
+            }
+            job.markFinished(ClusteringJobStatus.COMPLETED, null);
+        } catch (CancellationException e) {
+            job.markFinished(ClusteringJobStatus.CANCELLED, null);
+        } catch (Exception e) {
+            job.markFinished(ClusteringJobStatus.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+            log.error("Clustering job {} failed", job.getId(), e);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        int finished = 0;
+        for (ClusteringJob job : jobs.values()) {
+            if (!job.getStatus().isActive()) finished++;
+        }
+        for (Iterator<ClusteringJob> it = jobs.values().iterator(); it.hasNext() && finished > MAX_FINISHED_JOBS; ) {
+            if (!it.next().getStatus().isActive()) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.clustering.job;
+
+public enum ClusteringJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+    public boolean isActive() {
+        return this == QUEUED || this == RUNNING;
+    }
+}
@@ -0,0 +1,11 @@
+package com.library.clustering.reduction;
+
+import com.library.clustering.SparseMatrix;
+
+/**
+ * Learns a {@link Projection} from the TF-IDF feature space to a few dense dimensions.
+ */
+public interface DimensionReducer {
+
+    Projection fit(SparseMatrix data);
+}
@@ -0,0 +1,108 @@
+package com.library.clustering.reduction;
+
+import com.library.clustering.SparseMatrix;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Linear map from the TF-IDF features to {@code dimensions} dense components. Weights are
+ * stored feature-major, so a sparse row is projected by adding up the weight rows of its
+ * features. Projected rows are L2-normalised again, which keeps the cosine-based engines,
+ * the quality metrics and {@code ClusteringModel} working unchanged on the result.
+ */
+public class Projection {
+
+    private final String method;
+    private final int numFeatures;
+    private final int dimensions;
+    // weights[feature * dimensions + d]
+    private final float[] weights;
+
+    public Projection(String method, int numFeatures, int dimensions, float[] weights) {
+        this.method = method;
+        this.numFeatures = numFeatures;
+        this.dimensions = dimensions;
+        this.weights = weights;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /** Projects every row of a sparse matrix into a dense matrix with the same row order. */
+    public SparseMatrix project(SparseMatrix data, ForkJoinPool pool) {
+        int n = data.numRows();
+        float[] reduced = new float[n * dimensions];
+        boolean[] empty = new boolean[n];
+        int[] indices = data.indices();
+        float[] values = data.values();
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(row -> {
+            int start = data.rowStart(row);
+            empty[row] = !project(indices, values, start, data.rowEnd(row) - start, reduced, row * dimensions);
+        })).join();
+
+        BitSet emptyRows = new BitSet(n);
+        for (int row = 0; row < n; row++) {
+            if (empty[row]) emptyRows.set(row);
+        }
+        return SparseMatrix.dense(data.ids(), reduced, dimensions, emptyRows);
+    }
+
+    /**
+     * Projects the sparse vector {@code columns/values[off, off + length)} into
+     * {@code target[targetOff, targetOff + dimensions)} and normalises it. Returns
+     * {@code false} when the projection is zero.
+     */
+    public boolean project(int[] columns, float[] values, int off, int length, float[] target, int targetOff) {
+        double[] sum = new double[dimensions];
+        for (int p = off, end = off + length; p < end; p++) {
+            double value = values[p];
+            for (int d = 0, w = columns[p] * dimensions; d < dimensions; d++, w++) {
+                sum[d] += value * weights[w];
+            }
+        }
+        double norm = 0.0;
+        for (double v : sum) {
+            norm += v * v;
+        }
+        if (norm == 0.0) return false;
+        norm = Math.sqrt(norm);
+        for (int d = 0; d < dimensions; d++) {
+            target[targetOff + d] = (float) (sum[d] / norm);
+        }
+        return true;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(method);
+        out.writeInt(numFeatures);
+        out.writeInt(dimensions);
+        for (float weight : weights) {
+            out.writeFloat(weight);
+        }
+    }
+
+    public static Projection read(DataInput in) throws IOException {
+        String method = in.readUTF();
+        int numFeatures = in.readInt();
+        int dimensions = in.readInt();
+        float[] weights = new float[numFeatures * dimensions];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = in.readFloat();
+        }
+        return new Projection(method, numFeatures, dimensions, weights);
+    }
+}
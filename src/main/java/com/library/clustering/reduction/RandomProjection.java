@@ -0,0 +1,43 @@
+package com.library.clustering.reduction;
+
+import com.library.clustering.SparseMatrix;
+
+import java.util.Random;
+
+/**
+ * Very sparse random projection (Li, Hastie and Church): each weight is
+ * {@code ±sqrt(s / dimensions)} with probability {@code 1 / 2s} each and 0 otherwise, with
+ * {@code s = sqrt(numFeatures)}. Cosines are preserved in expectation and no pass over the
+ * data is needed to fit it, so it is the cheap choice; {@link RandomizedSvd} gives better
+ * clusters for the same number of dimensions.
+ */
+public class RandomProjection implements DimensionReducer {
+
+    private final int dimensions;
+    private final long seed;
+
+    public RandomProjection(int dimensions, long seed) {
+        this.dimensions = dimensions;
+        this.seed = seed;
+    }
+
+    @Override
+    public Projection fit(SparseMatrix data) {
+        int numFeatures = data.numCols();
+        double s = Math.max(1.0, Math.sqrt(numFeatures));
+        float scale = (float) Math.sqrt(s / dimensions);
+        double probability = 1.0 / (2.0 * s);
+
+        Random random = new Random(seed);
+        float[] weights = new float[numFeatures * dimensions];
+        for (int i = 0; i < weights.length; i++) {
+            double u = random.nextDouble();
+            if (u < probability) {
+                weights[i] = scale;
+            } else if (u < 2 * probability) {
+                weights[i] = -scale;
+            }
+        }
+        return new Projection("random", numFeatures, dimensions, weights);
+    }
+}
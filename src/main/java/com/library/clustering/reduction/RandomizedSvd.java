@@ -0,0 +1,236 @@
+package com.library.clustering.reduction;
+
+import com.library.clustering.SparseMatrix;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Truncated SVD (latent semantic analysis) by randomized range finding (Halko, Martinsson and
+ * Tropp): the range of {@code A} is sampled with {@code dimensions + oversampling} Gaussian
+ * vectors, sharpened by {@code powerIterations} rounds of {@code A Aᵀ}, and the SVD of the
+ * small matrix {@code B = Qᵀ A} is solved exactly. The resulting projection maps a TF-IDF row
+ * {@code a} to {@code a V}, its coordinates {@code U Σ} on the top singular directions.
+ * <p>
+ * Costs {@code O(nnz · l · (2q + 2) + n · l²)} for {@code l = dimensions + oversampling}, and
+ * only {@code O((n + D) · l)} memory since {@code A} is never densified.
+ */
+public class RandomizedSvd implements DimensionReducer {
+
+    private static final int MAX_SWEEPS = 50;
+
+    private final ForkJoinPool pool;
+    private final int dimensions;
+    private final int oversampling;
+    private final int powerIterations;
+    private final long seed;
+
+    public RandomizedSvd(ForkJoinPool pool, int dimensions, int oversampling, int powerIterations, long seed) {
+        this.pool = pool;
+        this.dimensions = dimensions;
+        this.oversampling = oversampling;
+        this.powerIterations = powerIterations;
+        this.seed = seed;
+    }
+
+    @Override
+    public Projection fit(SparseMatrix data) {
+        int numFeatures = data.numCols();
+        int l = Math.min(dimensions + oversampling, Math.min(data.numRows(), numFeatures));
+        int k = Math.min(dimensions, l);
+
+        // B1: Y = A Ω với Ω ngẫu nhiên Gauss, các ma trận cao được lưu theo cột
+        Random random = new Random(seed);
+        double[][] omega = new double[l][numFeatures];
+        for (double[] column : omega) {
+            for (int f = 0; f < numFeatures; f++) {
+                column[f] = random.nextGaussian();
+            }
+        }
+        double[][] q = multiply(data, omega);
+        orthonormalize(q);
+
+        // B2: Lặp lũy thừa để tách các giá trị kỳ dị lớn khỏi phần còn lại
+        for (int i = 0; i < powerIterations; i++) {
+            double[][] z = multiplyTransposed(data, q);
+            orthonormalize(z);
+            q = multiply(data, z);
+            orthonormalize(q);
+        }
+
+        // B3: Bᵀ = Aᵀ Q (D x l), SVD của B qua phân rã trị riêng của B Bᵀ (l x l)
+        double[][] bt = multiplyTransposed(data, q);
+        double[][] gram = new double[l][l];
+        pool.submit(() -> IntStream.range(0, l).parallel().forEach(i -> {
+            for (int j = 0; j <= i; j++) {
+                gram[i][j] = dot(bt[i], bt[j]);
+            }
+        })).join();
+        for (int i = 0; i < l; i++) {
+            for (int j = i + 1; j < l; j++) {
+                gram[i][j] = gram[j][i];
+            }
+        }
+        double[][] eigenvectors = new double[l][l];
+        double[] eigenvalues = jacobi(gram, eigenvectors);
+        Integer[] order = new Integer[l];
+        for (int i = 0; i < l; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(eigenvalues[b], eigenvalues[a]));
+
+        // B4: V = Bᵀ W Σ⁻¹, chỉ giữ k hướng đầu tiên
+        float[] weights = new float[numFeatures * k];
+        for (int d = 0; d < k; d++) {
+            int e = order[d];
+            double sigma = Math.sqrt(Math.max(0.0, eigenvalues[e]));
+            if (sigma < 1e-12) continue;
+            double[] v = new double[numFeatures];
+            for (int i = 0; i < l; i++) {
+                double w = eigenvectors[i][e];
+                double[] column = bt[i];
+                for (int f = 0; f < numFeatures; f++) {
+                    v[f] += column[f] * w;
+                }
+            }
+            for (int f = 0; f < numFeatures; f++) {
+                weights[f * k + d] = (float) (v[f] / sigma);
+            }
+        }
+        return new Projection("svd", numFeatures, k, weights);
+    }
+
+    // A Z với Z có numCols hàng, trả về n x l theo cột
+    private double[][] multiply(SparseMatrix data, double[][] z) {
+        int n = data.numRows();
+        int l = z.length;
+        double[][] y = new double[l][n];
+        int[] indices = data.indices();
+        float[] values = data.values();
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(row -> {
+            int start = data.rowStart(row);
+            int end = data.rowEnd(row);
+            for (int j = 0; j < l; j++) {
+                double[] column = z[j];
+                double sum = 0.0;
+                for (int p = start; p < end; p++) {
+                    sum += values[p] * column[indices[p]];
+                }
+                y[j][row] = sum;
+            }
+        })).join();
+        return y;
+    }
+
+    // Aᵀ Y với Y có n hàng, trả về numCols x l theo cột; mỗi cột do một task tính nên không tranh chấp
+    private double[][] multiplyTransposed(SparseMatrix data, double[][] y) {
+        int n = data.numRows();
+        int l = y.length;
+        double[][] z = new double[l][data.numCols()];
+        int[] indices = data.indices();
+        float[] values = data.values();
+        pool.submit(() -> IntStream.range(0, l).parallel().forEach(j -> {
+            double[] column = y[j];
+            double[] target = z[j];
+            for (int row = 0; row < n; row++) {
+                double weight = column[row];
+                if (weight == 0.0) continue;
+                for (int p = data.rowStart(row), end = data.rowEnd(row); p < end; p++) {
+                    target[indices[p]] += values[p] * weight;
+                }
+            }
+        })).join();
+        return z;
+    }
+
+    // Gram-Schmidt cải tiến; cột phụ thuộc tuyến tính được đặt về 0
+    private void orthonormalize(double[][] columns) {
+        for (int j = 0; j < columns.length; j++) {
+            double[] column = columns[j];
+            double norm = Math.sqrt(dot(column, column));
+            if (norm < 1e-10) {
+                Arrays.fill(column, 0.0);
+                continue;
+            }
+            for (int i = 0; i < column.length; i++) {
+                column[i] /= norm;
+            }
+            int next = j + 1;
+            pool.submit(() -> IntStream.range(next, columns.length).parallel().forEach(c -> {
+                double[] other = columns[c];
+                double projection = dot(column, other);
+                for (int i = 0; i < other.length; i++) {
+                    other[i] -= projection * column[i];
+                }
+            })).join();
+        }
+    }
+
+    /**
+     * Cyclic Jacobi eigenvalue algorithm for a symmetric matrix, which is destroyed. Returns
+     * the eigenvalues; eigenvector {@code e} is column {@code e} of {@code vectors}.
+     */
+    static double[] jacobi(double[][] a, double[][] vectors) {
+        int n = a.length;
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(vectors[i], 0.0);
+            vectors[i][i] = 1.0;
+        }
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            double offDiagonal = 0.0;
+            double diagonal = 0.0;
+            for (int i = 0; i < n; i++) {
+                diagonal += a[i][i] * a[i][i];
+                for (int j = i + 1; j < n; j++) {
+                    offDiagonal += a[i][j] * a[i][j];
+                }
+            }
+            if (offDiagonal <= 1e-22 * diagonal) break;
+
+            for (int p = 0; p < n; p++) {
+                for (int r = p + 1; r < n; r++) {
+                    double apr = a[p][r];
+                    if (Math.abs(apr) < 1e-300) continue;
+                    double theta = (a[r][r] - a[p][p]) / (2.0 * apr);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+                    if (theta == 0.0) t = 1.0;
+                    double c = 1.0 / Math.sqrt(t * t + 1.0);
+                    double s = t * c;
+                    for (int i = 0; i < n; i++) {
+                        double aip = a[i][p];
+                        double air = a[i][r];
+                        a[i][p] = c * aip - s * air;
+                        a[i][r] = s * aip + c * air;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        double api = a[p][i];
+                        double ari = a[r][i];
+                        a[p][i] = c * api - s * ari;
+                        a[r][i] = s * api + c * ari;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        double vip = vectors[i][p];
+                        double vir = vectors[i][r];
+                        vectors[i][p] = c * vip - s * vir;
+                        vectors[i][r] = s * vip + c * vir;
+                    }
+                }
+            }
+        }
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = a[i][i];
+        }
+        return values;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    // Dung lượng ước tính tối đa của các tài liệu được cache (tiêu đề và nội dung), 0 để tắt
+    private int documentMaxMb = 64;
+
+    // Số danh mục tối đa được cache, 0 để tắt
+    private int categoryMaxEntries = 10000;
+}
@@ -0,0 +1,43 @@
+package com.library.config;
+
+import com.library.clustering.MinHashIndex;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ClusteringConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool clusteringPool(ClusteringProperties properties) {
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism);
+    }
+
+    @Bean(destroyMethod = "close")
+    public MinHashIndex minHashIndex(ClusteringProperties properties) throws IOException {
+        return new MinHashIndex(Path.of(properties.getLshIndexPath()), properties.getLshBands(),
+                properties.getLshRowsPerBand(), properties.getSeed());
+    }
+
+    // Một luồng chạy job phân cụm, hàng đợi giới hạn
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService clusteringJobExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), runnable -> {
+            Thread thread = new Thread(runnable, "clustering-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
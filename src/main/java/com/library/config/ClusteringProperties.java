@@ -0,0 +1,119 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "clustering")
+public class ClusteringProperties {
+
+    // Số từ giữ lại sau khi vector hóa (tương đương setWordsToKeep của Weka)
+    private int maxFeatures = 1000;
+
+    private int minDocumentFrequency = 2;
+
+    private double maxDocumentFrequencyRatio = 0.5;
+
+    private String vectorStorePath = "data-store/term-vectors.bin";
+
+    // Giảm chiều trước khi phân cụm: RANDOM_PROJECTION nhanh, SVD (LSA) cho cụm tốt hơn, NONE giữ nguyên TF-IDF
+    private Reduction reduction = Reduction.NONE;
+
+    // Số chiều sau khi giảm, thường 64 - 256
+    private int reductionDimensions = 128;
+
+    // Số vector ngẫu nhiên lấy thêm khi tính SVD, tăng độ chính xác
+    private int svdOversampling = 10;
+
+    private int svdPowerIterations = 2;
+
+    // AUTO chọn MINI_BATCH khi số tài liệu vượt miniBatchThreshold
+    private Engine engine = Engine.AUTO;
+
+    private int maxIterations = 100;
+
+    // Dừng khi tâm cụm dịch chuyển ít hơn ngưỡng này
+    private double tolerance = 1e-4;
+
+    private int miniBatchSize = 2048;
+
+    private int miniBatchThreshold = 50_000;
+
+    private long seed = 42;
+
+    // Silhouette được ước lượng từ mẫu phân tầng khi số tài liệu vượt ngưỡng này, 0 = luôn tính chính xác
+    private int silhouetteSampleSize = 5000;
+
+    // 0 = số lõi CPU
+    private int parallelism = 0;
+
+    // Số tài liệu tương tự tối đa được xếp hạng và lưu cache cho mỗi tài liệu
+    private int similarDocuments = 100;
+
+    // Số danh sách kết quả tương tự được giữ trong cache (LRU)
+    private int similarityCacheSize = 10_000;
+
+    // AUTO dùng LSH khi số tài liệu vượt lshThreshold, EXACT luôn quét chỉ mục ngược
+    private SimilaritySearch similaritySearch = SimilaritySearch.AUTO;
+
+    private int lshThreshold = 200_000;
+
+    // Nhiều band hơn: recall cao hơn nhưng nhiều ứng viên hơn
+    private int lshBands = 64;
+
+    // Nhiều dòng mỗi band hơn: bucket chọn lọc hơn, recall thấp hơn
+    private int lshRowsPerBand = 2;
+
+    // Số ứng viên tối đa được xếp hạng lại bằng cosine cho mỗi truy vấn
+    private int lshCandidates = 1000;
+
+    private String lshIndexPath = "data-store/minhash.bin";
+
+    // Mô hình (term, idf, tâm cụm) của lần phân cụm gần nhất, dùng để gán cụm khi lưu tài liệu
+    private String modelPath = "data-store/cluster-model.bin";
+
+    // Đề nghị phân cụm lại khi cosine trung bình của tài liệu mới giảm quá tỉ lệ này so với lúc huấn luyện
+    private double driftThreshold = 0.2;
+
+    // Số tài liệu được gán tối thiểu trước khi xét drift
+    private int driftMinAssignments = 50;
+
+    // Đề nghị phân cụm lại khi số tài liệu được gán online vượt tỉ lệ này của tập huấn luyện
+    private double retrainRatio = 0.2;
+
+    // Số giá trị k được phân cụm song song trong một sweep
+    private int sweepParallelism = 2;
+
+    // Dừng sweep sau số k liên tiếp này mà silhouette tốt nhất không tăng thêm sweepMinImprovement
+    private int sweepPatience = 3;
+
+    private double sweepMinImprovement = 0.002;
+
+    // Số lần chia đôi tối đa dưới mỗi cụm khi dựng cây chủ đề; 0 = không dựng cây
+    private int hierarchyDepth = 3;
+
+    // Nút có ít tài liệu hơn thì không chia tiếp
+    private int hierarchyMinNodeSize = 40;
+
+    // Số lần thử mỗi phép chia, giữ lần có tổng cosine lớn nhất
+    private int hierarchyTrials = 3;
+
+    // Số term tiêu biểu lưu cho mỗi nút
+    private int hierarchyTopTerms = 8;
+
+    public enum Reduction {
+        NONE, RANDOM_PROJECTION, SVD
+    }
+
+    public enum Engine {
+        AUTO, HAMERLY, MINI_BATCH
+    }
+
+    public enum SimilaritySearch {
+        AUTO, EXACT, LSH
+    }
+}
@@ -0,0 +1,32 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "content")
+public class ContentProperties {
+
+    // DATABASE: nội dung nằm trong cột documents.content, MAPPED: nằm trong các file segment được map vào bộ nhớ
+    private Storage storage = Storage.DATABASE;
+
+    // Thư mục chứa các file segment
+    private String path = "data-store/content";
+
+    // Dung lượng mỗi segment (MB), tối đa 2047 vì một MappedByteBuffer chỉ đánh chỉ số bằng int
+    private int segmentSizeMb = 256;
+
+    // Khi dùng MAPPED: chuyển nội dung còn nằm trong database sang segment lúc khởi động
+    private boolean migrateOnStartup = true;
+
+    // Kích thước mỗi đoạn (nghìn ký tự) khi trang xem tài liệu nạp nội dung theo từng đoạn
+    private int viewChunkKb = 64;
+
+    public enum Storage {
+        DATABASE, MAPPED
+    }
+}
@@ -1,92 +1,57 @@
 package com.library.config;
 
 
-import com.library.entity.Category;
-import com.library.entity.Document;
-import com.library.repository.CategoryRepository;
-import com.library.repository.DocumentRepository;
+import com.library.content.ContentStore;
+import com.library.dedup.DuplicateDetector;
+import com.library.ingest.DocumentImporter;
+import com.library.ingest.ImportReport;
 import lombok.AllArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
 
+@Slf4j
 @Component
+@Order(1)
 @AllArgsConstructor
 public class DataInitializer implements CommandLineRunner {
 
-    private final DocumentRepository documentRepository;
+    private final DocumentImporter documentImporter;
 
-    private final CategoryRepository categoryRepository;
+    private final DatasetProperties properties;
 
-    private static final String DATA_PATH = "/Users/lethitranthuy/Desktop/digital_library/src/main/resources/data/20news-bydate-train";
+    private final ContentStore contentStore;
 
-    @Override
-    public void run(String... args) throws Exception {
-        if (documentRepository.count() > 0) return;
+    private final ContentProperties contentProperties;
 
-        Map<String, Category> categories = createCategories();
-        loadDocuments(categories);
+    private final DuplicateDetector duplicateDetector;
 
-        System.out.println("Data initialization completed.");
-    }
-
-    private Map<String, Category> createCategories() {
-        Map<String, Category> categories = new HashMap<>();
-        File trainDir = new File(DATA_PATH);
-        if (!trainDir.exists() || !trainDir.isDirectory()) {
-            throw new IllegalStateException("Data directory not found: " + DATA_PATH);
+    @Override
+    public void run(String... args) throws Exception {
+        // Chuyển nội dung các dòng nạp trước khi bật ContentStore ra khỏi database
+        if (contentStore.isEnabled() && contentProperties.isMigrateOnStartup()) {
+            documentImporter.moveContentToStore();
         }
 
-        for (File categoryDir : trainDir.listFiles(File::isDirectory)) {
-            Category category = new Category();
-            category.setName(categoryDir.getName());
-            categories.put(categoryDir.getName(), categoryRepository.save(category));
+        // Tính SimHash cho các dòng nạp trước khi bật phát hiện trùng lặp, rồi kiểm tra chúng
+        int fingerprinted = duplicateDetector.fingerprintMissing();
+        if (fingerprinted > 0) {
+            log.info("Fingerprinted {} documents, {} near-duplicates found", fingerprinted, duplicateDetector.detect());
         }
-        return categories;
-    }
 
-    private void loadDocuments(Map<String, Category> categories) throws Exception {
-        File trainDir = new File(DATA_PATH);
-        int maxDocuments = 500; // Giới hạn 500 tài liệu
-        int count = 0;
-        for (File categoryDir : trainDir.listFiles(File::isDirectory)) {
-            Category category = categories.get(categoryDir.getName());
-            for (File file : categoryDir.listFiles(File::isFile)) {
-                if (count >= maxDocuments) break;
-                try {
-                    Document doc = new Document();
-                    String content = Files.readString(file.toPath(), StandardCharsets.ISO_8859_1);
-                    String title = extractSubject(content);
-                    if (title.isEmpty()) {
-                        title = file.getName();
-                    }
-                    doc.setTitle(title);
-                    doc.setFileName(file.getName());
-                    doc.setContent(content);
-                    doc.setCategory(category);
-                    documentRepository.save(doc);
-                    count++;
-                } catch (Exception e) {
-                    System.err.println("Error reading file " + file.getName() + ": " + e.getMessage());
-                }
-            }
-            if (count >= maxDocuments) break;
-        }
-    }
+        if (!properties.isImportOnStartup()) return;
 
-    private String extractSubject(String content) {
-        String[] lines = content.split("\n");
-        for (String line : lines) {
-            if (line.startsWith("Subject:")) {
-                return line.substring("Subject:".length()).trim();
-            }
+        // Chạy lại mỗi lần khởi động: các file đã nạp được bỏ qua, lần nạp dở dang sẽ được tiếp tục
+        Path root = Path.of(properties.getPath());
+        if (!Files.isDirectory(root)) {
+            throw new IllegalStateException("Data directory not found: " + root);
         }
-        return "";
+        ImportReport report = documentImporter.importDirectory(root);
+
+        log.info("Data initialization completed: {}", report);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "dataset")
+public class DatasetProperties {
+
+    // Thư mục gốc, mỗi thư mục con là một category
+    private String path = "src/main/resources/data/20news-bydate-train";
+
+    // Nạp dữ liệu khi khởi động
+    private boolean importOnStartup = true;
+
+    // 0 = không giới hạn
+    private int maxDocuments = 0;
+
+    // 0 = số lõi CPU
+    private int readerThreads = 0;
+
+    private int batchSize = 500;
+
+    // Số tài liệu đã đọc chờ ghi tối đa, giới hạn bộ nhớ khi luồng ghi chậm hơn luồng đọc
+    private int queueCapacity = 2000;
+}
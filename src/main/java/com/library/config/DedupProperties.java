@@ -0,0 +1,25 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "dedup")
+public class DedupProperties {
+
+    // Đánh dấu tài liệu gần trùng khi nạp và khi lưu
+    private boolean enabled = true;
+
+    // Số bit SimHash khác nhau tối đa để coi là gần trùng
+    private int maxDistance = 3;
+
+    // Số token liên tiếp trong một shingle
+    private int shingleSize = 3;
+
+    // Văn bản ít shingle hơn không có dấu vân tay và không bao giờ bị coi là trùng
+    private int minShingles = 10;
+}
@@ -0,0 +1,16 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "monitoring")
+public class MonitoringProperties {
+
+    // Cảnh báo khi một request chạy nhiều câu SQL hơn ngưỡng này, 0 = tắt
+    private int queryWarningThreshold = 20;
+}
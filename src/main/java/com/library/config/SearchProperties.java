@@ -0,0 +1,32 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+
+    // Thư mục chứa các segment và manifest của chỉ mục toàn văn
+    private String indexPath = "data-store/search-index";
+
+    // Số tài liệu trong bộ đệm trước khi ghi thành một segment
+    private int flushThreshold = 1000;
+
+    // Số segment tối đa trước khi gộp
+    private int mergeFactor = 8;
+
+    // Tham số BM25
+    private double k1 = 1.2;
+    private double b = 0.75;
+
+    // Mỗi lần xuất hiện trong tiêu đề được tính như số lần này trong nội dung
+    private int titleBoost = 3;
+
+    // Số kết quả tối đa được xếp hạng cho một truy vấn
+    private int maxResults = 1000;
+}
@@ -0,0 +1,15 @@
+package com.library.config;
+
+import com.library.text.Analyzer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TextConfig {
+
+    // Dùng chung cho nạp dữ liệu, vector hóa TF-IDF và tìm kiếm toàn văn
+    @Bean
+    public Analyzer analyzer(TextProperties properties) {
+        return new Analyzer(properties.getMinTokenLength(), properties.getMaxTokenLength(), properties.isStemming());
+    }
+}
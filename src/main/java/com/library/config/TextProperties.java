@@ -0,0 +1,19 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "text")
+public class TextProperties {
+
+    private int minTokenLength = 2;
+    private int maxTokenLength = 40;
+
+    // Đổi giá trị này sẽ làm term vector và chỉ mục tìm kiếm được xây dựng lại
+    private boolean stemming = false;
+}
@@ -0,0 +1,22 @@
+package com.library.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "upload")
+public class UploadProperties {
+
+    // Thư mục chứa các file tải lên đang chờ nạp, file được xóa sau khi nạp xong
+    private String path = "data-store/uploads";
+
+    // Số file chờ nạp tối đa, tải lên thêm sẽ bị từ chối cho đến khi hàng đợi vơi bớt
+    private int queueCapacity = 4;
+
+    // Kích thước tối đa của một tài liệu trong file tải lên
+    private int maxDocumentMb = 10;
+}
@@ -0,0 +1,18 @@
+package com.library.content;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Position of a record appended to the {@link ContentStore}, stored in the
+ * {@code content_segment}, {@code content_offset} and {@code content_length} columns.
+ */
+@Getter
+@AllArgsConstructor
+public class ContentLocation {
+
+    private final int segment;
+    private final long offset;
+    // Số byte của nội dung, không tính header của bản ghi
+    private final int length;
+}
@@ -0,0 +1,16 @@
+package com.library.content;
+
+/**
+ * Where the text of a document lives: inline in {@code documents.content}, or in a
+ * {@link ContentStore} segment when {@link #getContentSegment()} is set.
+ */
+public interface ContentReference {
+
+    String getContent();
+
+    Integer getContentSegment();
+
+    Long getContentOffset();
+
+    Integer getContentLength();
+}
@@ -0,0 +1,328 @@
+package com.library.content;
+
+import com.library.config.ContentProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only store of document bodies in memory-mapped segment files under
+ * {@code content.path}. The database keeps only the segment, offset and length of each body
+ * (see {@link ContentReference}), so corpus-wide jobs read text straight from the page cache
+ * instead of pulling LONGTEXT values through JDBC into the heap.
+ * <p>
+ * A segment starts with a magic number and version, followed by records of one encoding byte,
+ * the payload length and the payload. Text that fits in ISO-8859-1 is stored one byte per char
+ * and read back as a {@link Latin1Text} view without copying; anything else is stored as UTF-8
+ * and decoded on read. The encoding byte is written last, so a record torn by a crash reads as
+ * the end of the segment.
+ * <p>
+ * Replaced or deleted bodies are not reclaimed. Appends are serialised; reads take no lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentStore {
+
+    private static final int MAGIC = 0x43535431; // "CST1"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER = 8;
+    // Byte mã hóa + độ dài
+    private static final int RECORD_HEADER = 5;
+    private static final byte END = 0;
+    private static final byte LATIN1 = 1;
+    private static final byte UTF8 = 2;
+    // Số ký tự giải mã mỗi lần khi đọc một đoạn của bản ghi UTF-8
+    private static final int DECODE_BUFFER = 8192;
+
+    private final ContentProperties properties;
+
+    // Chỉ thêm vào cuối; segment cuối cùng là segment đang được ghi
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Path dir = Path.of(properties.getPath());
+        if (!Files.isDirectory(dir)) return;
+
+        long bytes = 0;
+        for (int number = 0; Files.exists(segmentPath(dir, number)); number++) {
+            Segment segment = Segment.open(segmentPath(dir, number));
+            segments.add(segment);
+            bytes += segment.end;
+        }
+        if (!segments.isEmpty()) {
+            log.info("Content store opened: {} segments, {} MB used", segments.size(), bytes >> 20);
+        }
+    }
+
+    /** Whether new and imported documents should be written to the store. */
+    public boolean isEnabled() {
+        return properties.getStorage() == ContentProperties.Storage.MAPPED;
+    }
+
+    /**
+     * Text of a document, read from its segment when it has one and from the content column
+     * otherwise. Latin-1 bodies are returned as views over the mapped segment.
+     */
+    public CharSequence read(ContentReference reference) {
+        Integer number = reference.getContentSegment();
+        if (number == null) return reference.getContent();
+        return read(number, reference.getContentOffset(), reference.getContentLength());
+    }
+
+    /**
+     * Text of the record at {@code offset} in segment {@code number}. A Latin-1 record is a
+     * view, so reading a range of it touches only the pages of that range.
+     */
+    public CharSequence read(int number, long offset, int length) {
+        ByteBuffer record = record(number, offset, length);
+        ByteBuffer payload = record.slice(RECORD_HEADER, length);
+        return record.get(0) == LATIN1 ? new Latin1Text(payload) : StandardCharsets.UTF_8.decode(payload).toString();
+    }
+
+    /** Length in chars of the text of a record, counted on its bytes without decoding them. */
+    public long charLength(int number, long offset, int length) {
+        ByteBuffer record = record(number, offset, length);
+        if (record.get(0) == LATIN1) return length;
+        long chars = 0;
+        for (int i = RECORD_HEADER; i < RECORD_HEADER + length; i++) {
+            byte b = record.get(i);
+            // Mỗi byte mở đầu là một ký tự; chuỗi 4 byte thành một cặp surrogate
+            if ((b & 0xC0) != 0x80) chars++;
+            if ((b & 0xF8) == 0xF0) chars++;
+        }
+        return chars;
+    }
+
+    /**
+     * Up to {@code maxChars} chars of the text of a record from char {@code from}. A UTF-8
+     * record is decoded through a fixed buffer up to the end of the range, so only the range
+     * itself is kept on the heap.
+     */
+    public String read(int number, long offset, int length, long from, int maxChars) {
+        ByteBuffer record = record(number, offset, length);
+        ByteBuffer payload = record.slice(RECORD_HEADER, length);
+        long start = Math.max(0L, from);
+        if (record.get(0) == LATIN1) {
+            int begin = (int) Math.min(start, length);
+            int end = (int) Math.min(length, begin + (long) Math.max(0, maxChars));
+            return new Latin1Text(payload.slice(begin, end - begin)).toString();
+        }
+        StringBuilder text = new StringBuilder();
+        try {
+            decode(payload, start, Math.max(0, maxChars), Math.max(1, Math.min(maxChars, DECODE_BUFFER)),
+                    text::append);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the whole text of a record to {@code writer}, {@code chunkChars} chars at a time
+     * with a flush after each, decoding UTF-8 incrementally instead of into one string.
+     */
+    public void write(int number, long offset, int length, Writer writer, int chunkChars) throws IOException {
+        ByteBuffer record = record(number, offset, length);
+        ByteBuffer payload = record.slice(RECORD_HEADER, length);
+        int size = Math.max(1, chunkChars);
+        CharSink sink = (chars, start, count) -> {
+            writer.write(chars, start, count);
+            writer.flush();
+        };
+        if (record.get(0) == LATIN1) {
+            char[] chunk = new char[Math.min(size, Math.max(1, length))];
+            for (int position = 0; position < length; position += chunk.length) {
+                int count = Math.min(chunk.length, length - position);
+                for (int i = 0; i < count; i++) {
+                    chunk[i] = (char) (payload.get(position + i) & 0xFF);
+                }
+                sink.accept(chunk, 0, count);
+            }
+        } else {
+            decode(payload, 0, Long.MAX_VALUE, size, sink);
+        }
+    }
+    /** {@link #read} as a heap string, for pages and forms that need one. */
+    public String text(ContentReference reference) {
+        CharSequence content = read(reference);
+        return content == null ? null : content.toString();
+    }
+
+    public ContentLocation append(CharSequence text) throws IOException {
+        String value = text.toString();
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) <= 0xFF;
+        }
+        return latin1
+                ? append(value.getBytes(StandardCharsets.ISO_8859_1), true)
+                : append(value.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    /**
+     * Appends a body given as ISO-8859-1 ({@code latin1}) or UTF-8 bytes. The record is only
+     * durable after {@link #flush}, which callers run before committing the reference.
+     */
+    public synchronized ContentLocation append(byte[] bytes, boolean latin1) throws IOException {
+        int recordSize = RECORD_HEADER + bytes.length;
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || (long) segment.end + recordSize > segment.capacity) {
+            // Bản ghi lớn hơn một segment thì segment mới được mở rộng cho vừa
+            long segmentSize = (long) Math.max(1, Math.min(properties.getSegmentSizeMb(), 2047)) << 20;
+            long capacity = Math.max(segmentSize, (long) SEGMENT_HEADER + recordSize);
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("Document of " + bytes.length + " bytes does not fit in a content segment");
+            }
+            Path dir = Path.of(properties.getPath());
+            Files.createDirectories(dir);
+            segment = Segment.create(segmentPath(dir, segments.size()), (int) capacity);
+            segments.add(segment);
+        }
+
+        int offset = segment.end;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset + 1, bytes.length);
+        buffer.put(offset + RECORD_HEADER, bytes);
+        buffer.put(offset, latin1 ? LATIN1 : UTF8);
+        segment.end = offset + recordSize;
+        return new ContentLocation(segments.size() - 1, offset, bytes.length);
+    }
+
+    /** Writes appended records to disk. */
+    public synchronized void flush() {
+        for (Segment segment : segments) {
+            int end = segment.end;
+            if (segment.flushed < end) {
+                segment.buffer.force(segment.flushed, end - segment.flushed);
+                segment.flushed = end;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    // Bản ghi tại offset, bắt đầu từ byte mã hóa, sau khi kiểm tra header
+    private ByteBuffer record(int number, long offset, int length) {
+        Segment segment = number >= 0 && number < segments.size() ? segments.get(number) : null;
+        // Đọc end (volatile) trước khi đọc dữ liệu để thấy được bản ghi vừa được ghi xong
+        if (segment == null || offset < SEGMENT_HEADER || offset + RECORD_HEADER + length > segment.end) {
+            throw new IllegalStateException("Content not found in segment " + number + " at offset " + offset);
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int position = (int) offset;
+        byte encoding = buffer.get(position);
+        if (buffer.getInt(position + 1) != length || (encoding != LATIN1 && encoding != UTF8)) {
+            throw new IllegalStateException("Corrupt content record in segment " + number + " at offset " + offset);
+        }
+        return buffer.slice(position, RECORD_HEADER + length);
+    }
+
+    // Giải mã UTF-8 qua một buffer cố định, chỉ chuyển cho sink các ký tự trong [skip, skip + maxChars)
+    private static void decode(ByteBuffer payload, long skip, long maxChars, int bufferChars, CharSink sink)
+            throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(bufferChars);
+        long end = maxChars > Long.MAX_VALUE - skip ? Long.MAX_VALUE : skip + maxChars;
+        long position = 0;
+        boolean done = false;
+        while (!done && position < end) {
+            CoderResult result = decoder.decode(payload, chars, true);
+            if (result.isUnderflow()) {
+                decoder.flush(chars);
+                done = true;
+            }
+            chars.flip();
+            int count = chars.remaining();
+            int from = (int) Math.min(count, Math.max(0L, skip - position));
+            int to = (int) Math.min(count, end - position);
+            if (from < to) {
+                sink.accept(chars.array(), from, to - from);
+            }
+            position += count;
+            chars.clear();
+        }
+    }
+
+    private interface CharSink {
+        void accept(char[] chars, int start, int count) throws IOException;
+    }
+
+    private static Path segmentPath(Path dir, int number) {
+        return dir.resolve(String.format("content-%05d.seg", number));
+    }
+
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        // Vị trí ghi tiếp theo, mọi bản ghi trước vị trí này đã được ghi đầy đủ
+        private volatile int end;
+        private int flushed;
+
+        private Segment(MappedByteBuffer buffer, int capacity, int end) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.end = end;
+            this.flushed = end;
+        }
+
+        // File được mở rộng đến capacity ngay khi map (file thưa), nên không cần map lại khi ghi thêm
+        private static Segment create(Path path, int capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                Segment segment = new Segment(buffer, capacity, SEGMENT_HEADER);
+                segment.flushed = 0;
+                return segment;
+            }
+        }
+
+        private static Segment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size < SEGMENT_HEADER || size > Integer.MAX_VALUE) {
+                    throw new IOException("Invalid content segment: " + path);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    throw new IOException("Incompatible content segment: " + path);
+                }
+                // Tìm cuối segment: dừng ở byte mã hóa 0 hoặc ở bản ghi bị cắt ngang
+                int capacity = (int) size;
+                int end = SEGMENT_HEADER;
+                while (end + RECORD_HEADER <= capacity && buffer.get(end) != END) {
+                    int length = buffer.getInt(end + 1);
+                    if (length < 0 || (long) end + RECORD_HEADER + length > capacity) break;
+                    end += RECORD_HEADER + length;
+                }
+                return new Segment(buffer, capacity, end);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.content;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ISO-8859-1 text read directly from a byte buffer, one byte per char. Wrapping a mapped
+ * segment lets the tokenizer and header parser run over stored content without decoding it
+ * into a heap {@link String}.
+ */
+public class Latin1Text implements CharSequence {
+
+    private final ByteBuffer bytes;
+
+    public Latin1Text(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int length() {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new Latin1Text(bytes.slice(start, end - start));
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[bytes.limit()];
+        bytes.get(0, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
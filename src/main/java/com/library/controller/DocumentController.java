@@ -1,43 +1,110 @@
 package com.library.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.library.clustering.ClusteringService;
+import com.library.clustering.ClusterAssigner;
+import com.library.clustering.ClusteringMetrics;
+import com.library.clustering.ModelDrift;
+import com.library.clustering.job.ClusteringJob;
+import com.library.clustering.job.ClusteringJobRejectedException;
+import com.library.clustering.job.ClusteringJobService;
+import com.library.config.ContentProperties;
+import com.library.entity.ClusterNode;
+import com.library.entity.ClusteringRun;
+import com.library.entity.ClusteringSweepResult;
 import com.library.entity.Document;
-import com.library.repository.DocumentRepository;
+import com.library.ingest.UploadJob;
+import com.library.ingest.UploadRejectedException;
+import com.library.ingest.UploadService;
+import com.library.repository.ClusteringSweepResultRepository;
+import com.library.repository.projection.DocumentSummary;
 import com.library.service.CategoryService;
+import com.library.service.ContentChunk;
 import com.library.service.DocumentService;
+import com.library.service.KeysetPage;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @Controller
 @RequestMapping("/documents")
 @AllArgsConstructor
 public class DocumentController {
 
+    // Giới hạn trên của k trong một sweep
+    private static final int MAX_SWEEP_CLUSTERS = 200;
+
+    // Số cụm, dấu chấm, rồi nhánh 0/1 ở mỗi cấp
+    private static final Pattern TOPIC_PATH = Pattern.compile("\\d{1,9}\\.[01]*");
+
     private final DocumentService documentService;
     private final CategoryService categoryService;
-    private final ClusteringService clusteringService;
-    private final DocumentRepository documentRepository;
+    private final ClusteringJobService clusteringJobService;
+    private final ClusteringMetrics clusteringMetrics;
+    private final ClusterAssigner clusterAssigner;
+    private final ClusteringSweepResultRepository sweepResultRepository;
+    private final UploadService uploadService;
+    private final ContentProperties contentProperties;
 
     @GetMapping
     public String listDocuments(Model model,
                                 @RequestParam(required = false) Long categoryId,
                                 @RequestParam(required = false) Integer cluster,
                                 @RequestParam(defaultValue = "0") int page,
-                                @RequestParam(defaultValue = "10") int size) throws JsonProcessingException {
+                                @RequestParam(defaultValue = "10") int size,
+                                @RequestParam(required = false) String jobId,
+                                @RequestParam(required = false) String q,
+                                @RequestParam(required = false) Long after,
+                                @RequestParam(required = false) Long before,
+                                @RequestParam(required = false) String topic) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Document> documentPage;
+        Page<DocumentSummary> documentPage;
+        boolean search = q != null && !q.isBlank();
+        if (topic != null && !topic.isEmpty()) {
+            if (!TOPIC_PATH.matcher(topic).matches()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid topic path: " + topic);
+            }
+            // Chủ đề thuộc một cụm, giữ cụm đó được chọn trong bộ lọc
+            cluster = Integer.valueOf(topic.substring(0, topic.indexOf('.')));
+        } else {
+            topic = null;
+        }
 
-        if (categoryId != null) {
+        // Có after/before thì phân trang keyset, không dùng OFFSET
+        if (!search && topic == null && (after != null || before != null)) {
+            KeysetPage<DocumentSummary> keysetPage = documentService.browseDocuments(categoryId, cluster, after, before, size);
+            model.addAttribute("documents", keysetPage.getContent());
+            model.addAttribute("totalPages", 0);
+            model.addAttribute("totalItems", keysetPage.getTotalElements());
+            model.addAttribute("keysetPage", keysetPage);
+            addListingAttributes(model, categoryId, cluster, topic, size, jobId, q);
+            return "documents";
+        }
+
+        // Có từ khóa thì tìm kiếm toàn văn, lọc theo cả category và cluster
+        if (search) {
+            documentPage = documentService.searchDocuments(q, categoryId, cluster, pageable);
+        } else if (topic != null) {
+            documentPage = documentService.getDocumentsByTopic(topic, pageable);
+        } else if (categoryId != null) {
             documentPage = documentService.getDocumentsByCategory(categoryId, pageable);
         } else if (cluster != null) {
             documentPage = documentService.getDocumentsByCluster(cluster, pageable);
@@ -49,18 +116,49 @@ public class DocumentController {
         model.addAttribute("totalPages", documentPage.getTotalPages());
         model.addAttribute("totalItems", documentPage.getTotalElements());
         model.addAttribute("currentPage", page);
+        addListingAttributes(model, categoryId, cluster, topic, size, jobId, q);
+        return "documents";
+    }
+
+    // Keyset: ?after=<id> cho trang sau, ?before=<id> cho trang trước
+    @GetMapping("/browse")
+    @ResponseBody
+    public KeysetPage<DocumentSummary> browseDocuments(@RequestParam(required = false) Long categoryId,
+                                                       @RequestParam(required = false) Integer cluster,
+                                                       @RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Long before,
+                                                       @RequestParam(defaultValue = "10") int size) {
+        if (size < 1 || size > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and 1000");
+        }
+        return documentService.browseDocuments(categoryId, cluster, after, before, size);
+    }
+
+    private void addListingAttributes(Model model, Long categoryId, Integer cluster, String topic, int size,
+                                      String jobId, String q) {
         model.addAttribute("size", size); // <-- cần cho dropdown "10 / page"
 
         model.addAttribute("categories", categoryService.getAllCategories());
         model.addAttribute("categoryId", categoryId);
         model.addAttribute("cluster", cluster);
+        model.addAttribute("topic", topic);
+        // Cây chủ đề của cụm đang xem để đi sâu xuống các nhánh
+        model.addAttribute("topics", cluster != null ? documentService.getTopics(cluster) : List.of());
         Map<Integer, Long> clusterStats = documentService.getClusterStatistics();
         model.addAttribute("clusterStats", clusterStats);
-        ObjectMapper objectMapper = new ObjectMapper();
-        String clusterStatsJson = objectMapper.writeValueAsString(clusterStats);
-        model.addAttribute("clusterStatsJson", clusterStatsJson);
+        model.addAttribute("clusterStatsJson", documentService.getClusterStatisticsJson());
+        model.addAttribute("jobId", jobId);
+        model.addAttribute("q", q);
+    }
 
-        return "documents";
+    @GetMapping("/search")
+    public String searchDocuments(Model model,
+                                  @RequestParam String q,
+                                  @RequestParam(required = false) Long categoryId,
+                                  @RequestParam(required = false) Integer cluster,
+                                  @RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "10") int size) {
+        return listDocuments(model, categoryId, cluster, page, size, null, q, null, null, null);
     }
 
     @GetMapping("/create")
@@ -84,39 +182,200 @@ public class DocumentController {
         return "document-form";
     }
 
+    // Một tài liệu hoặc một archive zip/tar(.gz) theo thư mục category, được nạp ở chế độ nền
+    @PostMapping("/upload")
+    public String uploadDocuments(@RequestParam MultipartFile file,
+                                  @RequestParam(required = false) String category,
+                                  RedirectAttributes redirectAttributes) throws IOException {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("uploadError", "Please choose a file to upload");
+            return "redirect:/documents";
+        }
+        try {
+            UploadJob job = uploadService.upload(file, category);
+            redirectAttributes.addFlashAttribute("uploadMessage",
+                    job.getFileName() + " uploaded, importing in the background (job " + job.getId() + ")");
+        } catch (UploadRejectedException e) {
+            redirectAttributes.addFlashAttribute("uploadError", e.getMessage());
+        }
+        return "redirect:/documents";
+    }
+
+    @GetMapping("/upload/jobs")
+    @ResponseBody
+    public List<UploadJob> listUploadJobs() {
+        return uploadService.getJobs();
+    }
+
+    @GetMapping("/upload/jobs/{jobId}")
+    @ResponseBody
+    public UploadJob getUploadJob(@PathVariable String jobId) {
+        UploadJob job = uploadService.getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload job not found");
+        }
+        return job;
+    }
+
     @GetMapping("/delete/{id}")
     public String deleteDocument(@PathVariable Long id) {
         documentService.deleteDocument(id);
         return "redirect:/documents";
     }
 
+    // Có minClusters và maxClusters thì chạy sweep và tự chọn k, ngược lại phân cụm với numClusters
     @PostMapping("/cluster")
-    public String performClustering(@RequestParam int numClusters) {
+    public String performClustering(@RequestParam(required = false) Integer numClusters,
+                                    @RequestParam(required = false) Integer minClusters,
+                                    @RequestParam(required = false) Integer maxClusters,
+                                    RedirectAttributes redirectAttributes) {
+        boolean sweep = minClusters != null && maxClusters != null;
+        if (sweep && (minClusters < 2 || maxClusters > MAX_SWEEP_CLUSTERS || minClusters > maxClusters)) {
+            redirectAttributes.addFlashAttribute("clusteringError",
+                    "Cluster range must satisfy 2 <= min <= max <= " + MAX_SWEEP_CLUSTERS);
+            return "redirect:/documents";
+        }
+        if (!sweep && (numClusters == null || numClusters < 1)) {
+            redirectAttributes.addFlashAttribute("clusteringError", "Number of clusters must be at least 1");
+            return "redirect:/documents";
+        }
         try {
-            clusteringService.performClustering(numClusters);
-        } catch (Exception e) {
-            e.printStackTrace(); // Hoặc log lỗi
-            // Có thể chuyển hướng kèm thông báo lỗi nếu muốn
+            ClusteringJob job = sweep
+                    ? clusteringJobService.submitSweep(minClusters, maxClusters)
+                    : clusteringJobService.submit(numClusters);
+            return "redirect:/documents?jobId=" + job.getId();
+        } catch (ClusteringJobRejectedException e) {
+            redirectAttributes.addFlashAttribute("clusteringError", e.getMessage());
+            return e.getActiveJobId() != null
+                    ? "redirect:/documents?jobId=" + e.getActiveJobId()
+                    : "redirect:/documents";
         }
-        return "redirect:/documents";
     }
 
+    @GetMapping("/cluster/jobs")
+    @ResponseBody
+    public List<ClusteringJob> listClusteringJobs() {
+        return clusteringJobService.getJobs();
+    }
+
+    // Tóm tắt các lần phân cụm gần nhất (thời gian từng bước, số tài liệu, chất lượng)
+    @GetMapping("/cluster/runs")
+    @ResponseBody
+    public List<ClusteringRun> listClusteringRuns() {
+        return clusteringMetrics.getRecentRuns();
+    }
+
+    // Cây chủ đề của một cụm theo thứ tự duyệt trước, kèm term tiêu biểu của mỗi nút
+    @GetMapping("/cluster/{cluster}/topics")
+    @ResponseBody
+    public List<ClusterNode> getClusterTopics(@PathVariable int cluster) {
+        return documentService.getTopics(cluster);
+    }
+
+    // Điểm của từng k trong một sweep, theo k tăng dần
+    @GetMapping("/cluster/sweeps/{sweepId}")
+    @ResponseBody
+    public List<ClusteringSweepResult> getClusteringSweep(@PathVariable String sweepId) {
+        List<ClusteringSweepResult> results = sweepResultRepository.findBySweepIdOrderByNumClustersAsc(sweepId);
+        if (results.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Clustering sweep not found");
+        }
+        return results;
+    }
+
+    // Mô hình hiện tại và mức drift của các tài liệu được gán cụm khi lưu
+    @GetMapping("/cluster/model")
+    @ResponseBody
+    public ModelDrift getClusteringModel() {
+        return clusterAssigner.getDrift();
+    }
+
+    @GetMapping("/cluster/jobs/{jobId}")
+    @ResponseBody
+    public ClusteringJob getClusteringJob(@PathVariable String jobId) {
+        ClusteringJob job = clusteringJobService.getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Clustering job not found");
+        }
+        return job;
+    }
+
+    @PostMapping("/cluster/jobs/{jobId}/cancel")
+    @ResponseBody
+    public ClusteringJob cancelClusteringJob(@PathVariable String jobId) {
+        ClusteringJob job = clusteringJobService.cancel(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Clustering job not found");
+        }
+        return job;
+    }
+
+    @GetMapping("/duplicates")
+    public String listDuplicates(Model model,
+                                 @RequestParam(defaultValue = "0") int page,
+                                 @RequestParam(defaultValue = "20") int size) {
+        Page<DocumentSummary> duplicates = documentService.getDuplicates(PageRequest.of(page, size));
+        model.addAttribute("duplicates", duplicates.getContent());
+        model.addAttribute("currentPage", page);
+        model.addAttribute("totalPages", duplicates.getTotalPages());
+        model.addAttribute("totalItems", duplicates.getTotalElements());
+        model.addAttribute("size", size);
+        return "duplicates";
+    }
+
+    // Chỉ hiển thị đoạn đầu, các đoạn sau được trang tải qua /content khi cuộn xuống
     @GetMapping("/view/{id}")
     public String viewDocument(@PathVariable Long id, Model model) {
-        Document document = documentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Document not found"));
+        DocumentSummary document = documentService.getDocumentSummary(id);
+        ContentChunk chunk = document == null ? null : documentService.getContentChunk(id, 0, viewChunkLength());
+        if (chunk == null) {
+            throw new RuntimeException("Document not found");
+        }
         model.addAttribute("document", document);
+        model.addAttribute("chunk", chunk);
         return "view-document";
     }
 
+    @GetMapping("/{id}/content")
+    @ResponseBody
+    public ContentChunk getContentChunk(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "0") long offset,
+                                        @RequestParam(required = false) Integer length) {
+        int maxLength = viewChunkLength();
+        ContentChunk chunk = documentService.getContentChunk(id,
+                offset, length == null ? maxLength : Math.max(1, Math.min(length, maxLength)));
+        if (chunk == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found");
+        }
+        return chunk;
+    }
+
+    // Toàn bộ nội dung dạng text/plain, ghi từng đoạn và flush ngay nên được gửi theo chunked encoding
+    @GetMapping("/{id}/content/raw")
+    public ResponseEntity<StreamingResponseBody> streamContent(@PathVariable Long id) {
+        if (documentService.getDocumentSummary(id) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found");
+        }
+        int chunkLength = viewChunkLength();
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            documentService.writeContent(id, writer, chunkLength);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(body);
+    }
+
     @GetMapping("/{id}/similar")
     public String getSimilarDocuments(
             @PathVariable Long id,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
+            @RequestParam(defaultValue = "false") boolean sameCluster,
             Model model) {
 
-        Page<Document> similarDocuments = documentService.getSimilarDocuments(id, size, page);
+        Page<DocumentSummary> similarDocuments = documentService.getSimilarDocuments(id, size, page, sameCluster);
 
         model.addAttribute("similarDocuments", similarDocuments.getContent());
         model.addAttribute("currentPage", page);
@@ -124,8 +383,13 @@ public class DocumentController {
         model.addAttribute("totalItems", similarDocuments.getTotalElements()); // cần cho hiển thị tổng số bản ghi
         model.addAttribute("size", size); // để giữ dropdown chọn size
         model.addAttribute("documentId", id); // cần cho pagination link
+        model.addAttribute("sameCluster", sameCluster);
 
         return "similar-documents";
     }
 
+    private int viewChunkLength() {
+        return Math.max(1, contentProperties.getViewChunkKb()) * 1024;
+    }
+
 }
@@ -0,0 +1,189 @@
+package com.library.dedup;
+
+import com.library.clustering.TermVectorStore;
+import com.library.config.DedupProperties;
+import com.library.content.ContentStore;
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentsImportedEvent;
+import com.library.repository.ClusterLabelWriter;
+import com.library.repository.DocumentRepository;
+import com.library.repository.projection.DocumentText;
+import com.library.text.Analyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flags near-duplicate documents (cross-posts, reposts, replies that are mostly quote) by
+ * the SimHash of their body. A duplicate keeps its row and points to its original in
+ * {@code documents.duplicate_of}. Duplicates get no term vector, so clustering and similarity
+ * search run on originals only, and they take their original's cluster after each run.
+ * <p>
+ * Saved documents are checked one at a time through {@link #findOriginal}. Imports store
+ * fingerprints in bulk, and {@link #detect} then checks the new rows in id order, so the
+ * earliest copy of a text is the original. The {@link DuplicateIndex} is filled from the
+ * database on first use.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DuplicateDetector {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String SCAN_SQL = "SELECT id, simhash FROM documents "
+            + "WHERE simhash IS NOT NULL AND duplicate_of IS NULL AND id > ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentRepository documentRepository;
+    private final ClusterLabelWriter clusterLabelWriter;
+    private final TermVectorStore termVectorStore;
+    private final ContentStore contentStore;
+    private final Analyzer analyzer;
+    private final DedupProperties properties;
+
+    private DuplicateIndex index;
+    // Các dòng có id không lớn hơn giá trị này đã được kiểm tra
+    private long scannedUpTo;
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** SimHash of {@code text}, {@code null} when disabled or the text is too short. */
+    public Long fingerprint(CharSequence text) {
+        if (!properties.isEnabled()) return null;
+        return SimHash.of(text, analyzer.tokenizer(), properties.getShingleSize(), properties.getMinShingles());
+    }
+
+    /** Original of a document about to be saved, {@code null} if it is not a duplicate. */
+    public synchronized Long findOriginal(Long id, Long fingerprint) {
+        if (fingerprint == null) return null;
+        return index().findOriginal(fingerprint, id);
+    }
+
+    /**
+     * Records a saved document: an original is indexed, a duplicate is removed from the index
+     * and the documents that pointed to it are handed to its original.
+     */
+    public synchronized void register(long id, Long fingerprint, Long duplicateOf) {
+        if (!properties.isEnabled()) return;
+        DuplicateIndex current = index();
+        if (duplicateOf == null && fingerprint != null) {
+            current.add(id, fingerprint);
+            return;
+        }
+        current.remove(id);
+        jdbcTemplate.update("UPDATE documents SET duplicate_of = ? WHERE duplicate_of = ?", duplicateOf, id);
+    }
+
+    // Trước các cache, để chúng nạp lại số liệu sau khi bản trùng lặp đã nhận cụm của bản gốc
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDocumentsImported(DocumentsImportedEvent event) {
+        detect();
+    }
+
+    /**
+     * Checks the rows added since the last check, flagging duplicates in JDBC batches and giving
+     * them their original's cluster. Returns the number of duplicates found.
+     */
+    public synchronized int detect() {
+        if (!properties.isEnabled()) return 0;
+        if (index == null) {
+            index = new DuplicateIndex(properties.getMaxDistance());
+            scannedUpTo = 0;
+        }
+        long startTime = System.nanoTime();
+        long scannedFrom = scannedUpTo;
+        List<long[]> duplicates = new ArrayList<>();
+        int[] scanned = new int[1];
+        jdbcTemplate.query(SCAN_SQL, rs -> {
+            long id = rs.getLong(1);
+            long fingerprint = rs.getLong(2);
+            Long original = index.findOriginal(fingerprint, id);
+            if (original != null) {
+                duplicates.add(new long[]{id, original});
+            } else {
+                index.add(id, fingerprint);
+            }
+            scannedUpTo = Math.max(scannedUpTo, id);
+            scanned[0]++;
+        }, scannedUpTo);
+
+        jdbcTemplate.batchUpdate("UPDATE documents SET duplicate_of = ? WHERE id = ?", duplicates, BATCH_SIZE,
+                (ps, pair) -> {
+                    ps.setLong(1, pair[1]);
+                    ps.setLong(2, pair[0]);
+                });
+        if (!duplicates.isEmpty()) {
+            clusterLabelWriter.copyToDuplicates(scannedFrom);
+            log.info("Duplicate detection: {} of {} new documents are near-duplicates ({} ms)",
+                    duplicates.size(), scanned[0], (System.nanoTime() - startTime) / 1_000_000);
+        }
+        return duplicates.size();
+    }
+
+    /**
+     * Computes the fingerprint of rows stored without one, e.g. before detection was enabled.
+     * Returns the number of rows fingerprinted.
+     */
+    public int fingerprintMissing() {
+        if (!properties.isEnabled()) return 0;
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM documents WHERE simhash IS NULL AND duplicate_of IS NULL ORDER BY id", Long.class);
+        int fingerprinted = 0;
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            List<long[]> rows = new ArrayList<>();
+            for (DocumentText text : documentRepository.findTextsByIdIn(chunk)) {
+                Long fingerprint = fingerprint(contentStore.read(text));
+                if (fingerprint != null) rows.add(new long[]{text.getId(), fingerprint});
+            }
+            jdbcTemplate.batchUpdate("UPDATE documents SET simhash = ? WHERE id = ?", rows, BATCH_SIZE,
+                    (ps, row) -> {
+                        ps.setLong(1, row[1]);
+                        ps.setLong(2, row[0]);
+                    });
+            fingerprinted += rows.size();
+        }
+        return fingerprinted;
+    }
+
+    /**
+     * Promotes the oldest duplicate of a deleted original to take its place, with the term
+     * vector it had no need of as a duplicate.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDocumentDeleted(DocumentDeletedEvent event) {
+        if (!properties.isEnabled()) return;
+        long id = event.getDocumentId();
+        if (index != null) index.remove(id);
+        List<Long> duplicates = jdbcTemplate.queryForList(
+                "SELECT id FROM documents WHERE duplicate_of = ? ORDER BY id LIMIT 1", Long.class, id);
+        if (duplicates.isEmpty()) return;
+
+        long promoted = duplicates.get(0);
+        jdbcTemplate.update("UPDATE documents SET duplicate_of = NULL WHERE id = ?", promoted);
+        jdbcTemplate.update("UPDATE documents SET duplicate_of = ? WHERE duplicate_of = ?", promoted, id);
+        Long fingerprint = jdbcTemplate.queryForObject("SELECT simhash FROM documents WHERE id = ?", Long.class,
+                promoted);
+        if (index != null && fingerprint != null) index.add(promoted, fingerprint);
+        for (DocumentText text : documentRepository.findTextsByIdIn(List.of(promoted))) {
+            termVectorStore.update(promoted, contentStore.read(text));
+        }
+    }
+
+    // Nạp chỉ mục từ database ở lần dùng đầu tiên
+    private DuplicateIndex index() {
+        if (index == null) detect();
+        return index;
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.dedup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of SimHash fingerprints for finding near-duplicates in constant time. A
+ * fingerprint is split into {@code maxDistance + 1} bands. Two fingerprints at most
+ * {@code maxDistance} bits apart must agree on at least one band, because each differing bit
+ * spoils at most one band. A lookup therefore only compares against the documents sharing one of
+ * its band values instead of the whole corpus. With the default of 3 bits and four 16-bit bands,
+ * buckets stay nearly empty up to millions of documents.
+ * <p>
+ * Only original documents are indexed; a duplicate is found through its original. Not
+ * thread-safe on its own, callers synchronize on the instance.
+ */
+public class DuplicateIndex {
+
+    private final int maxDistance;
+    private final int bands;
+    private final int bandWidth;
+
+    private final Map<Long, Long> fingerprints = new HashMap<>();
+    private final Map<Long, List<Long>> buckets = new HashMap<>();
+
+    public DuplicateIndex(int maxDistance) {
+        // Tối đa 16 band để mỗi band còn ít nhất 4 bit
+        this.maxDistance = Math.max(0, Math.min(maxDistance, 15));
+        this.bands = this.maxDistance + 1;
+        this.bandWidth = 64 / bands;
+    }
+
+    /**
+     * Closest indexed document within {@code maxDistance} bits of {@code fingerprint}, other
+     * than {@code excludeId}; the smallest id wins ties. {@code null} if there is none.
+     */
+    public Long findOriginal(long fingerprint, Long excludeId) {
+        Long best = null;
+        int bestDistance = maxDistance + 1;
+        for (int band = 0; band < bands; band++) {
+            List<Long> bucket = buckets.get(bandKey(fingerprint, band));
+            if (bucket == null) continue;
+            for (Long id : bucket) {
+                if (id.equals(excludeId)) continue;
+                int distance = SimHash.distance(fingerprint, fingerprints.get(id));
+                if (distance < bestDistance || (distance == bestDistance && best != null && id < best)) {
+                    best = id;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    public void add(long id, long fingerprint) {
+        Long previous = fingerprints.get(id);
+        if (previous != null && previous == fingerprint) return;
+        remove(id);
+        fingerprints.put(id, fingerprint);
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(fingerprint, band), key -> new ArrayList<>(1)).add(id);
+        }
+    }
+
+    public void remove(long id) {
+        Long fingerprint = fingerprints.remove(id);
+        if (fingerprint == null) return;
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(fingerprint, band);
+            List<Long> bucket = buckets.get(key);
+            bucket.remove(Long.valueOf(id));
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+    }
+
+    public int size() {
+        return fingerprints.size();
+    }
+
+    // Band cuối nhận các bit còn lại khi 64 không chia hết cho số band
+    private long bandKey(long fingerprint, int band) {
+        int shift = band * bandWidth;
+        int bits = band == bands - 1 ? 64 - shift : bandWidth;
+        long value = bits == 64 ? fingerprint : (fingerprint >>> shift) & ((1L << bits) - 1);
+        return (value << 5) ^ band;
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.dedup;
+
+import com.library.text.NewsgroupHeaders;
+import com.library.text.Tokenizer;
+
+/**
+ * 64-bit SimHash (Charikar) of the body of a newsgroup article: every shingle of
+ * {@code shingleSize} consecutive tokens is hashed, and bit {@code b} of the fingerprint is set
+ * when more distinct shingles have bit {@code b} set than clear. Repeats are counted once, so
+ * runs of the same shingles, as in uuencoded attachments, do not dominate the fingerprint.
+ * Texts sharing most of their shingles get fingerprints a few bits apart, so near-duplicates
+ * are found by Hamming distance.
+ * <p>
+ * Headers are skipped, so cross-posts and reposts differing only in {@code Newsgroups},
+ * {@code Path} or {@code Message-ID} still match; quoting markers are dropped by the tokenizer.
+ */
+public final class SimHash {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * Fingerprint of {@code text}, or {@code null} when its body has fewer than
+     * {@code minShingles} shingles, too short for the fingerprint to mean anything.
+     */
+    public static Long of(CharSequence text, Tokenizer tokenizer, int shingleSize, int minShingles) {
+        if (text == null) return null;
+        int bodyStart = NewsgroupHeaders.parse(text).getBodyStart();
+        ShingleSink sink = new ShingleSink(Math.max(1, shingleSize));
+        tokenizer.tokenize(bodyStart == 0 ? text : text.subSequence(bodyStart, text.length()), sink);
+        if (sink.shingles < Math.max(1, minShingles)) return null;
+
+        long fingerprint = 0;
+        for (int b = 0; b < 64; b++) {
+            if (sink.votes[b] > 0) fingerprint |= 1L << b;
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // Bộ trộn của SplitMix64, để các bit của hash shingle độc lập với nhau
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class ShingleSink implements Tokenizer.TokenSink {
+        // Hash của shingleSize token gần nhất, ghi vòng
+        private final long[] window;
+        private final int[] votes = new int[64];
+        // Tập băm địa chỉ mở của các shingle đã gặp, 0 là ô trống
+        private long[] seen = new long[256];
+        private int tokens;
+        private int shingles;
+
+        private ShingleSink(int shingleSize) {
+            this.window = new long[shingleSize];
+        }
+
+        private boolean addShingle(long shingle) {
+            if (shingle == 0) shingle = 1;
+            if (shingles * 2 >= seen.length) {
+                long[] previous = seen;
+                seen = new long[previous.length * 2];
+                for (long value : previous) {
+                    if (value != 0) insert(value);
+                }
+            }
+            return insert(shingle);
+        }
+
+        private boolean insert(long shingle) {
+            int mask = seen.length - 1;
+            for (int slot = (int) shingle & mask; ; slot = (slot + 1) & mask) {
+                if (seen[slot] == shingle) return false;
+                if (seen[slot] == 0) {
+                    seen[slot] = shingle;
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void token(char[] buf, int len) {
+            long hash = FNV_OFFSET;
+            for (int i = 0; i < len; i++) {
+                hash = (hash ^ buf[i]) * FNV_PRIME;
+            }
+            window[tokens % window.length] = hash;
+            tokens++;
+            if (tokens < window.length) return;
+
+            // Kết hợp theo thứ tự trong cửa sổ, xoay để "a b" khác "b a"
+            long shingle = 0;
+            for (int i = 0; i < window.length; i++) {
+                shingle = Long.rotateLeft(shingle, 23) ^ window[(tokens + i) % window.length];
+            }
+            shingle = mix(shingle);
+            if (!addShingle(shingle)) return;
+            for (int b = 0; b < 64; b++) {
+                votes[b] += ((shingle >>> b) & 1) != 0 ? 1 : -1;
+            }
+            shingles++;
+        }
+    }
+}
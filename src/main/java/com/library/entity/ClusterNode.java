@@ -0,0 +1,37 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Node of the topic tree built under each cluster by the last clustering run. Documents of the
+ * subtree rooted here have a {@code Document.clusterPath} starting with {@code path}.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "cluster_nodes", indexes = @Index(name = "idx_cluster_nodes_path", columnList = "path", unique = true))
+public class ClusterNode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // "3." là gốc của cụm 3, "3.01" là con thứ hai của con thứ nhất
+    private String path;
+
+    private int cluster;
+
+    private int depth;
+
+    private int size;
+
+    // Cosine trung bình của tài liệu tới tâm của nút
+    private double cohesion;
+
+    private boolean leaf;
+
+    // Các term tiêu biểu, cách nhau bởi dấu phẩy
+    @Column(length = 1000)
+    private String topTerms;
+}
@@ -0,0 +1,78 @@
+package com.library.entity;
+
+import com.library.clustering.job.ClusteringJobStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Summary of one clustering run, kept to compare runs over time.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "clustering_runs", indexes = @Index(name = "idx_clustering_runs_started_at", columnList = "startedAt"))
+public class ClusteringRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    @Enumerated(EnumType.STRING)
+    private ClusteringJobStatus status;
+
+    private String error;
+
+    private int numClusters;
+
+    private String engine;
+
+    // Số tài liệu được tokenize mới trong lần chạy này
+    private int vectorizedDocuments;
+
+    private int clusteredDocuments;
+
+    // Tài liệu rỗng hoặc không còn từ nào sau khi chọn đặc trưng
+    private long skippedDocuments;
+
+    private int features;
+
+    // Phương pháp giảm chiều, null nếu phân cụm trực tiếp trên TF-IDF
+    private String reduction;
+
+    private Integer dimensions;
+
+    private int iterations;
+
+    private boolean converged;
+
+    private Double inertia;
+
+    private Double silhouette;
+
+    private Double daviesBouldin;
+
+    private long loadMillis;
+
+    private long vectorizeMillis;
+
+    private long reduceMillis;
+
+    private long iterateMillis;
+
+    private long evaluateMillis;
+
+    private long hierarchyMillis;
+
+    private long persistMillis;
+
+    private long totalMillis;
+
+    // Ước lượng, -1 nếu JVM không hỗ trợ đo
+    private long allocatedBytes;
+}
@@ -0,0 +1,51 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Score of one cluster count tried by a k sweep. All rows of a sweep share its {@code sweepId};
+ * the chosen k is marked {@code selected}.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "clustering_sweep_results", indexes = @Index(name = "idx_sweep_results_sweep_id", columnList = "sweepId"))
+public class ClusteringSweepResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String sweepId;
+
+    private Instant createdAt;
+
+    private int numClusters;
+
+    private double silhouette;
+
+    // Khoảng tin cậy 95% khi silhouette được ước lượng từ mẫu
+    private double silhouetteLower;
+
+    private double silhouetteUpper;
+
+    private double daviesBouldin;
+
+    private double inertia;
+
+    private int iterations;
+
+    private boolean converged;
+
+    // Thời gian phân cụm và đánh giá với k này
+    private long millis;
+
+    // k có silhouette cao nhất, được lưu làm kết quả phân cụm
+    private boolean selected;
+
+    // Điểm khuỷu của đường inertia theo k
+    private boolean elbow;
+}
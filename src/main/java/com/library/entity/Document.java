@@ -1,6 +1,7 @@
 package com.library.entity;
 
 
+import com.library.content.ContentReference;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -8,8 +9,14 @@ import lombok.Setter;
 @Entity
 @Getter
 @Setter
-@Table(name = "documents")
-public class Document {
+// Chỉ mục ghép cho phân trang keyset theo category/cluster: lọc và sắp xếp theo id trên cùng một chỉ mục
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_category_id", columnList = "category_id, id"),
+        @Index(name = "idx_documents_cluster_id", columnList = "cluster, id"),
+        @Index(name = "idx_documents_cluster_path", columnList = "cluster_path, id"),
+        @Index(name = "idx_documents_duplicate_of", columnList = "duplicate_of, id")
+})
+public class Document implements ContentReference {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -17,13 +24,31 @@ public class Document {
     private String title;
 
     private String fileName;
+    // Chỉ nạp khi truy cập (cần bytecode enhancement, xem hibernate-enhance-maven-plugin)
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "LONGTEXT")
     private String content;
 
+    // Vị trí nội dung trong ContentStore; null khi nội dung nằm trong cột content
+    private Integer contentSegment;
+
+    private Long contentOffset;
+
+    private Integer contentLength;
+
     private Integer cluster;
 
-    @ManyToOne
+    // Lá của cây chủ đề trong cụm, ví dụ "3.01"; lọc cây con bằng LIKE 'tiền tố%'
+    private String clusterPath;
+
+    // SimHash 64 bit của phần thân, null khi văn bản quá ngắn
+    private Long simhash;
+
+    // Bản gốc khi tài liệu là bản gần trùng lặp của nó; tài liệu gốc có giá trị null
+    private Long duplicateOf;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
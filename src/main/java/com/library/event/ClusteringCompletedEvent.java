@@ -0,0 +1,15 @@
+package com.library.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a clustering run has written its labels. Listeners that use
+ * {@code @TransactionalEventListener} only see it once the labels are committed.
+ */
+@Getter
+@AllArgsConstructor
+public class ClusteringCompletedEvent {
+    private final int numClusters;
+    private final int numDocuments;
+}
@@ -0,0 +1,14 @@
+package com.library.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a document is deleted, carrying the cluster it belonged to.
+ */
+@Getter
+@AllArgsConstructor
+public class DocumentDeletedEvent {
+    private final Long documentId;
+    private final Integer cluster;
+}
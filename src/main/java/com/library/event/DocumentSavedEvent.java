@@ -0,0 +1,17 @@
+package com.library.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a document is created or updated. {@code previousCluster} is {@code null}
+ * for a new document.
+ */
+@Getter
+@AllArgsConstructor
+public class DocumentSavedEvent {
+    private final Long documentId;
+    private final boolean created;
+    private final Integer previousCluster;
+    private final Integer cluster;
+}
@@ -0,0 +1,14 @@
+package com.library.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a bulk import wrote rows directly through JDBC, bypassing the per-document
+ * events.
+ */
+@Getter
+@AllArgsConstructor
+public class DocumentsImportedEvent {
+    private final int imported;
+}
@@ -0,0 +1,257 @@
+package com.library.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Streams the files of an uploaded file without unpacking it: zip, tar and gzip-compressed tar
+ * are recognised by their content, anything else is a single file named after the upload.
+ * Only regular files are reported, in archive order, each with its path inside the archive and a
+ * stream that ends with the entry; what the handler does not read is skipped.
+ * <p>
+ * Tar headers are read as ustar with GNU long names and pax {@code path} records, which covers
+ * GNU tar, bsdtar and the 20 Newsgroups distribution.
+ */
+final class ArchiveReader {
+
+    private static final int BLOCK = 512;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Giới hạn cho tên dài GNU và header pax, chỉ chứa metadata
+    private static final int MAX_HEADER_DATA = 1 << 20;
+
+    interface EntryHandler {
+        void entry(String name, InputStream in) throws IOException;
+    }
+
+    private ArchiveReader() {
+    }
+
+    static void read(Path file, String fileName, EntryHandler handler) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            byte[] head = peek(raw);
+            if (head.length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+                // Zip đọc qua central directory, không phụ thuộc data descriptor của từng entry
+                raw.close();
+                readZip(file, handler);
+                return;
+            }
+            InputStream in = raw;
+            String name = fileName;
+            if (head.length >= 2 && (head[0] & 0xFF) == 0x1F && (head[1] & 0xFF) == 0x8B) {
+                in = new BufferedInputStream(new GZIPInputStream(raw, BUFFER_SIZE), BUFFER_SIZE);
+                head = peek(in);
+                if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+            }
+            if (isTar(head)) {
+                readTar(in, handler);
+            } else {
+                handler.entry(name, in);
+            }
+        }
+    }
+
+    private static void readZip(Path file, EntryHandler handler) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) continue;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    handler.entry(entry.getName(), in);
+                }
+            }
+        }
+    }
+
+    private static void readTar(InputStream in, EntryHandler handler) throws IOException {
+        byte[] header = new byte[BLOCK];
+        // Tên của entry kế tiếp do header GNU 'L' hoặc pax 'x' đứng trước cung cấp
+        String nextName = null;
+        while (in.readNBytes(header, 0, BLOCK) == BLOCK && !isZero(header)) {
+            if (!checksumMatches(header)) {
+                throw new IOException("Corrupt tar header");
+            }
+            long size = number(header, 124, 12);
+            byte type = header[156];
+            String name = nextName != null ? nextName : headerName(header);
+            nextName = null;
+
+            EntryStream data = new EntryStream(in, size);
+            if (type == 'L') {
+                nextName = cString(headerData(data, size));
+            } else if (type == 'x') {
+                String path = paxPath(headerData(data, size));
+                if (path != null) nextName = path;
+            } else if (type == '0' || type == 0 || type == '7') {
+                handler.entry(name, data);
+            }
+            data.skipRemaining();
+            in.skipNBytes((BLOCK - size % BLOCK) % BLOCK);
+        }
+    }
+
+    // Header đầu tiên của tar hợp lệ khi checksum khớp, kể cả tar v7 không có magic "ustar"
+    private static boolean isTar(byte[] head) {
+        return head.length >= BLOCK && !isZero(head) && checksumMatches(head);
+    }
+
+    private static boolean checksumMatches(byte[] header) {
+        long sum = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            // Trường checksum được tính như 8 dấu cách
+            sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xFF;
+        }
+        try {
+            return number(header, 148, 8) == sum;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String headerName(byte[] header) {
+        String name = field(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+        String prefix = ustar ? field(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    // Số bát phân kết thúc bằng NUL hoặc dấu cách, hoặc base-256 khi bit cao của byte đầu được bật
+    private static long number(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end && (header[i] == ' ' || header[i] == 0)) i++;
+        for (; i < end && header[i] != ' ' && header[i] != 0; i++) {
+            if (header[i] < '0' || header[i] > '7') {
+                throw new IOException("Invalid number in tar header");
+            }
+            value = (value << 3) | (header[i] - '0');
+        }
+        return value;
+    }
+
+    private static byte[] headerData(EntryStream data, long size) throws IOException {
+        if (size > MAX_HEADER_DATA) {
+            throw new IOException("Tar extended header of " + size + " bytes");
+        }
+        return data.readAllBytes();
+    }
+
+    // Các bản ghi pax có dạng "<độ dài> <khóa>=<giá trị>\n"
+    private static String paxPath(byte[] data) {
+        String records = new String(data, StandardCharsets.UTF_8);
+        int position = 0;
+        while (position < records.length()) {
+            int space = records.indexOf(' ', position);
+            if (space < 0) break;
+            int length;
+            try {
+                length = Integer.parseInt(records.substring(position, space));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            int end = Math.min(records.length(), position + length);
+            String record = records.substring(space + 1, Math.max(space + 1, end - 1));
+            if (record.startsWith("path=")) return record.substring(5);
+            if (length <= 0) break;
+            position += length;
+        }
+        return null;
+    }
+
+    private static String field(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String cString(byte[] data) {
+        return field(data, 0, data.length);
+    }
+
+    private static boolean isZero(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private static byte[] peek(InputStream in) throws IOException {
+        in.mark(BLOCK);
+        byte[] head = in.readNBytes(BLOCK);
+        in.reset();
+        return head;
+    }
+
+    // Dữ liệu của một entry tar; đóng stream không đóng archive
+    private static final class EntryStream extends FilterInputStream {
+        private long remaining;
+
+        private EntryStream(InputStream in, long size) {
+            super(in);
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b < 0) throw new IOException("Truncated tar entry");
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (remaining <= 0) return -1;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) throw new IOException("Truncated tar entry");
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void skipRemaining() throws IOException {
+            in.skipNBytes(remaining);
+            remaining = 0;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.library.ingest;
+
+import com.library.clustering.ClusterAssigner;
+import com.library.clustering.ClusterAssignment;
+import com.library.config.DatasetProperties;
+import com.library.config.UploadProperties;
+import com.library.content.ContentLocation;
+import com.library.content.ContentStore;
+import com.library.dedup.DuplicateDetector;
+import com.library.content.Latin1Text;
+import com.library.entity.Category;
+import com.library.event.DocumentsImportedEvent;
+import com.library.repository.CategoryRepository;
+import com.library.text.NewsgroupHeaders;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Bulk import of a directory tree of plain-text documents, one sub-directory per category.
+ * Files are read and their headers parsed on a pool of reader threads that hand documents to
+ * the importing thread through a bounded queue; rows are inserted with JDBC batches of
+ * {@code dataset.batch-size}, each committed on its own. Files already stored (same category
+ * and file name) are skipped before being read, so an interrupted import resumes where it
+ * stopped.
+ * <p>
+ * The rows bypass Hibernate, so {@code IDENTITY} ids do not prevent batching; with
+ * {@code rewriteBatchedStatements} each batch is sent as one multi-row INSERT. When the
+ * {@link ContentStore} is enabled the raw file bytes, already ISO-8859-1, are appended to it
+ * unchanged and the rows only reference them. Each document is assigned to its nearest cluster
+ * by the model of the last clustering run while it is parsed, and its SimHash is stored for
+ * {@link DuplicateDetector}, which checks the new rows once the import has finished.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentImporter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO documents (title, file_name, content, cluster, simhash, category_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_REFERENCE_SQL = "INSERT INTO documents (title, file_name, content_segment, "
+            + "content_offset, content_length, cluster, simhash, category_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_INLINE_SQL =
+            "SELECT id, content FROM documents WHERE content IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String MOVE_SQL = "UPDATE documents SET content = NULL, content_segment = ?, "
+            + "content_offset = ?, content_length = ? WHERE id = ?";
+    private static final int MAX_TITLE_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final DatasetProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ContentStore contentStore;
+    private final ClusterAssigner clusterAssigner;
+    private final UploadProperties uploadProperties;
+    private final DuplicateDetector duplicateDetector;
+
+    public ImportReport importDirectory(Path root) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+
+        // B1: Mỗi thư mục con là một category, tạo mới nếu chưa có
+        Map<String, Long> categories = resolveCategories(root);
+
+        // B2: Liệt kê file, bỏ qua các file đã được nạp ở lần trước
+        Set<String> existing = existingKeys();
+        int limit = properties.getMaxDocuments() > 0
+                ? Math.max(0, properties.getMaxDocuments() - existing.size())
+                : Integer.MAX_VALUE;
+        List<SourceFile> files = new ArrayList<>();
+        int skipped = 0;
+        for (Map.Entry<String, Long> category : categories.entrySet()) {
+            try (Stream<Path> paths = Files.list(root.resolve(category.getKey()))) {
+                for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile).sorted()::iterator) {
+                    if (existing.contains(key(category.getValue(), path.getFileName().toString()))) {
+                        skipped++;
+                    } else if (files.size() < limit) {
+                        files.add(new SourceFile(path, category.getValue()));
+                    }
+                }
+            }
+        }
+
+        // B3: Đọc và tách tiêu đề song song, hàng đợi giới hạn số tài liệu nằm trong bộ nhớ
+        BlockingQueue<ParsedDocument> queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        int threads = properties.getReaderThreads() > 0
+                ? properties.getReaderThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-reader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int imported = 0;
+        int failed = 0;
+        long bytes = 0;
+        boolean mapped = contentStore.isEnabled();
+        try {
+            for (SourceFile file : files) {
+                readers.execute(() -> {
+                    ParsedDocument document = null;
+                    try {
+                        document = read(file.path, file.categoryId, mapped);
+                    } finally {
+                        // Luồng ghi chờ đúng files.size() tài liệu: lỗi ngoài dự kiến (ví dụ OutOfMemoryError)
+                        // vẫn phải đưa một tài liệu lỗi vào hàng đợi, nếu không luồng ghi chờ mãi
+                        if (document == null) {
+                            document = ParsedDocument.failed(file.path.getFileName().toString(), file.categoryId);
+                        }
+                        try {
+                            queue.put(document);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            readers.shutdown();
+
+            // B4: Ghi theo lô JDBC, mỗi lô một transaction
+            List<ParsedDocument> batch = new ArrayList<>(properties.getBatchSize());
+            for (int i = 0; i < files.size(); i++) {
+                ParsedDocument document = queue.take();
+                if (document.title == null) {
+                    failed++;
+                    continue;
+                }
+                batch.add(document);
+                bytes += document.bytes;
+                if (batch.size() == properties.getBatchSize()) {
+                    imported += insert(batch);
+                    batch.clear();
+                }
+            }
+            imported += insert(batch);
+        } finally {
+            readers.shutdownNow();
+        }
+
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        ImportReport report = new ImportReport(imported, skipped, failed, bytes, elapsedMillis);
+        log.info("Import from {}: {}", root, report);
+        if (imported > 0) {
+            eventPublisher.publishEvent(new DocumentsImportedEvent(imported));
+        }
+        return report;
+    }
+
+    /**
+     * Imports an uploaded file: a zip, tar or gzip-compressed tar of plain-text documents, or a
+     * single document (see {@link ArchiveReader}). A document's category is the directory that
+     * holds it in the archive; documents at the top of the archive, and a single document, go
+     * to {@code defaultCategory} and fail without one. Documents already stored are skipped as
+     * in {@link #importDirectory}.
+     * <p>
+     * Entries are read and parsed on the calling thread, since decompression is sequential
+     * anyway, so at most one batch and one entry of {@code upload.max-document-mb} are in memory.
+     */
+    public ImportReport importArchive(Path file, String fileName, String defaultCategory) throws IOException {
+        long startTime = System.nanoTime();
+        ArchiveImport archive = new ArchiveImport(existingKeys(), defaultCategory);
+        ArchiveReader.read(file, fileName, archive);
+        archive.imported += insert(archive.batch);
+
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        ImportReport report = new ImportReport(archive.imported, archive.skipped, archive.failed, archive.bytes,
+                elapsedMillis);
+        log.info("Import of upload {}: {}", fileName, report);
+        if (archive.imported > 0) {
+            eventPublisher.publishEvent(new DocumentsImportedEvent(archive.imported));
+        }
+        return report;
+    }
+
+    private Set<String> existingKeys() {
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT category_id, file_name FROM documents",
+                rs -> { existing.add(key(rs.getLong(1), rs.getString(2))); });
+        return existing;
+    }
+
+    private Map<String, Long> resolveCategories(Path root) throws IOException {
+        Map<String, Long> categories = new HashMap<>();
+        try (Stream<Path> paths = Files.list(root)) {
+            for (Path dir : (Iterable<Path>) paths.filter(Files::isDirectory).sorted()::iterator) {
+                String name = dir.getFileName().toString();
+                categories.put(name, resolveCategory(name));
+            }
+        }
+        return categories;
+    }
+
+    private long resolveCategory(String name) {
+        Category category = categoryRepository.findByName(name).orElseGet(() -> {
+            Category created = new Category();
+            created.setName(name);
+            return categoryRepository.save(created);
+        });
+        return category.getId();
+    }
+
+    private int insert(List<ParsedDocument> batch) throws IOException {
+        if (batch.isEmpty()) return 0;
+        if (contentStore.isEnabled()) {
+            return insertReferences(batch);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, document) -> {
+                    ps.setString(1, document.title);
+                    ps.setString(2, document.fileName);
+                    ps.setString(3, document.content);
+                    ps.setObject(4, document.cluster, Types.INTEGER);
+                    ps.setObject(5, document.simhash, Types.BIGINT);
+                    ps.setLong(6, document.categoryId);
+                }));
+        return batch.size();
+    }
+
+    // Nội dung được ghi vào segment trước, chỉ commit các dòng tham chiếu tới nó sau khi đã flush
+    private int insertReferences(List<ParsedDocument> batch) throws IOException {
+        for (ParsedDocument document : batch) {
+            document.location = contentStore.append(document.raw, true);
+        }
+        contentStore.flush();
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_REFERENCE_SQL, batch, batch.size(), (ps, document) -> {
+                    ps.setString(1, document.title);
+                    ps.setString(2, document.fileName);
+                    ps.setInt(3, document.location.getSegment());
+                    ps.setLong(4, document.location.getOffset());
+                    ps.setInt(5, document.location.getLength());
+                    ps.setObject(6, document.cluster, Types.INTEGER);
+                    ps.setObject(7, document.simhash, Types.BIGINT);
+                    ps.setLong(8, document.categoryId);
+                }));
+        return batch.size();
+    }
+
+    /**
+     * Moves bodies still held in {@code documents.content} to the {@link ContentStore}, one
+     * committed batch of {@code dataset.batch-size} rows at a time. Returns the number of
+     * documents moved.
+     */
+    public int moveContentToStore() throws IOException {
+        long startTime = System.nanoTime();
+        int moved = 0;
+        while (true) {
+            List<MovedContent> batch = new ArrayList<>(properties.getBatchSize());
+            try {
+                jdbcTemplate.query(SELECT_INLINE_SQL, rs -> {
+                    try {
+                        batch.add(new MovedContent(rs.getLong(1), contentStore.append(rs.getString(2))));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, properties.getBatchSize());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (batch.isEmpty()) break;
+
+            contentStore.flush();
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(MOVE_SQL, batch, batch.size(), (ps, row) -> {
+                        ps.setInt(1, row.location.getSegment());
+                        ps.setLong(2, row.location.getOffset());
+                        ps.setInt(3, row.location.getLength());
+                        ps.setLong(4, row.id);
+                    }));
+            moved += batch.size();
+        }
+        if (moved > 0) {
+            log.info("Moved the content of {} documents to the content store in {} ms",
+                    moved, (System.nanoTime() - startTime) / 1_000_000);
+        }
+        return moved;
+    }
+
+    private ParsedDocument read(Path path, long categoryId, boolean mapped) {
+        String fileName = path.getFileName().toString();
+        try {
+            return parse(fileName, Files.readAllBytes(path), categoryId, mapped);
+        } catch (Exception e) {
+            log.warn("Error reading file {}", path, e);
+            return ParsedDocument.failed(fileName, categoryId);
+        }
+    }
+
+    private ParsedDocument parse(String fileName, byte[] bytes, long categoryId, boolean mapped) {
+        // Tách tiêu đề trực tiếp trên mảng byte, chỉ tạo String khi nội dung được lưu trong database
+        Latin1Text text = new Latin1Text(ByteBuffer.wrap(bytes));
+        String title = NewsgroupHeaders.parse(text).getSubject();
+        if (title.isEmpty()) {
+            title = fileName;
+        } else if (title.length() > MAX_TITLE_LENGTH) {
+            title = title.substring(0, MAX_TITLE_LENGTH);
+        }
+        // Gán cụm gần nhất như khi lưu từng tài liệu, null nếu chưa có mô hình
+        ClusterAssignment assignment = clusterAssigner.assign(text);
+        Integer cluster = assignment != null ? assignment.getCluster() : null;
+        Long simhash = duplicateDetector.fingerprint(text);
+        String content = mapped ? null : new String(bytes, StandardCharsets.ISO_8859_1);
+        return new ParsedDocument(title, fileName, content, mapped ? bytes : null, cluster, simhash, categoryId,
+                bytes.length);
+    }
+
+    private static String key(long categoryId, String fileName) {
+        return categoryId + "/" + fileName;
+    }
+
+    private static final class SourceFile {
+        private final Path path;
+        private final long categoryId;
+
+        private SourceFile(Path path, long categoryId) {
+            this.path = path;
+            this.categoryId = categoryId;
+        }
+    }
+
+    private static final class ParsedDocument {
+        // null nếu không đọc được file
+        private final String title;
+        private final String fileName;
+        private final String content;
+        // Byte gốc của file, chỉ giữ khi nội dung được ghi vào ContentStore
+        private final byte[] raw;
+        private final Integer cluster;
+        private final Long simhash;
+        private final long categoryId;
+        private final long bytes;
+        private ContentLocation location;
+
+        private ParsedDocument(String title, String fileName, String content, byte[] raw, Integer cluster,
+                               Long simhash, long categoryId, long bytes) {
+            this.title = title;
+            this.fileName = fileName;
+            this.content = content;
+            this.raw = raw;
+            this.cluster = cluster;
+            this.simhash = simhash;
+            this.categoryId = categoryId;
+            this.bytes = bytes;
+        }
+
+        private static ParsedDocument failed(String fileName, long categoryId) {
+            return new ParsedDocument(null, fileName, null, null, null, null, categoryId, 0);
+        }
+    }
+
+    // Nhận từng entry của archive theo thứ tự và ghi theo lô như importDirectory
+    private final class ArchiveImport implements ArchiveReader.EntryHandler {
+        private final Set<String> existing;
+        private final String defaultCategory;
+        private final Map<String, Long> categories = new HashMap<>();
+        private final List<ParsedDocument> batch = new ArrayList<>(properties.getBatchSize());
+        private final boolean mapped = contentStore.isEnabled();
+        private final int maxBytes = (int) Math.min(Integer.MAX_VALUE - 8, (long) uploadProperties.getMaxDocumentMb() << 20);
+        private int imported;
+        private int skipped;
+        private int failed;
+        private long bytes;
+
+        private ArchiveImport(Set<String> existing, String defaultCategory) {
+            this.existing = existing;
+            this.defaultCategory = defaultCategory;
+        }
+
+        @Override
+        public void entry(String name, InputStream in) throws IOException {
+            // B1: Thư mục chứa file là category, bỏ qua file ẩn và metadata của macOS
+            String[] parts = name.split("/");
+            for (String part : parts) {
+                if (part.startsWith(".") || part.equals("__MACOSX")) return;
+            }
+            String fileName = parts[parts.length - 1];
+            String categoryName = parts.length > 1 ? parts[parts.length - 2] : defaultCategory;
+            if (fileName.isEmpty() || categoryName == null || categoryName.isBlank()) {
+                log.warn("No category for uploaded file {}", name);
+                failed++;
+                return;
+            }
+            long categoryId = categories.computeIfAbsent(categoryName.strip(), DocumentImporter.this::resolveCategory);
+            if (!existing.add(key(categoryId, fileName))) {
+                skipped++;
+                return;
+            }
+
+            // B2: Đọc tối đa maxBytes + 1 byte để nhận ra file quá lớn mà không nạp hết vào heap
+            byte[] content = in.readNBytes(maxBytes + 1);
+            if (content.length > maxBytes) {
+                log.warn("Uploaded file {} is larger than {} MB", name, uploadProperties.getMaxDocumentMb());
+                failed++;
+                return;
+            }
+            ParsedDocument document;
+            try {
+                document = parse(fileName, content, categoryId, mapped);
+            } catch (Exception e) {
+                log.warn("Error reading uploaded file {}", name, e);
+                failed++;
+                return;
+            }
+
+            // B3: Ghi theo lô JDBC, mỗi lô một transaction
+            batch.add(document);
+            bytes += document.bytes;
+            if (batch.size() == properties.getBatchSize()) {
+                imported += insert(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static final class MovedContent {
+        private final long id;
+        private final ContentLocation location;
+
+        private MovedContent(long id, ContentLocation location) {
+            this.id = id;
+            this.location = location;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImportReport {
+
+    private final int imported;
+
+    // Đã có trong database từ lần nạp trước
+    private final int skipped;
+
+    private final int failed;
+
+    private final long bytes;
+
+    private final long elapsedMillis;
+
+    public double getDocumentsPerSecond() {
+        return elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("imported=%d, skipped=%d, failed=%d, %.1f MB in %d ms (%.0f docs/s, %.1f MB/s)",
+                imported, skipped, failed, bytes / 1e6, elapsedMillis, getDocumentsPerSecond(),
+                elapsedMillis == 0 ? 0.0 : bytes / 1e3 / elapsedMillis);
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.ingest;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * State of one uploaded file waiting for or going through ingestion, read by the polling
+ * endpoint.
+ */
+@Getter
+public class UploadJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    // Category của các file nằm ở gốc archive hoặc của file đơn lẻ, có thể null
+    private final String category;
+    private final long size;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile UploadJobStatus status = UploadJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile ImportReport report;
+
+    public UploadJob(String fileName, String category, long size) {
+        this.fileName = fileName;
+        this.category = category;
+        this.size = size;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = UploadJobStatus.RUNNING;
+    }
+
+    void markCompleted(ImportReport report) {
+        this.report = report;
+        finishedAt = Instant.now();
+        status = UploadJobStatus.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = UploadJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.library.ingest;
+
+public class UploadRejectedException extends RuntimeException {
+
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,163 @@
+package com.library.ingest;
+
+import com.library.config.UploadProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Accepts uploaded documents and archives and imports them in the background. The upload is
+ * copied in chunks through NIO channels into {@code upload.path}, so its size does not matter
+ * to the heap, and the request returns as soon as the file is on disk. One ingestion thread
+ * imports the files in order through {@link DocumentImporter#importArchive}; at most
+ * {@code upload.queue-capacity} files may wait, further uploads are rejected until one finishes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadService {
+
+    // Số job đã kết thúc được giữ lại để tra cứu
+    private static final int MAX_FINISHED_JOBS = 20;
+    private static final long TRANSFER_CHUNK = 8L << 20;
+    private static final String SPOOL_SUFFIX = ".upload";
+
+    private final DocumentImporter documentImporter;
+    private final UploadProperties properties;
+
+    private final Map<String, UploadJob> jobs = new LinkedHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), runnable -> {
+            Thread thread = new Thread(runnable, "upload-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Job không sống qua lần khởi động lại nên file còn sót lại không bao giờ được nạp
+        Path dir = Path.of(properties.getPath());
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> paths = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) paths.filter(p -> p.toString().endsWith(SPOOL_SUFFIX))::iterator) {
+                log.info("Removing unprocessed upload {}", path);
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores {@code file} and queues it for import. {@code category} is the category of a
+     * single document, or of the documents at the top of an archive.
+     */
+    public UploadJob upload(MultipartFile file, String category) throws IOException {
+        // Từ chối trước khi chép nếu hàng đợi đã đầy, lần submit bên dưới vẫn kiểm tra lại
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new UploadRejectedException("Ingestion queue is full, try again later");
+        }
+        String fileName = file.getOriginalFilename() != null && !file.getOriginalFilename().isBlank()
+                ? Path.of(file.getOriginalFilename()).getFileName().toString()
+                : "upload";
+        UploadJob job = new UploadJob(fileName, category == null || category.isBlank() ? null : category.strip(),
+                file.getSize());
+
+        // B1: Chép từng đoạn qua channel vào thư mục upload, không giữ cả file trong heap
+        Path dir = Path.of(properties.getPath());
+        Files.createDirectories(dir);
+        Path spool = dir.resolve(job.getId() + SPOOL_SUFFIX);
+        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream());
+             FileChannel out = FileChannel.open(spool, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        // B2: Đưa vào hàng đợi nạp
+        synchronized (this) {
+            try {
+                executor.execute(() -> run(job, spool));
+            } catch (RejectedExecutionException e) {
+                Files.deleteIfExists(spool);
+                throw new UploadRejectedException("Ingestion queue is full, try again later");
+            }
+            jobs.put(job.getId(), job);
+            evictFinishedJobs();
+        }
+        return job;
+    }
+
+    public synchronized UploadJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public synchronized List<UploadJob> getJobs() {
+        List<UploadJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(UploadJob::getSubmittedAt));
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void run(UploadJob job, Path spool) {
+        job.markRunning();
+        try {
+            job.markCompleted(documentImporter.importArchive(spool, job.getFileName(), job.getCategory()));
+        } catch (Exception e) {
+            job.markFailed(e.getMessage() != null ? e.getMessage() : e.toString());
+            log.error("Import of upload {} ({}) failed", job.getId(), job.getFileName(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete upload {}", spool, e);
+            }
+        }
+    }
+
+    private void evictFinishedJobs() {
+        int finished = 0;
+        for (UploadJob job : jobs.values()) {
+            if (!job.getStatus().isActive()) finished++;
+        }
+        for (Iterator<UploadJob> it = jobs.values().iterator(); it.hasNext() && finished > MAX_FINISHED_JOBS; ) {
+            if (!it.next().getStatus().isActive()) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+}
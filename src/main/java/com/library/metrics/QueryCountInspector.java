@@ -0,0 +1,35 @@
+package com.library.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between
+ * {@link #begin()} and {@link #end()}. Statements issued through {@code JdbcTemplate} bypass
+ * Hibernate and are not counted.
+ */
+@Component
+public class QueryCountInspector implements StatementInspector {
+
+    private final ThreadLocal<int[]> counts = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = counts.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public void begin() {
+        counts.set(new int[1]);
+    }
+
+    /** Stops counting and returns the number of statements since {@link #begin()}, or -1. */
+    public int end() {
+        int[] count = counts.get();
+        counts.remove();
+        return count != null ? count[0] : -1;
+    }
+}
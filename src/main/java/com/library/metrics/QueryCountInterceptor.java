@@ -0,0 +1,54 @@
+package com.library.metrics;
+
+import com.library.config.MonitoringProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the number of SQL statements per request as {@code library.http.queries}, tagged
+ * like {@code http.server.requests} with method and URI pattern. View rendering is included,
+ * so lazy loading from templates shows up too. Requests above
+ * {@code monitoring.query-warning-threshold} statements are logged as likely N+1 patterns.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    private final QueryCountInspector queryCountInspector;
+    private final MeterRegistry registry;
+    private final MonitoringProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        queryCountInspector.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int queries = queryCountInspector.end();
+        if (queries < 0) return;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("library.http.queries")
+                .description("SQL statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(queries);
+
+        if (properties.getQueryWarningThreshold() > 0 && queries > properties.getQueryWarningThreshold()) {
+            log.warn("{} {} executed {} SQL statements (possible N+1 query)", request.getMethod(),
+                    request.getRequestURI(), queries);
+        }
+    }
+}
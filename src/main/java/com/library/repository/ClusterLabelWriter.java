@@ -0,0 +1,126 @@
+package com.library.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes cluster labels straight to {@code documents.cluster} with JDBC batches, without
+ * loading entities into the persistence context or touching any other column.
+ */
+@Repository
+@AllArgsConstructor
+public class ClusterLabelWriter {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Sets the label of each id whose label is not {@code -1}, and {@code -1} on every other
+     * row. The reset only touches the id ranges between labelled ids, so each row is written
+     * once. Returns the number of labelled rows written.
+     */
+    @Transactional
+    public int writeLabels(long[] ids, int[] labels) {
+        int[] positions = new int[ids.length];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (labels[i] >= 0) {
+                positions[count++] = i;
+            }
+        }
+
+        // B1: Đặt -1 cho các khoảng id nằm giữa các dòng có nhãn, gồm cả dòng không có trong ma trận
+        long[] labelled = new long[count];
+        for (int i = 0; i < count; i++) {
+            labelled[i] = ids[positions[i]];
+        }
+        Arrays.sort(labelled);
+        List<long[]> gaps = new ArrayList<>();
+        long previous = Long.MIN_VALUE;
+        for (long id : labelled) {
+            if (id > previous + 1) gaps.add(new long[]{previous, id});
+            previous = id;
+        }
+        gaps.add(new long[]{previous, Long.MAX_VALUE});
+        jdbcTemplate.batchUpdate("UPDATE documents SET cluster = -1 WHERE id > ? AND id < ? "
+                + "AND (cluster IS NULL OR cluster <> -1)", gaps, BATCH_SIZE, (ps, gap) -> {
+            ps.setLong(1, gap[0]);
+            ps.setLong(2, gap[1]);
+        });
+
+        // B2: Ghi nhãn của các dòng có nhãn theo lô
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            int start = from;
+            int size = Math.min(BATCH_SIZE, count - from);
+            jdbcTemplate.batchUpdate("UPDATE documents SET cluster = ? WHERE id = ?", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int position = positions[start + i];
+                    ps.setInt(1, labels[position]);
+                    ps.setLong(2, ids[position]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        return count;
+    }
+
+    /**
+     * Clears every topic path, then sets the path of each id whose path is not {@code null}.
+     */
+    @Transactional
+    public void writePaths(long[] ids, String[] paths) {
+        jdbcTemplate.update("UPDATE documents SET cluster_path = NULL WHERE cluster_path IS NOT NULL");
+
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (paths[i] != null) {
+                positions.add(i);
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE documents SET cluster_path = ? WHERE id = ?", positions, BATCH_SIZE,
+                (ps, position) -> {
+                    ps.setString(1, paths[position]);
+                    ps.setLong(2, ids[position]);
+                });
+    }
+
+    /**
+     * Gives every near-duplicate with an id above {@code afterId} the cluster of its original.
+     * Duplicates keep no topic path, since the topic tree counts originals only. Returns the
+     * number of rows updated.
+     */
+    @Transactional
+    public int copyToDuplicates(long afterId) {
+        // Đọc cụm của bản gốc rồi ghi theo lô: UPDATE ... JOIN chỉ chạy trên MySQL, còn MySQL lại
+        // không cho subquery trong UPDATE đọc chính bảng đang được cập nhật
+        List<long[]> rows = jdbcTemplate.query("SELECT d.id, o.cluster FROM documents d "
+                        + "JOIN documents o ON d.duplicate_of = o.id WHERE d.id > ? "
+                        + "AND (d.cluster IS NULL OR o.cluster IS NULL OR d.cluster <> o.cluster)",
+                (rs, rowNum) -> {
+                    int cluster = rs.getInt(2);
+                    return new long[]{rs.getLong(1), rs.wasNull() ? Long.MIN_VALUE : cluster};
+                }, afterId);
+        jdbcTemplate.batchUpdate("UPDATE documents SET cluster = ? WHERE id = ?", rows, BATCH_SIZE,
+                (ps, row) -> {
+                    ps.setObject(1, row[1] == Long.MIN_VALUE ? null : (int) row[1], Types.INTEGER);
+                    ps.setLong(2, row[0]);
+                });
+        return rows.size();
+    }
+}
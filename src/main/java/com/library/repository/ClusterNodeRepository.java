@@ -0,0 +1,16 @@
+package com.library.repository;
+
+import com.library.entity.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, Long> {
+
+    List<ClusterNode> findByClusterOrderByPath(int cluster);
+
+    Optional<ClusterNode> findByPath(String path);
+}
@@ -0,0 +1,20 @@
+package com.library.repository;
+
+import com.library.entity.ClusteringRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ClusteringRunRepository extends JpaRepository<ClusteringRun, Long> {
+
+    // Ghi trong transaction riêng để lần chạy bị hủy hoặc lỗi (rollback) vẫn được lưu lại
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends ClusteringRun> S save(S run);
+
+    List<ClusteringRun> findTop20ByOrderByStartedAtDesc();
+}
@@ -0,0 +1,20 @@
+package com.library.repository;
+
+import com.library.entity.ClusteringSweepResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ClusteringSweepResultRepository extends JpaRepository<ClusteringSweepResult, Long> {
+
+    // Ghi ngay từng k để báo cáo vẫn còn khi sweep bị hủy hoặc lỗi
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    <S extends ClusteringSweepResult> S save(S result);
+
+    List<ClusteringSweepResult> findBySweepIdOrderByNumClustersAsc(String sweepId);
+}
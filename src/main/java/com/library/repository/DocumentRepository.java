@@ -1,14 +1,124 @@
 package com.library.repository;
 
 import com.library.entity.Document;
-import org.springframework.data.domain.Page;
+import com.library.repository.projection.CategoryCount;
+import com.library.repository.projection.ClusterCount;
+import com.library.repository.projection.DocumentContentRange;
+import com.library.repository.projection.DocumentIndexRow;
+import com.library.repository.projection.DocumentSummary;
+import com.library.repository.projection.DocumentText;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long> {
-    Page<Document> findAll(Pageable pageable);
-    Page<Document> findByCategoryId(Long categoryId, Pageable pageable);
-    Page<Document> findByCluster(Integer cluster, Pageable pageable);
-}
\ No newline at end of file
+    String SUMMARY_SELECT = "select d.id as id, d.title as title, d.fileName as fileName, d.cluster as cluster, "
+            + "d.clusterPath as clusterPath, c.name as categoryName, d.duplicateOf as duplicateOf "
+            + "from Document d left join d.category c";
+    // Nội dung trong cột content hoặc vị trí của nó trong ContentStore
+    String CONTENT_COLUMNS = "d.content as content, d.contentSegment as contentSegment, "
+            + "d.contentOffset as contentOffset, d.contentLength as contentLength";
+
+    // Tổng số lấy từ DocumentCountCache, không chạy COUNT(*) cho mỗi trang
+    @Query(SUMMARY_SELECT + " order by d.id")
+    List<DocumentSummary> findAllSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where c.id = :categoryId order by d.id")
+    List<DocumentSummary> findSummariesByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where d.cluster = :cluster order by d.id")
+    List<DocumentSummary> findSummariesByCluster(@Param("cluster") Integer cluster, Pageable pageable);
+
+    // Cây con của một nút chủ đề: đường dẫn của nút là tiền tố của đường dẫn mọi lá bên dưới
+    @Query(SUMMARY_SELECT + " where d.clusterPath like concat(:path, '%') order by d.id")
+    List<DocumentSummary> findSummariesByClusterPath(@Param("path") String path, Pageable pageable);
+
+    // Keyset: tìm theo id thay vì OFFSET, chi phí không phụ thuộc vào độ sâu của trang
+    @Query(SUMMARY_SELECT + " where d.id > :afterId order by d.id")
+    List<DocumentSummary> findSummariesAfter(@Param("afterId") long afterId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + " where d.id < :beforeId order by d.id desc")
+    List<DocumentSummary> findSummariesBefore(@Param("beforeId") long beforeId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + " where c.id = :categoryId and d.id > :afterId order by d.id")
+    List<DocumentSummary> findSummariesByCategoryIdAfter(@Param("categoryId") Long categoryId,
+                                                         @Param("afterId") long afterId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + " where c.id = :categoryId and d.id < :beforeId order by d.id desc")
+    List<DocumentSummary> findSummariesByCategoryIdBefore(@Param("categoryId") Long categoryId,
+                                                          @Param("beforeId") long beforeId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + " where d.cluster = :cluster and d.id > :afterId order by d.id")
+    List<DocumentSummary> findSummariesByClusterAfter(@Param("cluster") Integer cluster,
+                                                      @Param("afterId") long afterId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + " where d.cluster = :cluster and d.id < :beforeId order by d.id desc")
+    List<DocumentSummary> findSummariesByClusterBefore(@Param("cluster") Integer cluster,
+                                                       @Param("beforeId") long beforeId, Pageable limit);
+
+    // Bản trùng lặp đứng cạnh nhau theo bản gốc
+    @Query(SUMMARY_SELECT + " where d.duplicateOf is not null order by d.duplicateOf, d.id")
+    List<DocumentSummary> findDuplicateSummaries(Pageable pageable);
+
+    long countByDuplicateOfIsNotNull();
+
+    @Query(SUMMARY_SELECT + " where d.id in :ids")
+    List<DocumentSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_SELECT + " where d.id = :id")
+    Optional<DocumentSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("select d.cluster as cluster, count(d) as total from Document d group by d.cluster")
+    List<ClusterCount> countByCluster();
+
+    @Query("select d.category.id as categoryId, count(d) as total from Document d group by d.category.id")
+    List<CategoryCount> countByCategory();
+
+    // Trang xem chi tiết: lấy luôn category trong cùng một câu lệnh
+    @EntityGraph(attributePaths = "category")
+    Optional<Document> findWithCategoryById(Long id);
+
+    // Must be consumed inside a transaction and closed after use
+    // Chỉ tài liệu gốc, bản trùng lặp không có term vector
+    @Query("select d.id as id, " + CONTENT_COLUMNS + " from Document d where d.duplicateOf is null order by d.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<DocumentText> streamOriginalTexts();
+
+    @Query("select d.id from Document d")
+    List<Long> findAllIds();
+
+    @Query("select d.id from Document d where d.duplicateOf is null")
+    List<Long> findOriginalIds();
+
+    @Query("select d.id as id, " + CONTENT_COLUMNS + " from Document d where d.id in :ids")
+    List<DocumentText> findTextsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Một đoạn của cột content cùng vị trí nội dung trong ContentStore, trong một câu lệnh; start tính từ 1
+    @Query("select d.contentSegment as contentSegment, d.contentOffset as contentOffset, "
+            + "d.contentLength as contentLength, character_length(d.content) as inlineLength, "
+            + "substring(d.content, :start, :length) as text from Document d where d.id = :id")
+    Optional<DocumentContentRange> findContentRangeById(@Param("id") Long id, @Param("start") int start,
+                                                        @Param("length") int length);
+
+    // Đọc một đoạn của cột content trong database, không chuyển cả LONGTEXT qua JDBC; start tính từ 1
+    @Query("select substring(d.content, :start, :length) from Document d where d.id = :id")
+    String findContentRange(@Param("id") Long id, @Param("start") int start, @Param("length") int length);
+
+    @Query("select d.id as id, d.title as title, " + CONTENT_COLUMNS + ", c.id as categoryId "
+            + "from Document d left join d.category c where d.id in :ids")
+    List<DocumentIndexRow> findIndexRowsByIdIn(@Param("ids") Collection<Long> ids);
+}
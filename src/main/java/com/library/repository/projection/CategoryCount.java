@@ -0,0 +1,7 @@
+package com.library.repository.projection;
+
+public interface CategoryCount {
+    Long getCategoryId();
+
+    long getTotal();
+}
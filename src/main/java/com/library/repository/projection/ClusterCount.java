@@ -0,0 +1,7 @@
+package com.library.repository.projection;
+
+public interface ClusterCount {
+    Integer getCluster();
+
+    long getTotal();
+}
@@ -0,0 +1,18 @@
+package com.library.repository.projection;
+
+/**
+ * A range of a document's text together with where the whole text lives. {@code text} and
+ * {@code inlineLength}, the length in characters of {@code documents.content}, are
+ * {@code null} when the text is in the content store.
+ */
+public interface DocumentContentRange {
+    Integer getContentSegment();
+
+    Long getContentOffset();
+
+    Integer getContentLength();
+
+    Long getInlineLength();
+
+    String getText();
+}
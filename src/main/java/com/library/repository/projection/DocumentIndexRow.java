@@ -0,0 +1,11 @@
+package com.library.repository.projection;
+
+import com.library.content.ContentReference;
+
+public interface DocumentIndexRow extends ContentReference {
+    Long getId();
+
+    String getTitle();
+
+    Long getCategoryId();
+}
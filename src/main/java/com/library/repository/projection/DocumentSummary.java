@@ -0,0 +1,20 @@
+package com.library.repository.projection;
+
+/**
+ * Listing view of a document: everything the tables render, without the content column.
+ */
+public interface DocumentSummary {
+    Long getId();
+
+    String getTitle();
+
+    String getFileName();
+
+    Integer getCluster();
+
+    String getClusterPath();
+
+    String getCategoryName();
+
+    Long getDuplicateOf();
+}
@@ -0,0 +1,7 @@
+package com.library.repository.projection;
+
+import com.library.content.ContentReference;
+
+public interface DocumentText extends ContentReference {
+    Long getId();
+}
@@ -0,0 +1,632 @@
+package com.library.search;
+
+import com.library.config.SearchProperties;
+import com.library.content.ContentStore;
+import com.library.event.ClusteringCompletedEvent;
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentSavedEvent;
+import com.library.event.DocumentsImportedEvent;
+import com.library.repository.DocumentRepository;
+import com.library.repository.projection.DocumentIndexRow;
+import com.library.text.Analyzer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index over {@code Document.title} and {@code content}, ranked with BM25.
+ * <p>
+ * New and updated documents go to an in-memory buffer that is written out as an immutable
+ * segment every {@code search.flush-threshold} documents; segments store delta/varint encoded
+ * postings and are read through memory-mapped files. Deletes and updates mark the old copy
+ * deleted. Once more than {@code search.merge-factor} segments exist the smallest ones are
+ * merged into one, dropping deleted documents; until then deleted documents still count towards
+ * document frequencies, which only shifts IDF slightly. The segment list and deletions are recorded in
+ * a manifest so a restart reopens the index instead of rebuilding it. Replacing a segment copy
+ * records its deletion right away, so a buffered update lost in a crash shows up as a missing
+ * document; missing and removed documents are reconciled against the database after startup.
+ * <p>
+ * All changes run on one background thread, searches take the read lock and never wait on
+ * segment writes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FullTextIndex {
+
+    private static final int MANIFEST_MAGIC = 0x46544D32; // "FTM2"
+    private static final String MANIFEST = "segments.manifest";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int SYNC_CHUNK_SIZE = 1000;
+
+    private final DocumentRepository documentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchProperties properties;
+    private final Analyzer analyzer;
+    private final ContentStore contentStore;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Long, IndexedDocument> buffer = new LinkedHashMap<>();
+    private long liveDocuments;
+    private long totalLength;
+    private int nextGeneration;
+
+    // Nhãn cụm hiện tại để lọc kết quả, nạp lại sau mỗi lần phân cụm
+    private volatile long[] clusterIds = new long[0];
+    private volatile int[] clusterLabels = new int[0];
+    private final Map<Long, Integer> clusterOverrides = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private ExecutorService maintenance;
+    private Path directory;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Path.of(properties.getIndexPath());
+        Files.createDirectories(directory);
+        maintenance = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Path manifest = directory.resolve(MANIFEST);
+        Set<String> known = new HashSet<>();
+        if (Files.exists(manifest)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest)))) {
+                if (in.readInt() == MANIFEST_MAGIC && in.readLong() == analyzer.fingerprint()) {
+                    readSegments(in, known);
+                } else {
+                    // Định dạng hoặc cách tách từ đã đổi: bỏ toàn bộ segment, đồng bộ lại từ database
+                    log.warn("Search index is incompatible with the current analyzer and will be rebuilt");
+                }
+            }
+        }
+        // File segment không có trong manifest là phần dở dang của lần ghi trước
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.equals(MANIFEST) && !known.contains(name)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        for (Segment segment : segments) {
+            for (int doc = 0; doc < segment.docCount(); doc++) {
+                if (segment.deleted.get(doc)) continue;
+                liveDocuments++;
+                totalLength += segment.lengths[doc];
+            }
+        }
+        log.info("Search index opened: {} segments, {} documents", segments.size(), liveDocuments);
+    }
+
+    private void readSegments(DataInputStream in, Set<String> known) throws IOException {
+        nextGeneration = in.readInt();
+        int count = in.readInt();
+        for (int s = 0; s < count; s++) {
+            Segment segment = new Segment(directory, in.readUTF());
+            int deleted = in.readInt();
+            for (int i = 0; i < deleted; i++) {
+                segment.deleted.set(in.readInt());
+            }
+            segments.add(segment);
+            known.add(segment.name);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        maintenance.shutdown();
+        maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * Top {@code limit} documents for {@code query}, optionally restricted to a category and
+     * a cluster, best first, together with the total number of matching documents.
+     */
+    public SearchResult search(String query, Long categoryId, Integer cluster, int limit) {
+        String[] terms = IndexedDocument.analyze(analyzer, 0, null, null, query, 1).terms;
+        if (terms.length == 0 || limit <= 0) {
+            return SearchResult.EMPTY;
+        }
+        double k1 = properties.getK1();
+        double b = properties.getB();
+        long wantedCategory = categoryId != null ? categoryId : -1L;
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(SearchHit::getScore));
+        int totalHits = 0;
+
+        lock.readLock().lock();
+        try {
+            if (liveDocuments == 0) {
+                return SearchResult.EMPTY;
+            }
+            double averageLength = (double) totalLength / liveDocuments;
+
+            // B1: IDF theo BM25 từ tổng df của các segment và buffer
+            int[][] termIndexes = new int[segments.size()][terms.length];
+            double[] idf = new double[terms.length];
+            for (int q = 0; q < terms.length; q++) {
+                long df = 0;
+                for (int s = 0; s < segments.size(); s++) {
+                    int t = segments.get(s).termIndex(terms[q]);
+                    termIndexes[s][q] = t;
+                    if (t >= 0) df += segments.get(s).documentFrequency(t);
+                }
+                for (IndexedDocument document : buffer.values()) {
+                    if (document.frequency(terms[q]) > 0) df++;
+                }
+                idf[q] = Math.log(1.0 + (liveDocuments - df + 0.5) / (df + 0.5));
+            }
+
+            // B2: Cộng điểm theo postings của từng segment, chỉ duyệt các tài liệu có chứa từ
+            Scratch work = scratch.get();
+            for (int s = 0; s < segments.size(); s++) {
+                Segment segment = segments.get(s);
+                work.ensure(segment.docCount());
+                float[] scores = work.scores;
+                int touched = 0;
+                for (int q = 0; q < terms.length; q++) {
+                    int t = termIndexes[s][q];
+                    if (t < 0) continue;
+                    int n = segment.readPostings(t, work.postings);
+                    int[] docs = work.postings[0];
+                    int[] frequencies = work.postings[1];
+                    for (int i = 0; i < n; i++) {
+                        int doc = docs[i];
+                        if (scores[doc] == 0f) work.touched[touched++] = doc;
+                        double tf = frequencies[i];
+                        double norm = k1 * (1 - b + b * segment.lengths[doc] / averageLength);
+                        scores[doc] += (float) (idf[q] * tf * (k1 + 1) / (tf + norm));
+                    }
+                }
+                for (int i = 0; i < touched; i++) {
+                    int doc = work.touched[i];
+                    float score = scores[doc];
+                    scores[doc] = 0f;
+                    if (segment.deleted.get(doc)) continue;
+                    if (categoryId != null && segment.categories[doc] != wantedCategory) continue;
+                    if (cluster != null && clusterOf(segment.ids[doc]) != cluster) continue;
+                    totalHits++;
+                    offer(top, limit, segment.ids[doc], score);
+                }
+            }
+
+            // B3: Tài liệu còn trong buffer
+            for (IndexedDocument document : buffer.values()) {
+                if (categoryId != null && document.categoryId != wantedCategory) continue;
+                double score = 0.0;
+                for (int q = 0; q < terms.length; q++) {
+                    int tf = document.frequency(terms[q]);
+                    if (tf == 0) continue;
+                    double norm = k1 * (1 - b + b * document.length / averageLength);
+                    score += idf[q] * tf * (k1 + 1) / (tf + norm);
+                }
+                if (score == 0.0) continue;
+                if (cluster != null && clusterOf(document.id) != cluster) continue;
+                totalHits++;
+                offer(top, limit, document.id, (float) score);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        SearchHit[] hits = top.toArray(new SearchHit[0]);
+        Arrays.sort(hits, Comparator.comparingDouble(SearchHit::getScore).reversed());
+        return new SearchResult(Collections.unmodifiableList(Arrays.asList(hits)), totalHits);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintenance.execute(this::synchronize);
+    }
+
+    @EventListener
+    public void onDocumentsImported(DocumentsImportedEvent event) {
+        maintenance.execute(this::synchronize);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentSaved(DocumentSavedEvent event) {
+        Long id = event.getDocumentId();
+        clusterOverrides.put(id, event.getCluster() != null ? event.getCluster() : -1);
+        maintenance.execute(() -> {
+            try {
+                for (DocumentIndexRow row : documentRepository.findIndexRowsByIdIn(List.of(id))) {
+                    add(row);
+                }
+                maybeFlush();
+            } catch (Exception e) {
+                log.error("Search index update failed for document {}", id, e);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        Long id = event.getDocumentId();
+        maintenance.execute(() -> {
+            try {
+                if (delete(id)) writeManifest();
+            } catch (IOException e) {
+                log.error("Search index delete failed for document {}", id, e);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClusteringCompleted(ClusteringCompletedEvent event) {
+        maintenance.execute(this::loadClusterLabels);
+    }
+
+    /** Indexes documents missing from the index and drops ids no longer in the database. */
+    private void synchronize() {
+        try {
+            long startTime = System.nanoTime();
+            List<Long> ids = documentRepository.findAllIds();
+            Set<Long> live = new HashSet<>(ids);
+            List<Long> missing = new ArrayList<>();
+            List<Long> stale = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (Long id : ids) {
+                    if (!contains(id)) missing.add(id);
+                }
+                for (Segment segment : segments) {
+                    for (int doc = 0; doc < segment.docCount(); doc++) {
+                        if (!segment.deleted.get(doc) && !live.contains(segment.ids[doc])) stale.add(segment.ids[doc]);
+                    }
+                }
+                for (Long id : buffer.keySet()) {
+                    if (!live.contains(id)) stale.add(id);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            for (Long id : stale) {
+                delete(id);
+            }
+            for (int from = 0; from < missing.size(); from += SYNC_CHUNK_SIZE) {
+                List<Long> chunk = missing.subList(from, Math.min(from + SYNC_CHUNK_SIZE, missing.size()));
+                for (DocumentIndexRow row : documentRepository.findIndexRowsByIdIn(chunk)) {
+                    add(row);
+                }
+                maybeFlush();
+            }
+            if (!stale.isEmpty()) writeManifest();
+            loadClusterLabels();
+            if (!missing.isEmpty() || !stale.isEmpty()) {
+                log.info("Search index synchronized: {} added, {} removed in {} ms",
+                        missing.size(), stale.size(), (System.nanoTime() - startTime) / 1_000_000);
+            }
+        } catch (Exception e) {
+            log.error("Search index synchronization failed", e);
+        }
+    }
+
+    private void add(DocumentIndexRow row) throws IOException {
+        IndexedDocument document = IndexedDocument.analyze(analyzer, row.getId(), row.getCategoryId(), row.getTitle(),
+                contentStore.read(row), properties.getTitleBoost());
+        boolean replaced;
+        lock.writeLock().lock();
+        try {
+            replaced = delete(row.getId());
+            buffer.put(document.id, document);
+            liveDocuments++;
+            totalLength += document.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Bản mới chỉ nằm trong buffer: ghi ngay việc xóa bản cũ để nếu dừng đột ngột thì lần
+        // đồng bộ sau khởi động thấy id bị thiếu và đánh chỉ mục lại, thay vì giữ nội dung cũ
+        if (replaced) writeManifest();
+    }
+
+    /** Removes the live copy of {@code id}; returns {@code true} if a segment document was marked deleted. */
+    private boolean delete(long id) {
+        lock.writeLock().lock();
+        try {
+            IndexedDocument buffered = buffer.remove(id);
+            if (buffered != null) {
+                liveDocuments--;
+                totalLength -= buffered.length;
+                return false;
+            }
+            for (Segment segment : segments) {
+                int doc = segment.find(id);
+                if (doc >= 0 && !segment.deleted.get(doc)) {
+                    segment.deleted.set(doc);
+                    liveDocuments--;
+                    totalLength -= segment.lengths[doc];
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean contains(long id) {
+        if (buffer.containsKey(id)) return true;
+        for (Segment segment : segments) {
+            int doc = segment.find(id);
+            if (doc >= 0 && !segment.deleted.get(doc)) return true;
+        }
+        return false;
+    }
+
+    private void maybeFlush() throws IOException {
+        if (buffer.size() >= properties.getFlushThreshold()) {
+            flush();
+            merge();
+        }
+    }
+
+    /** Writes the buffer as a new segment. Only called from the maintenance thread or on shutdown. */
+    private synchronized void flush() throws IOException {
+        List<IndexedDocument> documents;
+        lock.readLock().lock();
+        try {
+            if (buffer.isEmpty()) return;
+            documents = new ArrayList<>(buffer.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+        documents.sort(Comparator.comparingLong(document -> document.id));
+
+        int n = documents.size();
+        long[] ids = new long[n];
+        long[] categories = new long[n];
+        int[] lengths = new int[n];
+        Map<String, int[]> postings = new TreeMap<>();
+        for (int doc = 0; doc < n; doc++) {
+            IndexedDocument document = documents.get(doc);
+            ids[doc] = document.id;
+            categories[doc] = document.categoryId;
+            lengths[doc] = document.length;
+            for (int i = 0; i < document.terms.length; i++) {
+                // [count, doc0, tf0, doc1, tf1, ...]
+                int[] list = postings.get(document.terms[i]);
+                if (list == null) {
+                    list = new int[5];
+                } else if (list[0] * 2 + 3 > list.length) {
+                    list = Arrays.copyOf(list, list.length * 2 + 1);
+                }
+                list[list[0] * 2 + 1] = doc;
+                list[list[0] * 2 + 2] = document.frequencies[i];
+                list[0]++;
+                postings.put(document.terms[i], list);
+            }
+        }
+
+        String name = nextSegmentName();
+        try (SegmentWriter writer = new SegmentWriter(directory.resolve(name), ids, categories, lengths)) {
+            int[] docs = new int[n];
+            int[] frequencies = new int[n];
+            for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+                int[] list = entry.getValue();
+                for (int i = 0; i < list[0]; i++) {
+                    docs[i] = list[i * 2 + 1];
+                    frequencies[i] = list[i * 2 + 2];
+                }
+                writer.addTerm(entry.getKey(), docs, frequencies, list[0]);
+            }
+        }
+        Segment segment = new Segment(directory, name);
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : documents) {
+                buffer.remove(document.id);
+            }
+            segments.add(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writeManifest();
+    }
+
+    /** Merges the smallest segments into one while there are more than {@code search.merge-factor}. */
+    private synchronized void merge() throws IOException {
+        while (segments.size() > properties.getMergeFactor()) {
+            List<Segment> bySize = new ArrayList<>(segments);
+            bySize.sort(Comparator.comparingInt(Segment::liveCount));
+            List<Segment> selected = new ArrayList<>(bySize.subList(0, Math.min(properties.getMergeFactor(), bySize.size())));
+            long startTime = System.nanoTime();
+
+            // B1: Đánh số lại các tài liệu còn sống theo thứ tự id
+            int total = 0;
+            for (Segment segment : selected) total += segment.liveCount();
+            long[][] byId = new long[total][];
+            int k = 0;
+            for (int s = 0; s < selected.size(); s++) {
+                Segment segment = selected.get(s);
+                for (int doc = 0; doc < segment.docCount(); doc++) {
+                    if (!segment.deleted.get(doc)) byId[k++] = new long[]{segment.ids[doc], s, doc};
+                }
+            }
+            Arrays.sort(byId, Comparator.comparingLong(entry -> entry[0]));
+            int[][] remap = new int[selected.size()][];
+            for (int s = 0; s < selected.size(); s++) {
+                remap[s] = new int[selected.get(s).docCount()];
+                Arrays.fill(remap[s], -1);
+            }
+            long[] ids = new long[total];
+            long[] categories = new long[total];
+            int[] lengths = new int[total];
+            for (int doc = 0; doc < total; doc++) {
+                int s = (int) byId[doc][1];
+                int local = (int) byId[doc][2];
+                remap[s][local] = doc;
+                ids[doc] = byId[doc][0];
+                categories[doc] = selected.get(s).categories[local];
+                lengths[doc] = selected.get(s).lengths[local];
+            }
+
+            // B2: Trộn từ điển đã sắp xếp của các segment, gộp postings của từng từ
+            String name = nextSegmentName();
+            try (SegmentWriter writer = new SegmentWriter(directory.resolve(name), ids, categories, lengths)) {
+                int[] cursors = new int[selected.size()];
+                PriorityQueue<Integer> heads = new PriorityQueue<>(
+                        Comparator.comparing((Integer s) -> selected.get(s).term(cursors[s])));
+                for (int s = 0; s < selected.size(); s++) {
+                    if (selected.get(s).termCount() > 0) heads.add(s);
+                }
+                int[][] decoded = {new int[64], new int[64]};
+                long[] merged = new long[64];
+                while (!heads.isEmpty()) {
+                    String term = selected.get(heads.peek()).term(cursors[heads.peek()]);
+                    int count = 0;
+                    while (!heads.isEmpty() && selected.get(heads.peek()).term(cursors[heads.peek()]).equals(term)) {
+                        int s = heads.poll();
+                        int n = selected.get(s).readPostings(cursors[s], decoded);
+                        for (int i = 0; i < n; i++) {
+                            int doc = remap[s][decoded[0][i]];
+                            if (doc < 0) continue;
+                            if (count == merged.length) merged = Arrays.copyOf(merged, count * 2);
+                            merged[count++] = ((long) doc << 32) | decoded[1][i];
+                        }
+                        if (++cursors[s] < selected.get(s).termCount()) heads.add(s);
+                    }
+                    if (count == 0) continue;
+                    Arrays.sort(merged, 0, count);
+                    int[] docs = new int[count];
+                    int[] frequencies = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        docs[i] = (int) (merged[i] >>> 32);
+                        frequencies[i] = (int) merged[i];
+                    }
+                    writer.addTerm(term, docs, frequencies, count);
+                }
+            }
+            Segment mergedSegment = new Segment(directory, name);
+
+            lock.writeLock().lock();
+            try {
+                segments.removeAll(selected);
+                segments.add(mergedSegment);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            writeManifest();
+            for (Segment segment : selected) {
+                Files.deleteIfExists(directory.resolve(segment.name));
+            }
+            log.info("Merged {} search segments into {} ({} documents) in {} ms",
+                    selected.size(), name, total, (System.nanoTime() - startTime) / 1_000_000);
+        }
+    }
+
+    private synchronized void writeManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        Path temp = Files.createTempFile(directory, MANIFEST, ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeLong(analyzer.fingerprint());
+            out.writeInt(nextGeneration);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeUTF(segment.name);
+                BitSet deleted = segment.deleted;
+                out.writeInt(deleted.cardinality());
+                for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+                    out.writeInt(doc);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadClusterLabels() {
+        List<long[]> rows = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, cluster FROM documents ORDER BY id", rs -> {
+            int cluster = rs.getInt(2);
+            rows.add(new long[]{rs.getLong(1), rs.wasNull() ? -1 : cluster});
+        });
+        long[] ids = new long[rows.size()];
+        int[] labels = new int[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i)[0];
+            labels[i] = (int) rows.get(i)[1];
+        }
+        clusterOverrides.clear();
+        clusterLabels = labels;
+        clusterIds = ids;
+    }
+
+    private int clusterOf(long id) {
+        Integer override = clusterOverrides.get(id);
+        if (override != null) return override;
+        long[] ids = clusterIds;
+        int[] labels = clusterLabels;
+        int i = Arrays.binarySearch(ids, id);
+        return i >= 0 && i < labels.length ? labels[i] : -1;
+    }
+
+    private String nextSegmentName() {
+        return String.format("%08d%s", nextGeneration++, SEGMENT_SUFFIX);
+    }
+
+    private static void offer(PriorityQueue<SearchHit> top, int limit, long id, float score) {
+        if (top.size() < limit) {
+            top.add(new SearchHit(id, score));
+        } else if (score > top.peek().getScore()) {
+            top.poll();
+            top.add(new SearchHit(id, score));
+        }
+    }
+
+    /** Per-thread score accumulator sized to the largest segment seen. */
+    private static final class Scratch {
+        private float[] scores = new float[0];
+        private int[] touched = new int[0];
+        private final int[][] postings = {new int[64], new int[64]};
+
+        void ensure(int docCount) {
+            if (scores.length < docCount) {
+                scores = new float[docCount];
+                touched = new int[docCount];
+            }
+        }
+    }
+}
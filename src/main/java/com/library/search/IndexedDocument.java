@@ -0,0 +1,60 @@
+package com.library.search;
+
+import com.library.text.Analyzer;
+import com.library.text.Tokenizer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A document analysed for the full-text index: its distinct terms in sorted order with their
+ * frequencies, title occurrences counted {@code titleBoost} times.
+ */
+final class IndexedDocument {
+
+    final long id;
+    final long categoryId;
+    final int length;
+    final String[] terms;
+    final int[] frequencies;
+
+    private IndexedDocument(long id, long categoryId, int length, String[] terms, int[] frequencies) {
+        this.id = id;
+        this.categoryId = categoryId;
+        this.length = length;
+        this.terms = terms;
+        this.frequencies = frequencies;
+    }
+
+    static IndexedDocument analyze(Analyzer analyzer, long id, Long categoryId, String title, CharSequence content,
+                                   int titleBoost) {
+        Map<String, int[]> counts = new HashMap<>();
+        int[] length = new int[1];
+        Tokenizer tokenizer = analyzer.tokenizer();
+        if (title != null) {
+            tokenizer.tokenize(title, (buf, len) -> {
+                counts.computeIfAbsent(new String(buf, 0, len), term -> new int[1])[0] += titleBoost;
+                length[0] += titleBoost;
+            });
+        }
+        if (content != null) {
+            tokenizer.tokenize(content, (buf, len) -> {
+                counts.computeIfAbsent(new String(buf, 0, len), term -> new int[1])[0]++;
+                length[0]++;
+            });
+        }
+        String[] terms = counts.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] frequencies = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = counts.get(terms[i])[0];
+        }
+        return new IndexedDocument(id, categoryId != null ? categoryId : -1L, length[0], terms, frequencies);
+    }
+
+    int frequency(String term) {
+        int i = Arrays.binarySearch(terms, term);
+        return i >= 0 ? frequencies[i] : 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SearchHit {
+
+    private final long documentId;
+
+    // Điểm BM25
+    private final float score;
+}
@@ -0,0 +1,19 @@
+package com.library.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SearchResult {
+
+    public static final SearchResult EMPTY = new SearchResult(List.of(), 0);
+
+    // Các kết quả tốt nhất, điểm giảm dần
+    private final List<SearchHit> hits;
+
+    // Tổng số tài liệu khớp truy vấn và bộ lọc
+    private final int totalHits;
+}
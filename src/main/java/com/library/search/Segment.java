@@ -0,0 +1,137 @@
+package com.library.search;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Read side of a segment written by {@link SegmentWriter}. The doc table and dictionary are
+ * loaded on the heap; postings are decoded straight from the memory-mapped file. Deleted
+ * documents are tracked in a bit set owned by the index.
+ */
+final class Segment {
+
+    final String name;
+    final long[] ids;
+    final long[] categories;
+    final int[] lengths;
+    final BitSet deleted = new BitSet();
+
+    private final MappedByteBuffer buffer;
+    private final String[] terms;
+    private final int[] documentFrequencies;
+    private final long[] postingsOffsets;
+
+    Segment(Path directory, String name) throws IOException {
+        this.name = name;
+        try (FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != SegmentWriter.MAGIC || buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Not a search index segment: " + name);
+        }
+        int docCount = buffer.getInt(8);
+        ids = new long[docCount];
+        categories = new long[docCount];
+        lengths = new int[docCount];
+        int at = 12;
+        for (int doc = 0; doc < docCount; doc++) {
+            ids[doc] = buffer.getLong(at);
+            categories[doc] = buffer.getLong(at + 8);
+            lengths[doc] = buffer.getInt(at + 16);
+            at += 20;
+        }
+
+        at = (int) buffer.getLong(buffer.limit() - Long.BYTES);
+        int termCount = buffer.getInt(at);
+        at += 4;
+        terms = new String[termCount];
+        documentFrequencies = new int[termCount];
+        postingsOffsets = new long[termCount];
+        for (int t = 0; t < termCount; t++) {
+            int length = buffer.getInt(at);
+            byte[] bytes = new byte[length];
+            buffer.get(at + 4, bytes);
+            terms[t] = new String(bytes, StandardCharsets.UTF_8);
+            at += 4 + length;
+            documentFrequencies[t] = buffer.getInt(at);
+            postingsOffsets[t] = buffer.getLong(at + 4);
+            // at + 12: độ dài postings theo byte, không cần khi giải mã tuần tự
+            at += 16;
+        }
+    }
+
+    int docCount() {
+        return ids.length;
+    }
+
+    int liveCount() {
+        return ids.length - deleted.cardinality();
+    }
+
+    /** Local doc number of {@code id}, or -1. */
+    int find(long id) {
+        int doc = Arrays.binarySearch(ids, id);
+        return doc >= 0 ? doc : -1;
+    }
+
+    int termIndex(String term) {
+        int t = Arrays.binarySearch(terms, term);
+        return t >= 0 ? t : -1;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    String term(int t) {
+        return terms[t];
+    }
+
+    int documentFrequency(int t) {
+        return documentFrequencies[t];
+    }
+
+    /**
+     * Decodes the postings of term {@code t} into {@code docsAndFrequencies[0]} and
+     * {@code [1]}, replacing them with larger arrays when needed. Returns the number of entries.
+     */
+    int readPostings(int t, int[][] docsAndFrequencies) {
+        int df = documentFrequencies[t];
+        if (docsAndFrequencies[0].length < df) {
+            docsAndFrequencies[0] = new int[df];
+            docsAndFrequencies[1] = new int[df];
+        }
+        int[] docs = docsAndFrequencies[0];
+        int[] frequencies = docsAndFrequencies[1];
+        int at = (int) postingsOffsets[t];
+        int doc = 0;
+        for (int i = 0; i < df; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(at++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += value;
+            docs[i] = doc;
+
+            value = 0;
+            shift = 0;
+            do {
+                b = buffer.get(at++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            frequencies[i] = value;
+        }
+        return df;
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes an immutable segment file:
+ * <pre>
+ * header      MAGIC, VERSION, docCount
+ * doc table   docCount × (long id, long categoryId, int length), ids ascending
+ * postings    per term: varint(doc delta), varint(tf) pairs
+ * dictionary  termCount, then per term in sorted order: int byteLength, UTF-8 bytes,
+ *             int df, long postings offset, int postings length
+ * trailer     long dictionary offset
+ * </pre>
+ * Terms must be added in ascending order with ascending local doc numbers.
+ */
+final class SegmentWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x46545331; // "FTS1"
+    static final int VERSION = 1;
+
+    private final Path path;
+    private final Path temp;
+    private final DataOutputStream out;
+    private final DataOutputStream dictionary;
+    private final Path dictionaryTemp;
+    private long position;
+    private int termCount;
+
+    SegmentWriter(Path path, long[] ids, long[] categories, int[] lengths) throws IOException {
+        this.path = path;
+        this.temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        this.dictionaryTemp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".dict");
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16));
+        this.dictionary = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dictionaryTemp), 1 << 16));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ids.length);
+        for (int doc = 0; doc < ids.length; doc++) {
+            out.writeLong(ids[doc]);
+            out.writeLong(categories[doc]);
+            out.writeInt(lengths[doc]);
+        }
+        position = 12L + ids.length * 20L;
+    }
+
+    void addTerm(String term, int[] docs, int[] frequencies, int count) throws IOException {
+        long start = position;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            position += writeVarInt(out, docs[i] - previous);
+            position += writeVarInt(out, frequencies[i]);
+            previous = docs[i];
+        }
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        dictionary.writeInt(bytes.length);
+        dictionary.write(bytes);
+        dictionary.writeInt(count);
+        dictionary.writeLong(start);
+        dictionary.writeInt((int) (position - start));
+        termCount++;
+    }
+
+    /** Appends the dictionary and trailer and moves the file into place. */
+    @Override
+    public void close() throws IOException {
+        try {
+            dictionary.close();
+            long dictionaryOffset = position;
+            out.writeInt(termCount);
+            Files.copy(dictionaryTemp, out);
+            out.writeLong(dictionaryOffset);
+            out.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(dictionaryTemp);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int writeVarInt(DataOutputStream out, int value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            bytes++;
+        }
+        out.writeByte(value);
+        return bytes;
+    }
+}
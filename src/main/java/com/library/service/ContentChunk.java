@@ -0,0 +1,25 @@
+package com.library.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A range of a document's text. Offsets and lengths count characters; {@code nextOffset} is
+ * where the following chunk starts and equals {@code totalLength} after the last one.
+ */
+@Getter
+@AllArgsConstructor
+public class ContentChunk {
+
+    private final long offset;
+
+    private final long nextOffset;
+
+    private final long totalLength;
+
+    private final String text;
+
+    public boolean isLast() {
+        return nextOffset >= totalLength;
+    }
+}
@@ -1,25 +1,68 @@
 package com.library.service;
 
+import com.library.entity.ClusterNode;
 import com.library.entity.Document;
+import com.library.repository.projection.DocumentSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
 import java.util.Map;
 
 public interface DocumentService {
-    Page<Document> getAllDocuments(Pageable pageable);
+    Page<DocumentSummary> getAllDocuments(Pageable pageable);
 
     Document getDocumentById(Long id);
 
+    /** Listing view of one document, {@code null} if there is none. */
+    DocumentSummary getDocumentSummary(Long id);
+
+    /**
+     * Up to {@code maxLength} characters of a document's text from {@code offset}, read as a
+     * range so the rest of the body is never loaded. A chunk that does not reach the end stops
+     * after its last line break when there is one in its second half. {@code null} if there is
+     * no such document.
+     */
+    ContentChunk getContentChunk(Long id, long offset, int maxLength);
+
+    /**
+     * Writes the whole text of a document to {@code writer} in chunks of {@code chunkLength}
+     * characters, flushing after each. The text's location is looked up once; returns
+     * {@code false} if there is no such document.
+     */
+    boolean writeContent(Long id, Writer writer, int chunkLength) throws IOException;
+
     Document saveDocument(Document document);
 
     void deleteDocument(Long id);
 
-    Page<Document> getDocumentsByCategory(Long categoryId, Pageable pageable);
+    Page<DocumentSummary> getDocumentsByCategory(Long categoryId, Pageable pageable);
+
+    Page<DocumentSummary> getDocumentsByCluster(Integer cluster, Pageable pageable);
+
+    /** Near-duplicate documents grouped by their original. */
+    Page<DocumentSummary> getDuplicates(Pageable pageable);
 
-    Page<Document> getDocumentsByCluster(Integer cluster, Pageable pageable);
+    /** Documents of the topic subtree rooted at {@code path}, e.g. {@code "3.01"}. */
+    Page<DocumentSummary> getDocumentsByTopic(String path, Pageable pageable);
+
+    /** Topic tree of a cluster in pre-order, empty when no tree was built. */
+    List<ClusterNode> getTopics(int cluster);
+
+    /**
+     * Keyset alternative to the offset listings: the {@code size} documents with an id above
+     * {@code after}, or below {@code before} when it is set, filtered by category or else by
+     * cluster. Costs the same on every page.
+     */
+    KeysetPage<DocumentSummary> browseDocuments(Long categoryId, Integer cluster, Long after, Long before, int size);
 
     Map<Integer, Long> getClusterStatistics();
 
-    Page<Document> getSimilarDocuments(Long documentId, int topN, int page);
+    String getClusterStatisticsJson();
+
+    Page<DocumentSummary> getSimilarDocuments(Long documentId, int topN, int page, boolean sameCluster);
+
+    Page<DocumentSummary> searchDocuments(String query, Long categoryId, Integer cluster, Pageable pageable);
 }
@@ -0,0 +1,35 @@
+package com.library.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a listing navigated by id instead of offset. {@code nextAfter} and
+ * {@code previousBefore} are the cursors of the neighbouring pages, {@code null} when there
+ * is none. {@code totalElements} comes from cached counts and may lag behind concurrent
+ * writes.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private final List<T> content;
+
+    private final int size;
+
+    private final Long nextAfter;
+
+    private final Long previousBefore;
+
+    private final long totalElements;
+
+    public boolean hasNext() {
+        return nextAfter != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousBefore != null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.library.service.impl;
+
+import com.library.config.CacheProperties;
+import com.library.entity.Category;
+import com.library.event.CategoryChangedEvent;
+import com.library.event.DocumentsImportedEvent;
+import com.library.repository.CategoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All categories for the filters and document forms, which otherwise run {@code findAll} on
+ * every page. Only the id and name are kept, so the lazy {@code documents} collection is never
+ * touched, and callers get fresh detached copies. Reloaded after a category is saved or deleted
+ * and after an import, which creates the categories it finds. Weighs one per category.
+ */
+@Component
+@RequiredArgsConstructor
+class CategoryCache {
+
+    private static final String ALL = "all";
+
+    private final CategoryRepository categoryRepository;
+    private final CacheProperties properties;
+    private final MeterRegistry registry;
+
+    private WeightedLruCache<String, List<Category>> cache;
+
+    @PostConstruct
+    public void register() {
+        cache = new WeightedLruCache<>("categories", properties.getCategoryMaxEntries(), List::size);
+        cache.bindTo(registry);
+    }
+
+    List<Category> all() {
+        List<Category> categories = cache.get(ALL, key -> load());
+        List<Category> copies = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            copies.add(copy(category));
+        }
+        return copies;
+    }
+
+    Category byId(Long id) {
+        // Danh sách luôn đầy đủ nên không có trong danh sách nghĩa là không tồn tại
+        for (Category category : cache.get(ALL, key -> load())) {
+            if (category.getId().equals(id)) return copy(category);
+        }
+        return null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onDocumentsImported(DocumentsImportedEvent event) {
+        cache.invalidateAll();
+    }
+
+    private List<Category> load() {
+        List<Category> categories = new ArrayList<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.add(copy(category));
+        }
+        return List.copyOf(categories);
+    }
+
+    private static Category copy(Category category) {
+        Category copy = new Category();
+        copy.setId(category.getId());
+        copy.setName(category.getName());
+        return copy;
+    }
+}
@@ -1,9 +1,11 @@
 package com.library.service.impl;
 
 import com.library.entity.Category;
+import com.library.event.CategoryChangedEvent;
 import com.library.repository.CategoryRepository;
 import com.library.service.CategoryService;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,23 +13,28 @@ import java.util.List;
 @AllArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
     private CategoryRepository categoryRepository;
+    private CategoryCache categoryCache;
+    private ApplicationEventPublisher eventPublisher;
     @Override
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return categoryCache.all();
     }
 
     @Override
     public Category getCategoryById(Long id) {
-        return categoryRepository.findById(id).orElse(null);
+        return categoryCache.byId(id);
     }
 
     @Override
     public Category saveCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 }
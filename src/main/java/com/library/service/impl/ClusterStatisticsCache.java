@@ -0,0 +1,121 @@
+package com.library.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.event.ClusteringCompletedEvent;
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentSavedEvent;
+import com.library.event.DocumentsImportedEvent;
+import com.library.repository.DocumentRepository;
+import com.library.repository.projection.ClusterCount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Per-cluster document counts with their JSON form precomputed for the listing page. Loaded
+ * with one GROUP BY query, adjusted in place when single documents change and reloaded after
+ * a clustering run. Unclustered documents ({@code null} or {@code -1}) are counted under
+ * {@code -1}.
+ */
+@Component
+@RequiredArgsConstructor
+class ClusterStatisticsCache {
+
+    private final DocumentRepository documentRepository;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+
+    Map<Integer, Long> getStatistics() {
+        return current().statistics;
+    }
+
+    String getStatisticsJson() {
+        return current().json;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentSaved(DocumentSavedEvent event) {
+        adjust(event.isCreated() ? null : key(event.getPreviousCluster()), key(event.getCluster()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        adjust(key(event.getCluster()), null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClusteringCompleted(ClusteringCompletedEvent event) {
+        snapshot = null;
+    }
+
+    @EventListener
+    public void onDocumentsImported(DocumentsImportedEvent event) {
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    TreeMap<Integer, Long> counts = new TreeMap<>();
+                    for (ClusterCount count : documentRepository.countByCluster()) {
+                        counts.merge(key(count.getCluster()), count.getTotal(), Long::sum);
+                    }
+                    current = snapshot(counts);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized void adjust(Integer removedFrom, Integer addedTo) {
+        Snapshot current = snapshot;
+        if (current == null || Objects.equals(removedFrom, addedTo)) {
+            return;
+        }
+        TreeMap<Integer, Long> counts = new TreeMap<>(current.statistics);
+        if (removedFrom != null) {
+            counts.computeIfPresent(removedFrom, (cluster, total) -> total > 1 ? total - 1 : null);
+        }
+        if (addedTo != null) {
+            counts.merge(addedTo, 1L, Long::sum);
+        }
+        snapshot = snapshot(counts);
+    }
+
+    private Snapshot snapshot(TreeMap<Integer, Long> counts) {
+        Map<Integer, Long> statistics = Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+        try {
+            return new Snapshot(statistics, objectMapper.writeValueAsString(statistics));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Integer key(Integer cluster) {
+        return cluster != null ? cluster : -1;
+    }
+
+    private static final class Snapshot {
+        private final Map<Integer, Long> statistics;
+        private final String json;
+
+        private Snapshot(Map<Integer, Long> statistics, String json) {
+            this.statistics = statistics;
+            this.json = json;
+        }
+    }
+}
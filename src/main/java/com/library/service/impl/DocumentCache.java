@@ -0,0 +1,136 @@
+package com.library.service.impl;
+
+import com.library.config.CacheProperties;
+import com.library.content.ContentStore;
+import com.library.entity.Category;
+import com.library.entity.Document;
+import com.library.event.CategoryChangedEvent;
+import com.library.event.ClusteringCompletedEvent;
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentSavedEvent;
+import com.library.repository.DocumentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Recently opened documents with their category name and full text, so documents being edited
+ * are not reloaded from the database and the content store on every request. The view page
+ * reads ranges of the text instead (see {@code DocumentService#getContentChunk}). Bounded by
+ * {@code cache.document-max-mb}, each entry weighing an upper bound of its heap size, which is
+ * dominated by the content length.
+ * <p>
+ * A document is dropped once a save or delete of it commits. Clustering runs relabel every
+ * document and a renamed category changes the name of many, so those clear the whole cache.
+ */
+@Component
+@RequiredArgsConstructor
+class DocumentCache {
+
+    // Ước lượng phần cố định của một bản ghi: các đối tượng, trường và header của chuỗi
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final DocumentRepository documentRepository;
+    private final ContentStore contentStore;
+    private final CacheProperties properties;
+    private final MeterRegistry registry;
+
+    private WeightedLruCache<Long, CachedDocument> cache;
+
+    @PostConstruct
+    public void register() {
+        cache = new WeightedLruCache<>("documents", (long) properties.getDocumentMaxMb() << 20,
+                CachedDocument::weight);
+        cache.bindTo(registry);
+    }
+
+    /** Detached copy of the document with its content and category, {@code null} if missing. */
+    Document get(Long id) {
+        CachedDocument cached = cache.get(id, this::load);
+        return cached == null ? null : cached.toDocument();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentSaved(DocumentSavedEvent event) {
+        cache.invalidate(event.getDocumentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        cache.invalidate(event.getDocumentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClusteringCompleted(ClusteringCompletedEvent event) {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    private CachedDocument load(Long id) {
+        Document document = documentRepository.findWithCategoryById(id).orElse(null);
+        if (document == null) return null;
+        Category category = document.getCategory();
+        return new CachedDocument(document.getId(), document.getTitle(), document.getFileName(),
+                contentStore.text(document), document.getCluster(), document.getClusterPath(),
+                document.getDuplicateOf(), category != null ? category.getId() : null, category != null ? category.getName() : null);
+    }
+
+    private static final class CachedDocument {
+        private final Long id;
+        private final String title;
+        private final String fileName;
+        private final String content;
+        private final Integer cluster;
+        private final String clusterPath;
+        private final Long duplicateOf;
+        private final Long categoryId;
+        private final String categoryName;
+
+        private CachedDocument(Long id, String title, String fileName, String content, Integer cluster,
+                               String clusterPath, Long duplicateOf, Long categoryId, String categoryName) {
+            this.id = id;
+            this.title = title;
+            this.fileName = fileName;
+            this.content = content;
+            this.cluster = cluster;
+            this.clusterPath = clusterPath;
+            this.duplicateOf = duplicateOf;
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+        }
+
+        // Hai byte mỗi ký tự là cận trên, chuỗi Latin-1 chỉ chiếm một byte
+        private long weight() {
+            return ENTRY_OVERHEAD + 2L * (length(title) + length(fileName) + length(content)
+                    + length(clusterPath) + length(categoryName));
+        }
+
+        private Document toDocument() {
+            Document document = new Document();
+            document.setId(id);
+            document.setTitle(title);
+            document.setFileName(fileName);
+            document.setContent(content);
+            document.setCluster(cluster);
+            document.setClusterPath(clusterPath);
+            document.setDuplicateOf(duplicateOf);
+            if (categoryId != null) {
+                Category category = new Category();
+                category.setId(categoryId);
+                category.setName(categoryName);
+                document.setCategory(category);
+            }
+            return document;
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
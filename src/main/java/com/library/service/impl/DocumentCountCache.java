@@ -0,0 +1,70 @@
+package com.library.service.impl;
+
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentSavedEvent;
+import com.library.event.DocumentsImportedEvent;
+import com.library.repository.DocumentRepository;
+import com.library.repository.projection.CategoryCount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Totals of the document listings, so paging does not run a {@code COUNT(*)} per request.
+ * Cluster totals and the overall total come from {@link ClusterStatisticsCache}; category
+ * totals are loaded with one GROUP BY query and reloaded lazily after any change.
+ */
+@Component
+@RequiredArgsConstructor
+class DocumentCountCache {
+
+    private final DocumentRepository documentRepository;
+    private final ClusterStatisticsCache clusterStatisticsCache;
+
+    private volatile Map<Long, Long> categoryCounts;
+
+    long total() {
+        long total = 0;
+        for (long count : clusterStatisticsCache.getStatistics().values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    long byCluster(Integer cluster) {
+        // Tài liệu chưa phân cụm (null) được thống kê chung với -1
+        return clusterStatisticsCache.getStatistics().getOrDefault(cluster, 0L);
+    }
+
+    long byCategory(Long categoryId) {
+        Map<Long, Long> counts = categoryCounts;
+        if (counts == null) {
+            counts = new HashMap<>();
+            for (CategoryCount count : documentRepository.countByCategory()) {
+                counts.put(count.getCategoryId(), count.getTotal());
+            }
+            categoryCounts = counts;
+        }
+        return counts.getOrDefault(categoryId, 0L);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentSaved(DocumentSavedEvent event) {
+        // Sự kiện không cho biết category cũ nên nạp lại khi cần
+        categoryCounts = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        categoryCounts = null;
+    }
+
+    @EventListener
+    public void onDocumentsImported(DocumentsImportedEvent event) {
+        categoryCounts = null;
+    }
+}
@@ -1,95 +1,339 @@
 package com.library.service.impl;
 
+import com.library.clustering.ClusterAssigner;
+import com.library.clustering.ClusterAssignment;
+import com.library.clustering.SimilarDocument;
+import com.library.clustering.SimilarityIndex;
+import com.library.clustering.TermVectorStore;
+import com.library.config.SearchProperties;
+import com.library.content.ContentLocation;
+import com.library.content.ContentStore;
+import com.library.dedup.DuplicateDetector;
+import com.library.entity.ClusterNode;
 import com.library.entity.Document;
+import com.library.event.DocumentDeletedEvent;
+import com.library.event.DocumentSavedEvent;
+import com.library.repository.ClusterNodeRepository;
 import com.library.repository.DocumentRepository;
+import com.library.repository.projection.DocumentContentRange;
+import com.library.repository.projection.DocumentSummary;
+import com.library.search.FullTextIndex;
+import com.library.search.SearchHit;
+import com.library.search.SearchResult;
+import com.library.service.ContentChunk;
 import com.library.service.DocumentService;
+import com.library.service.KeysetPage;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
 @AllArgsConstructor
 public class DocumentServiceImpl implements DocumentService {
     private final DocumentRepository documentRepository;
+    private final TermVectorStore termVectorStore;
+    private final ClusterStatisticsCache clusterStatisticsCache;
+    private final DocumentCountCache documentCountCache;
+    private final DocumentCache documentCache;
+    private final SimilarityIndex similarityIndex;
+    private final ClusterAssigner clusterAssigner;
+    private final FullTextIndex fullTextIndex;
+    private final SearchProperties searchProperties;
+    private final ContentStore contentStore;
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final DuplicateDetector duplicateDetector;
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
-    public Page<Document> getAllDocuments(Pageable pageable) {
-        return documentRepository.findAll(pageable);
+    public Page<DocumentSummary> getAllDocuments(Pageable pageable) {
+        return new PageImpl<>(documentRepository.findAllSummaries(pageable), pageable, documentCountCache.total());
     }
 
     @Override
     public Document getDocumentById(Long id) {
-        return documentRepository.findById(id).orElse(null);
+        // Bản sao tách khỏi session, đã có nội dung và category cho form sửa
+        return documentCache.get(id);
+    }
+
+    @Override
+    public DocumentSummary getDocumentSummary(Long id) {
+        return documentRepository.findSummaryById(id).orElse(null);
+    }
+
+    @Override
+    public ContentChunk getContentChunk(Long id, long offset, int maxLength) {
+        // B1: Một câu lệnh trả về cả đoạn trong cột content lẫn vị trí trong ContentStore
+        long start = Math.max(0L, offset);
+        int length = Math.max(1, maxLength);
+        DocumentContentRange range = documentRepository.findContentRangeById(id, rangeStart(start), length)
+                .orElse(null);
+        if (range == null) return null;
+
+        // B2: Nội dung trong ContentStore chỉ đọc đúng đoạn cần, độ dài đếm trên byte
+        String text;
+        long total;
+        if (range.getContentSegment() != null) {
+            total = contentStore.charLength(range.getContentSegment(), range.getContentOffset(),
+                    range.getContentLength());
+            text = contentStore.read(range.getContentSegment(), range.getContentOffset(), range.getContentLength(),
+                    start, length);
+        } else {
+            total = range.getInlineLength() != null ? range.getInlineLength() : 0L;
+            text = range.getText() != null ? range.getText() : "";
+        }
+        long from = Math.min(start, total);
+
+        // B3: Kết thúc ở đầu dòng để đoạn sau không bắt đầu giữa dòng, không tách cặp surrogate
+        if (from + text.length() < total) {
+            int lineEnd = text.lastIndexOf('\n') + 1;
+            if (lineEnd > text.length() / 2) {
+                text = text.substring(0, lineEnd);
+            } else if (text.length() > 1 && Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+                text = text.substring(0, text.length() - 1);
+            }
+        }
+        return new ContentChunk(from, from + text.length(), total, text);
+    }
+
+    @Override
+    public boolean writeContent(Long id, Writer writer, int chunkLength) throws IOException {
+        int length = Math.max(1, chunkLength);
+        // Vị trí nội dung được tra một lần cho cả yêu cầu, cùng với đoạn đầu
+        DocumentContentRange range = documentRepository.findContentRangeById(id, 1, length).orElse(null);
+        if (range == null) return false;
+        if (range.getContentSegment() != null) {
+            contentStore.write(range.getContentSegment(), range.getContentOffset(), range.getContentLength(),
+                    writer, length);
+            return true;
+        }
+        // Nội dung trong database: mỗi đoạn tiếp theo là một câu lệnh substring
+        String text = range.getText();
+        long position = 0;
+        while (text != null && !text.isEmpty()) {
+            writer.write(text);
+            writer.flush();
+            position += text.length();
+            if (text.length() < length) break;
+            text = documentRepository.findContentRange(id, rangeStart(position), length);
+        }
+        return true;
+    }
+
+    // Vị trí bắt đầu của substring tính từ 1
+    private static int rangeStart(long offset) {
+        return (int) Math.min(Integer.MAX_VALUE, offset + 1);
     }
 
     @Override
     public Document saveDocument(Document document) {
-        return documentRepository.save(document);
+        boolean created = document.getId() == null;
+        Integer previousCluster = created ? null : documentRepository.findSummaryById(document.getId())
+                .map(DocumentSummary::getCluster)
+                .orElse(null);
+        String content = document.getContent();
+        // Bản gần trùng lặp nhận cụm của bản gốc và không có term vector riêng
+        Long fingerprint = duplicateDetector.fingerprint(content);
+        Long original = duplicateDetector.findOriginal(document.getId(), fingerprint);
+        Optional<DocumentSummary> originalSummary = original == null ? Optional.empty()
+                : documentRepository.findSummaryById(original);
+        document.setSimhash(fingerprint);
+        document.setDuplicateOf(originalSummary.map(DocumentSummary::getId).orElse(null));
+        if (originalSummary.isPresent()) {
+            document.setCluster(originalSummary.get().getCluster());
+            document.setClusterPath(null);
+        } else {
+            // Gán cụm gần nhất theo mô hình của lần phân cụm trước, không cần chạy lại KMeans
+            ClusterAssignment assignment = clusterAssigner.assign(content);
+            if (assignment != null) {
+                document.setCluster(assignment.getCluster());
+            }
+        }
+        if (contentStore.isEnabled() && content != null) {
+            // Ghi nội dung vào segment trước, database chỉ giữ vị trí
+            ContentLocation location;
+            try {
+                location = contentStore.append(content);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store document content", e);
+            }
+            contentStore.flush();
+            document.setContent(null);
+            document.setContentSegment(location.getSegment());
+            document.setContentOffset(location.getOffset());
+            document.setContentLength(location.getLength());
+        } else if (content != null) {
+            document.setContentSegment(null);
+            document.setContentOffset(null);
+            document.setContentLength(null);
+        }
+        Document saved = documentRepository.save(document);
+        if (saved.getDuplicateOf() != null) {
+            termVectorStore.remove(saved.getId());
+        } else {
+            termVectorStore.update(saved.getId(), content);
+        }
+        duplicateDetector.register(saved.getId(), fingerprint, saved.getDuplicateOf());
+        eventPublisher.publishEvent(new DocumentSavedEvent(saved.getId(), created, previousCluster, saved.getCluster()));
+        return saved;
     }
 
     @Override
     public void deleteDocument(Long id) {
+        Optional<DocumentSummary> existing = documentRepository.findSummaryById(id);
         documentRepository.deleteById(id);
+        termVectorStore.remove(id);
+        existing.ifPresent(doc -> eventPublisher.publishEvent(new DocumentDeletedEvent(id, doc.getCluster())));
     }
 
     @Override
-    public Page<Document> getDocumentsByCategory(Long categoryId, Pageable pageable) {
-        return documentRepository.findByCategoryId(categoryId, pageable);
+    public Page<DocumentSummary> getDocumentsByCategory(Long categoryId, Pageable pageable) {
+        return new PageImpl<>(documentRepository.findSummariesByCategoryId(categoryId, pageable), pageable,
+                documentCountCache.byCategory(categoryId));
     }
 
     @Override
-    public Page<Document> getDocumentsByCluster(Integer cluster, Pageable pageable) {
-        return documentRepository.findByCluster(cluster, pageable);
+    public Page<DocumentSummary> getDocumentsByCluster(Integer cluster, Pageable pageable) {
+        return new PageImpl<>(documentRepository.findSummariesByCluster(cluster, pageable), pageable,
+                documentCountCache.byCluster(cluster));
     }
 
     @Override
-    public Map<Integer, Long> getClusterStatistics() {
-        List<Document> documents = documentRepository.findAll();
+    public Page<DocumentSummary> getDuplicates(Pageable pageable) {
+        return new PageImpl<>(documentRepository.findDuplicateSummaries(pageable), pageable,
+                documentRepository.countByDuplicateOfIsNotNull());
+    }
 
-        // Group by cluster (null = -1)
-        Map<Integer, Long> stats = documents.stream()
-                .collect(Collectors.groupingBy(
-                        doc -> doc.getCluster() != null ? doc.getCluster() : -1,
-                        Collectors.counting()
-                ));
+    @Override
+    public Page<DocumentSummary> getDocumentsByTopic(String path, Pageable pageable) {
+        // Số tài liệu của nút được lưu cùng cây, không cần COUNT(*)
+        long total = clusterNodeRepository.findByPath(path).map(ClusterNode::getSize).orElse(0);
+        return new PageImpl<>(documentRepository.findSummariesByClusterPath(path, pageable), pageable, total);
+    }
 
-        // Optional: Sort by cluster ID
-        return stats.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        java.util.LinkedHashMap::new // keep order
-                ));
+    @Override
+    public List<ClusterNode> getTopics(int cluster) {
+        return clusterNodeRepository.findByClusterOrderByPath(cluster);
+    }
+
+    @Override
+    public KeysetPage<DocumentSummary> browseDocuments(Long categoryId, Integer cluster, Long after, Long before, int size) {
+        // Lấy thêm một dòng để biết còn trang kế tiếp theo chiều đang đi hay không
+        Pageable limit = PageRequest.of(0, size + 1);
+        boolean backward = before != null;
+        long from = after != null ? after : 0L;
+        List<DocumentSummary> rows;
+        long total;
+        if (categoryId != null) {
+            rows = backward
+                    ? documentRepository.findSummariesByCategoryIdBefore(categoryId, before, limit)
+                    : documentRepository.findSummariesByCategoryIdAfter(categoryId, from, limit);
+            total = documentCountCache.byCategory(categoryId);
+        } else if (cluster != null) {
+            rows = backward
+                    ? documentRepository.findSummariesByClusterBefore(cluster, before, limit)
+                    : documentRepository.findSummariesByClusterAfter(cluster, from, limit);
+            total = documentCountCache.byCluster(cluster);
+        } else {
+            rows = backward
+                    ? documentRepository.findSummariesBefore(before, limit)
+                    : documentRepository.findSummariesAfter(from, limit);
+            total = documentCountCache.total();
+        }
+
+        boolean more = rows.size() > size;
+        List<DocumentSummary> content = new ArrayList<>(more ? rows.subList(0, size) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            // Đi quá cuối danh sách: chỉ còn đường quay lại
+            return new KeysetPage<>(content, size, backward ? before - 1 : null,
+                    backward || after == null ? null : after + 1, total);
+        }
+        Long firstId = content.get(0).getId();
+        Long lastId = content.get(content.size() - 1).getId();
+        Long nextAfter = backward || more ? lastId : null;
+        Long previousBefore = backward ? (more ? firstId : null) : (after != null ? firstId : null);
+        return new KeysetPage<>(content, size, nextAfter, previousBefore, total);
+    }
+
+    @Override
+    public Map<Integer, Long> getClusterStatistics() {
+        return clusterStatisticsCache.getStatistics();
     }
 
+    @Override
+    public String getClusterStatisticsJson() {
+        return clusterStatisticsCache.getStatisticsJson();
+    }
 
     @Override
-    public Page<Document> getSimilarDocuments(Long documentId, int topN, int page) {
-        Document currentDoc = documentRepository.findById(documentId)
+    public Page<DocumentSummary> getSimilarDocuments(Long documentId, int topN, int page, boolean sameCluster) {
+        DocumentSummary currentDoc = documentRepository.findSummaryById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
         Integer currentCluster = currentDoc.getCluster();
 
-        if (currentCluster == null) {
-            return Page.empty(); // Trả về trang rỗng nếu không có cụm
+        Pageable pageable = PageRequest.of(page, topN);
+        if (sameCluster && (currentCluster == null || currentCluster < 0)) {
+            return Page.empty(pageable); // Trả về trang rỗng nếu không có cụm
         }
 
-        Pageable pageable = PageRequest.of(page, topN);
-        Page<Document> documents = documentRepository.findByCluster(currentCluster, pageable);
+        // Bản trùng lặp không có vector riêng, tìm theo vector của bản gốc
+        long queryId = currentDoc.getDuplicateOf() != null ? currentDoc.getDuplicateOf() : documentId;
+        // Danh sách đã xếp hạng theo cosine, chỉ nạp thông tin của trang hiện tại
+        List<SimilarDocument> ranked = similarityIndex.findSimilar(queryId, sameCluster ? currentCluster : null);
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + topN, ranked.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (SimilarDocument similar : ranked.subList(from, to)) {
+            ids.add(similar.getDocumentId());
+        }
+        return new PageImpl<>(findSummariesInOrder(ids), pageable, ranked.size());
+    }
 
-        // Lọc tài liệu hiện tại và xây dựng lại Page
-        List<Document> filteredContent = documents.getContent()
-                .stream()
-                .filter(doc -> !doc.getId().equals(documentId)) // Loại bỏ tài liệu hiện tại
-                .collect(Collectors.toList());
+    @Override
+    public Page<DocumentSummary> searchDocuments(String query, Long categoryId, Integer cluster, Pageable pageable) {
+        int maxResults = searchProperties.getMaxResults();
+        if (query == null || query.isBlank() || pageable.getOffset() >= maxResults) {
+            return Page.empty(pageable);
+        }
+        // Chỉ xếp hạng đến hết trang hiện tại
+        int limit = (int) Math.min(maxResults, pageable.getOffset() + pageable.getPageSize());
+        SearchResult result = fullTextIndex.search(query, categoryId, cluster, limit);
+        List<SearchHit> hits = result.getHits();
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        List<Long> ids = new ArrayList<>(hits.size() - from);
+        for (SearchHit hit : hits.subList(from, hits.size())) {
+            ids.add(hit.getDocumentId());
+        }
+        return new PageImpl<>(findSummariesInOrder(ids), pageable, Math.min(result.getTotalHits(), maxResults));
+    }
 
-        return new PageImpl<>(filteredContent, pageable, documents.getTotalElements());
+    // Nạp summary theo lô và giữ nguyên thứ tự xếp hạng
+    private List<DocumentSummary> findSummariesInOrder(List<Long> ids) {
+        Map<Long, DocumentSummary> summaries = new HashMap<>();
+        for (DocumentSummary summary : documentRepository.findSummariesByIdIn(ids)) {
+            summaries.put(summary.getId(), summary);
+        }
+        List<DocumentSummary> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            DocumentSummary summary = summaries.get(id);
+            if (summary != null) content.add(summary);
+        }
+        return content;
     }
 }
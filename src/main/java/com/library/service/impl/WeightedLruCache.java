@@ -0,0 +1,150 @@
+package com.library.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Read-through LRU cache bounded by the total weight of its values rather than their number.
+ * Least recently used entries are evicted until the weight fits in {@code maxWeight}; a value
+ * heavier than the whole cache is returned but never stored, so a maximum of 0 disables it.
+ * <p>
+ * Values are loaded outside the lock. Every invalidation advances a generation, and a load that
+ * started before the current generation is not stored, so a reader racing with a save cannot put
+ * the old value back after the save invalidated it.
+ */
+class WeightedLruCache<K, V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    WeightedLruCache(String name, long maxWeight, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /** Cached value of {@code key}, loaded on a miss. {@code null} results are not cached. */
+    V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.value;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value, loadGeneration);
+        }
+        return value;
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Registers the usual {@code cache.*} meters tagged with the cache name: gets by result,
+     * puts, evictions, size, plus {@code cache.weight} and {@code cache.max.weight}.
+     */
+    void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+                .description("Cache lookups that found a value")
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+                .description("Cache lookups that had to load the value")
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.puts", puts, LongAdder::doubleValue)
+                .description("Values stored in the cache")
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue)
+                .description("Entries evicted to stay under the maximum weight")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.size", this, WeightedLruCache::size)
+                .description("Number of entries in the cache")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.weight", this, WeightedLruCache::weight)
+                .description("Total weight of the entries in the cache")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.max.weight", this, cache -> cache.maxWeight)
+                .description("Weight above which the cache evicts")
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private synchronized void put(K key, V value, long loadGeneration) {
+        // Đã bị vô hiệu hóa trong lúc nạp: giá trị có thể đã cũ
+        if (loadGeneration != generation) return;
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) return;
+
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += valueWeight;
+        puts.increment();
+
+        // Duyệt từ phần tử dùng lâu nhất; phần tử vừa thêm nằm cuối nên không bị loại
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.library.text;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text analysis shared by ingestion, TF-IDF vectorization and full-text search. Text is split
+ * on anything that is not a letter or digit and case-folded; stopwords, purely numeric tokens
+ * and tokens outside the length bounds are dropped, and the rest are optionally reduced to
+ * their Porter stem.
+ * <p>
+ * An analyzer is immutable and thread-safe. Tokens are produced by the {@link Tokenizer}s it
+ * creates, which hold the reusable buffers and must not be shared between threads.
+ */
+public class Analyzer {
+
+    private static final String STOPWORDS_RESOURCE = "/text/stopwords.txt";
+    private static final CharArraySet DEFAULT_STOPWORDS = loadStopwords();
+    private static final Analyzer STANDARD = new Analyzer(2, 40, false);
+
+    // Tăng khi thay đổi cách tách từ, để các chỉ mục đã lưu được xây dựng lại
+    private static final int VERSION = 1;
+
+    private final int minTokenLength;
+    private final int maxTokenLength;
+    private final boolean stemming;
+    private final CharArraySet stopwords;
+
+    public Analyzer(int minTokenLength, int maxTokenLength, boolean stemming) {
+        if (minTokenLength < 1 || maxTokenLength < minTokenLength) {
+            throw new IllegalArgumentException("Invalid token length bounds: " + minTokenLength + ".." + maxTokenLength);
+        }
+        this.minTokenLength = minTokenLength;
+        this.maxTokenLength = maxTokenLength;
+        this.stemming = stemming;
+        this.stopwords = DEFAULT_STOPWORDS;
+    }
+
+    /** Default settings: tokens of 2 to 40 characters, no stemming. */
+    public static Analyzer standard() {
+        return STANDARD;
+    }
+
+    public Tokenizer tokenizer() {
+        return new Tokenizer(this);
+    }
+
+    public int getMinTokenLength() {
+        return minTokenLength;
+    }
+
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    public boolean isStemming() {
+        return stemming;
+    }
+
+    /**
+     * Identifies the settings that decide which terms a text produces. Stores that persist
+     * analysed terms record it and rebuild when it changes.
+     */
+    public long fingerprint() {
+        long fingerprint = VERSION;
+        fingerprint = fingerprint * 31 + minTokenLength;
+        fingerprint = fingerprint * 31 + maxTokenLength;
+        fingerprint = fingerprint * 31 + (stemming ? 1 : 0);
+        return fingerprint * 31 + stopwords.digest();
+    }
+
+    boolean isStopword(char[] buf, int len) {
+        return stopwords.contains(buf, len);
+    }
+
+    private static CharArraySet loadStopwords() {
+        List<String> words = new ArrayList<>();
+        try (InputStream in = Analyzer.class.getResourceAsStream(STOPWORDS_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Stopword list not found: " + STOPWORDS_RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    words.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CharArraySet(words);
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.text;
+
+/**
+ * Fixed set of short strings looked up directly on a char buffer, used for stopwords so the
+ * tokenizer never builds a String to test membership.
+ */
+final class CharArraySet {
+
+    private final char[][] keys;
+    private final int mask;
+    private final int size;
+
+    CharArraySet(Iterable<String> words) {
+        int count = 0;
+        for (String ignored : words) count++;
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2) * 2;
+        keys = new char[capacity][];
+        mask = capacity - 1;
+        int added = 0;
+        for (String word : words) {
+            char[] key = word.toCharArray();
+            int slot = hash(key, key.length) & mask;
+            while (keys[slot] != null && !equals(keys[slot], key, key.length)) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == null) {
+                keys[slot] = key;
+                added++;
+            }
+        }
+        size = added;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(char[] buf, int len) {
+        int slot = hash(buf, len) & mask;
+        while (true) {
+            char[] key = keys[slot];
+            if (key == null) return false;
+            if (equals(key, buf, len)) return true;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Order-independent digest of the contents. */
+    long digest() {
+        long digest = 0;
+        for (char[] key : keys) {
+            if (key != null) digest += hash(key, key.length) * 0x9E3779B97F4A7C15L;
+        }
+        return digest;
+    }
+
+    private static boolean equals(char[] key, char[] buf, int len) {
+        if (key.length != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (key[i] != buf[i]) return false;
+        }
+        return true;
+    }
+
+    private static int hash(char[] buf, int len) {
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
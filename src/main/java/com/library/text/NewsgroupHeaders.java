@@ -0,0 +1,89 @@
+package com.library.text;
+
+import lombok.Getter;
+
+/**
+ * The {@code Subject}, {@code From} and {@code Lines} headers of a newsgroup article, read in
+ * one forward scan of the header block. Only the wanted values are copied out; the scan stops
+ * at the first blank line, whose end is reported as {@link #getBodyStart()}.
+ */
+@Getter
+public final class NewsgroupHeaders {
+
+    private static final String SUBJECT = "subject:";
+    private static final String FROM = "from:";
+    private static final String LINES = "lines:";
+
+    // Chuỗi rỗng nếu không có header
+    private final String subject;
+    private final String from;
+
+    // -1 nếu không có hoặc không hợp lệ
+    private final int lines;
+
+    // Vị trí bắt đầu phần nội dung, bằng độ dài văn bản nếu không có dòng trống
+    private final int bodyStart;
+
+    private NewsgroupHeaders(String subject, String from, int lines, int bodyStart) {
+        this.subject = subject;
+        this.from = from;
+        this.lines = lines;
+        this.bodyStart = bodyStart;
+    }
+
+    public static NewsgroupHeaders parse(CharSequence text) {
+        String subject = "";
+        String from = "";
+        int lines = -1;
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n') lineEnd++;
+            int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            int next = Math.min(lineEnd + 1, length);
+            if (contentEnd == lineStart) {
+                return new NewsgroupHeaders(subject, from, lines, next);
+            }
+            // Mỗi header chỉ lấy lần xuất hiện đầu tiên
+            if (subject.isEmpty() && startsWithIgnoreCase(text, lineStart, contentEnd, SUBJECT)) {
+                subject = value(text, lineStart + SUBJECT.length(), contentEnd);
+            } else if (from.isEmpty() && startsWithIgnoreCase(text, lineStart, contentEnd, FROM)) {
+                from = value(text, lineStart + FROM.length(), contentEnd);
+            } else if (lines < 0 && startsWithIgnoreCase(text, lineStart, contentEnd, LINES)) {
+                lines = parseCount(text, lineStart + LINES.length(), contentEnd);
+            }
+            lineStart = next;
+        }
+        return new NewsgroupHeaders(subject, from, lines, length);
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence text, int start, int end, String prefix) {
+        if (end - start < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = text.charAt(start + i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String value(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        return text.subSequence(start, end).toString();
+    }
+
+    private static int parseCount(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        if (start == end || end - start > 9) return -1;
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            count = count * 10 + (c - '0');
+        }
+        return count;
+    }
+}
@@ -0,0 +1,276 @@
+package com.library.text;
+
+/**
+ * Porter (1980) suffix-stripping stemmer working in place on a lower-cased token buffer. The
+ * buffer needs one spare slot beyond the token since step 1b may append an {@code e}.
+ * Instances are not thread-safe.
+ */
+final class PorterStemmer {
+
+    private char[] b;
+    // Chỉ số ký tự cuối của từ và điểm cắt của hậu tố vừa khớp
+    private int k;
+    private int j;
+
+    /** Stems {@code buf[0, len)} in place and returns the new length. */
+    int stem(char[] buf, int len) {
+        if (len <= 2) return len;
+        b = buf;
+        k = len - 1;
+        step1ab();
+        step1c();
+        step2();
+        step3();
+        step4();
+        step5();
+        b = null;
+        return k + 1;
+    }
+
+    private boolean consonant(int i) {
+        switch (b[i]) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !consonant(i - 1);
+            default:
+                return true;
+        }
+    }
+
+    // Số chuỗi nguyên âm-phụ âm (VC) trong b[0..j]
+    private int measure() {
+        int n = 0;
+        int i = 0;
+        while (true) {
+            if (i > j) return n;
+            if (!consonant(i)) break;
+            i++;
+        }
+        i++;
+        while (true) {
+            while (true) {
+                if (i > j) return n;
+                if (consonant(i)) break;
+                i++;
+            }
+            i++;
+            n++;
+            while (true) {
+                if (i > j) return n;
+                if (!consonant(i)) break;
+                i++;
+            }
+            i++;
+        }
+    }
+
+    private boolean vowelInStem() {
+        for (int i = 0; i <= j; i++) {
+            if (!consonant(i)) return true;
+        }
+        return false;
+    }
+
+    private boolean doubleConsonant(int i) {
+        return i >= 1 && b[i] == b[i - 1] && consonant(i);
+    }
+
+    // consonant-vowel-consonant, phụ âm cuối không phải w, x, y
+    private boolean cvc(int i) {
+        if (i < 2 || !consonant(i) || consonant(i - 1) || !consonant(i - 2)) return false;
+        char c = b[i];
+        return c != 'w' && c != 'x' && c != 'y';
+    }
+
+    private boolean ends(String suffix) {
+        int length = suffix.length();
+        int offset = k - length + 1;
+        if (offset < 0) return false;
+        for (int i = 0; i < length; i++) {
+            if (b[offset + i] != suffix.charAt(i)) return false;
+        }
+        j = k - length;
+        return true;
+    }
+
+    private void setTo(String replacement) {
+        int length = replacement.length();
+        for (int i = 0; i < length; i++) {
+            b[j + 1 + i] = replacement.charAt(i);
+        }
+        k = j + length;
+    }
+
+    private void replace(String replacement) {
+        if (measure() > 0) setTo(replacement);
+    }
+
+    // Số nhiều và -ed, -ing
+    private void step1ab() {
+        if (b[k] == 's') {
+            if (ends("sses")) {
+                k -= 2;
+            } else if (ends("ies")) {
+                setTo("i");
+            } else if (b[k - 1] != 's') {
+                k--;
+            }
+        }
+        if (ends("eed")) {
+            if (measure() > 0) k--;
+        } else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+            k = j;
+            if (ends("at")) {
+                setTo("ate");
+            } else if (ends("bl")) {
+                setTo("ble");
+            } else if (ends("iz")) {
+                setTo("ize");
+            } else if (doubleConsonant(k)) {
+                char c = b[k];
+                if (c != 'l' && c != 's' && c != 'z') k--;
+            } else {
+                j = k;
+                if (measure() == 1 && cvc(k)) setTo("e");
+            }
+        }
+    }
+
+    // y -> i khi thân từ có nguyên âm
+    private void step1c() {
+        if (ends("y") && vowelInStem()) b[k] = 'i';
+    }
+
+    // Hậu tố kép -> hậu tố đơn
+    private void step2() {
+        if (k == 0) return;
+        switch (b[k - 1]) {
+            case 'a':
+                if (ends("ational")) { replace("ate"); break; }
+                if (ends("tional")) { replace("tion"); break; }
+                break;
+            case 'c':
+                if (ends("enci")) { replace("ence"); break; }
+                if (ends("anci")) { replace("ance"); break; }
+                break;
+            case 'e':
+                if (ends("izer")) { replace("ize"); break; }
+                break;
+            case 'l':
+                if (ends("bli")) { replace("ble"); break; }
+                if (ends("alli")) { replace("al"); break; }
+                if (ends("entli")) { replace("ent"); break; }
+                if (ends("eli")) { replace("e"); break; }
+                if (ends("ousli")) { replace("ous"); break; }
+                break;
+            case 'o':
+                if (ends("ization")) { replace("ize"); break; }
+                if (ends("ation")) { replace("ate"); break; }
+                if (ends("ator")) { replace("ate"); break; }
+                break;
+            case 's':
+                if (ends("alism")) { replace("al"); break; }
+                if (ends("iveness")) { replace("ive"); break; }
+                if (ends("fulness")) { replace("ful"); break; }
+                if (ends("ousness")) { replace("ous"); break; }
+                break;
+            case 't':
+                if (ends("aliti")) { replace("al"); break; }
+                if (ends("iviti")) { replace("ive"); break; }
+                if (ends("biliti")) { replace("ble"); break; }
+                break;
+            case 'g':
+                if (ends("logi")) { replace("log"); break; }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // -ic-, -full, -ness, ...
+    private void step3() {
+        switch (b[k]) {
+            case 'e':
+                if (ends("icate")) { replace("ic"); break; }
+                if (ends("ative")) { replace(""); break; }
+                if (ends("alize")) { replace("al"); break; }
+                break;
+            case 'i':
+                if (ends("iciti")) { replace("ic"); break; }
+                break;
+            case 'l':
+                if (ends("ical")) { replace("ic"); break; }
+                if (ends("ful")) { replace(""); break; }
+                break;
+            case 's':
+                if (ends("ness")) { replace(""); break; }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Bỏ -ant, -ence, ... khi measure > 1
+    private void step4() {
+        if (k == 0) return;
+        switch (b[k - 1]) {
+            case 'a':
+                if (ends("al")) break;
+                return;
+            case 'c':
+                if (ends("ance")) break;
+                if (ends("ence")) break;
+                return;
+            case 'e':
+                if (ends("er")) break;
+                return;
+            case 'i':
+                if (ends("ic")) break;
+                return;
+            case 'l':
+                if (ends("able")) break;
+                if (ends("ible")) break;
+                return;
+            case 'n':
+                if (ends("ant")) break;
+                if (ends("ement")) break;
+                if (ends("ment")) break;
+                if (ends("ent")) break;
+                return;
+            case 'o':
+                if (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) break;
+                if (ends("ou")) break;
+                return;
+            case 's':
+                if (ends("ism")) break;
+                return;
+            case 't':
+                if (ends("ate")) break;
+                if (ends("iti")) break;
+                return;
+            case 'u':
+                if (ends("ous")) break;
+                return;
+            case 'v':
+                if (ends("ive")) break;
+                return;
+            case 'z':
+                if (ends("ize")) break;
+                return;
+            default:
+                return;
+        }
+        if (measure() > 1) k = j;
+    }
+
+    // Bỏ -e cuối và rút gọn -ll
+    private void step5() {
+        j = k;
+        if (b[k] == 'e') {
+            int m = measure();
+            if (m > 1 || m == 1 && !cvc(k - 1)) k--;
+        }
+        if (b[k] == 'l' && doubleConsonant(k) && measure() > 1) k--;
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.text;
+
+/**
+ * Produces the tokens of an {@link Analyzer} without allocating a String per token. Tokens
+ * are folded into a reusable buffer and handed to a {@link TokenSink}, which must copy what it
+ * keeps before returning. Works directly on a {@link CharSequence} or a region of a char
+ * array. Instances are not thread-safe.
+ */
+public class Tokenizer {
+
+    public interface TokenSink {
+        void token(char[] buf, int len);
+    }
+
+    // Bảng tra cho ký tự ASCII: 0 = phân cách, còn lại là ký tự đã chuyển về chữ thường
+    private static final char[] ASCII_FOLD = new char[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) ASCII_FOLD[c] = c;
+        for (char c = 'a'; c <= 'z'; c++) ASCII_FOLD[c] = c;
+        for (char c = 'A'; c <= 'Z'; c++) ASCII_FOLD[c] = (char) (c + ('a' - 'A'));
+    }
+
+    private final Analyzer analyzer;
+    private final int minTokenLength;
+    private final int maxTokenLength;
+    private final PorterStemmer stemmer;
+    // Thêm một ô vì bước 1b của Porter có thể kéo dài từ thêm một ký tự
+    private final char[] buffer;
+
+    private int len;
+    private boolean overflow;
+    private boolean numeric = true;
+
+    Tokenizer(Analyzer analyzer) {
+        this.analyzer = analyzer;
+        this.minTokenLength = analyzer.getMinTokenLength();
+        this.maxTokenLength = analyzer.getMaxTokenLength();
+        this.stemmer = analyzer.isStemming() ? new PorterStemmer() : null;
+        this.buffer = new char[maxTokenLength + 1];
+    }
+
+    /** Tokenizes {@code text} and returns the number of tokens emitted. */
+    public int tokenize(CharSequence text, TokenSink sink) {
+        int emitted = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (!append(text.charAt(i)) && len > 0) {
+                emitted += emit(sink);
+            }
+        }
+        return len > 0 ? emitted + emit(sink) : emitted;
+    }
+
+    /** Tokenizes {@code text[off, off + count)} and returns the number of tokens emitted. */
+    public int tokenize(char[] text, int off, int count, TokenSink sink) {
+        int emitted = 0;
+        for (int i = off, end = off + count; i < end; i++) {
+            if (!append(text[i]) && len > 0) {
+                emitted += emit(sink);
+            }
+        }
+        return len > 0 ? emitted + emit(sink) : emitted;
+    }
+
+    // Trả về false nếu c là ký tự phân cách
+    private boolean append(char c) {
+        char folded;
+        if (c < 128) {
+            folded = ASCII_FOLD[c];
+            if (folded == 0) return false;
+        } else if (Character.isLetterOrDigit(c)) {
+            folded = Character.toLowerCase(c);
+        } else {
+            return false;
+        }
+        if (len < maxTokenLength) {
+            buffer[len++] = folded;
+            numeric &= folded >= '0' && folded <= '9';
+        } else {
+            overflow = true;
+        }
+        return true;
+    }
+
+    private int emit(TokenSink sink) {
+        int length = len;
+        boolean keep = !overflow && !numeric && length >= minTokenLength && !analyzer.isStopword(buffer, length);
+        len = 0;
+        overflow = false;
+        numeric = true;
+        if (!keep) return 0;
+        if (stemmer != null) {
+            length = stemmer.stem(buffer, length);
+        }
+        sink.token(buffer, length);
+        return 1;
+    }
+}